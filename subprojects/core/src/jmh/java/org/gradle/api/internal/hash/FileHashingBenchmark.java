@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+@State(Scope.Benchmark)
+public class FileHashingBenchmark {
+
+    @Param({"1024", "1048576", "67108864"})
+    private int fileSize;
+
+    @Param({"MD5", "MURMUR3_128"})
+    private HashingStrategy strategy;
+
+    private File file;
+    private DefaultHasher hasher;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = File.createTempFile("hashing", ".bin");
+        byte[] content = new byte[64 * 1024];
+        new Random(fileSize).nextBytes(content);
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            for (int written = 0; written < fileSize; written += content.length) {
+                outputStream.write(content, 0, Math.min(content.length, fileSize - written));
+            }
+        } finally {
+            outputStream.close();
+        }
+        hasher = new DefaultHasher(strategy);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void hash(Blackhole bh) {
+        bh.consume(hasher.hash(file));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec;
+import org.gradle.internal.nativeplatform.filesystem.FileSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+
+/**
+ * Compares packing and unpacking the output directory of a task using the different packers. File modes are not read or written, so that only the cost of the format is measured.
+ */
+@State(Scope.Benchmark)
+public class TaskOutputPackerBenchmark {
+
+    @Param({"zip", "stream", "stream-compressed"})
+    private String packerType;
+
+    /**
+     * {@code classes} is many small compressible files, {@code jars} is a few large incompressible files.
+     */
+    @Param({"classes", "jars"})
+    private String content;
+
+    private File tempDir;
+    private TaskOutputPacker packer;
+    private TaskOutputsInternal sourceOutputs;
+    private TaskOutputsInternal targetOutputs;
+    private byte[] packed;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDir();
+        File sourceDir = new File(tempDir, "source");
+        Random random = new Random(0);
+        if (content.equals("classes")) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append("public void method").append(i).append("() { return; }\n");
+            }
+            for (int i = 0; i < 5000; i++) {
+                File file = new File(sourceDir, "org/gradle/package" + (i % 50) + "/Class" + i + ".class");
+                Files.createParentDirs(file);
+                Files.write(text.toString().getBytes("UTF-8"), file);
+            }
+        } else {
+            for (int i = 0; i < 5; i++) {
+                byte[] bytes = new byte[8 * 1024 * 1024];
+                random.nextBytes(bytes);
+                File file = new File(sourceDir, "libs/library" + i + ".jar");
+                Files.createParentDirs(file);
+                Files.write(bytes, file);
+            }
+        }
+        packer = createPacker();
+        sourceOutputs = outputs(sourceDir);
+        targetOutputs = outputs(new File(tempDir, "target"));
+        packed = pack();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tempDir);
+    }
+
+    @Benchmark
+    public byte[] pack() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        packer.createWriter(sourceOutputs).writeTo(output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public void unpack() throws IOException {
+        packer.unpack(targetOutputs, new TaskOutputReader() {
+            @Override
+            public InputStream read() {
+                return new ByteArrayInputStream(packed);
+            }
+        });
+    }
+
+    private TaskOutputPacker createPacker() {
+        FileSystem fileSystem = proxy(FileSystem.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("getUnixMode") ? 0644 : null;
+            }
+        });
+        if (packerType.equals("zip")) {
+            return new ZipTaskOutputPacker();
+        }
+        return new StreamTaskOutputPacker(fileSystem, packerType.equals("stream-compressed"));
+    }
+
+    private static TaskOutputsInternal outputs(final File directory) {
+        final TaskOutputFilePropertySpec propertySpec = proxy(TaskOutputFilePropertySpec.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getPropertyName")) {
+                    return "output";
+                }
+                if (method.getName().equals("getOutputFile")) {
+                    return directory;
+                }
+                if (method.getName().equals("getOutputType")) {
+                    return TaskOutputFilePropertySpec.OutputType.DIRECTORY;
+                }
+                if (method.getName().equals("compareTo")) {
+                    return 0;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        return proxy(TaskOutputsInternal.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getFileProperties")) {
+                    return ImmutableSortedSet.of(propertySpec);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
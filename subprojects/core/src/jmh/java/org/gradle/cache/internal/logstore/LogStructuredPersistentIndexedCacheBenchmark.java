@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal.logstore;
+
+import org.gradle.cache.internal.FileBackedIndexedCache;
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the throughput of a {@link LogStructuredPersistentIndexedCache} with that of a {@link BTreePersistentIndexedCache}, for lookups, changes and opening the cache.
+ */
+@State(Scope.Benchmark)
+public class LogStructuredPersistentIndexedCacheBenchmark {
+
+    @Param({"btree", "log"})
+    private String store;
+
+    @Param({"1000", "100000"})
+    private int entryCount;
+
+    private File cacheFile;
+    private FileBackedIndexedCache<String, Long> cache;
+    private String[] keys;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Random random = new Random();
+    }
+
+    @Setup(Level.Trial)
+    public void createCache() throws IOException {
+        cacheFile = File.createTempFile("cache", "." + store);
+        cacheFile.delete();
+        cache = openCache();
+        keys = new String[entryCount];
+        Map<String, Long> entries = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < entryCount; i++) {
+            keys[i] = "key_" + i;
+            entries.put(keys[i], (long) i);
+        }
+        cache.putAll(entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCache() {
+        cache.close();
+        cacheFile.delete();
+    }
+
+    private FileBackedIndexedCache<String, Long> openCache() {
+        if (store.equals("log")) {
+            return new LogStructuredPersistentIndexedCache<String, Long>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.LONG_SERIALIZER);
+        }
+        return new BTreePersistentIndexedCache<String, Long>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.LONG_SERIALIZER);
+    }
+
+    @Benchmark
+    @Group("get")
+    @GroupThreads(4)
+    public void getOnly(ThreadState state, Blackhole bh) {
+        bh.consume(cache.get(randomKey(state)));
+    }
+
+    @Benchmark
+    @Group("put")
+    @GroupThreads(1)
+    public void putOnly(ThreadState state) {
+        cache.put(randomKey(state), state.random.nextLong());
+    }
+
+    @Benchmark
+    @Group("getAndPut")
+    @GroupThreads(3)
+    public void getWhilePutting(ThreadState state, Blackhole bh) {
+        bh.consume(cache.get(randomKey(state)));
+    }
+
+    @Benchmark
+    @Group("getAndPut")
+    @GroupThreads(1)
+    public void putWhileGetting(ThreadState state) {
+        cache.put(randomKey(state), state.random.nextLong());
+    }
+
+    @Benchmark
+    @Group("reopen")
+    @GroupThreads(1)
+    public void reopen(Blackhole bh) {
+        cache.reset();
+        bh.consume(cache.get(keys[0]));
+    }
+
+    private String randomKey(ThreadState state) {
+        return keys[state.random.nextInt(keys.length)];
+    }
+}
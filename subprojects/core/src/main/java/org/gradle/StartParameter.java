@@ -21,6 +21,7 @@ import com.google.common.collect.Sets;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.gradle.api.Incubating;
+import org.gradle.api.execution.TaskSchedulingStrategy;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.configuration.ConsoleOutput;
 import org.gradle.api.logging.configuration.LoggingConfiguration;
@@ -86,6 +87,7 @@ public class StartParameter implements LoggingConfiguration, Serializable {
     private boolean parallelProjectExecution;
     private boolean configureOnDemand;
     private int maxWorkerCount;
+    private TaskSchedulingStrategy taskScheduling = TaskSchedulingStrategy.Default;
     private boolean continuous;
     private List<File> includedBuilds = new ArrayList<File>();
 
@@ -226,6 +228,7 @@ public class StartParameter implements LoggingConfiguration, Serializable {
         p.parallelProjectExecution = parallelProjectExecution;
         p.configureOnDemand = configureOnDemand;
         p.maxWorkerCount = maxWorkerCount;
+        p.taskScheduling = taskScheduling;
         p.systemPropertiesArgs = new HashMap<String, String>(systemPropertiesArgs);
         return p;
     }
@@ -683,6 +686,24 @@ public class StartParameter implements LoggingConfiguration, Serializable {
         }
     }
 
+    /**
+     * Returns the strategy used to order tasks that are ready to execute.
+     */
+    @Incubating
+    public TaskSchedulingStrategy getTaskScheduling() {
+        return taskScheduling;
+    }
+
+    /**
+     * Specifies the strategy used to order tasks that are ready to execute.
+     *
+     * @see #getTaskScheduling()
+     */
+    @Incubating
+    public void setTaskScheduling(TaskSchedulingStrategy taskScheduling) {
+        this.taskScheduling = taskScheduling;
+    }
+
     /**
      * If the configure-on-demand mode is active
      */
@@ -714,6 +735,7 @@ public class StartParameter implements LoggingConfiguration, Serializable {
             + ", parallelProjectExecution=" + parallelProjectExecution
             + ", configureOnDemand=" + configureOnDemand
             + ", maxWorkerCount=" + maxWorkerCount
+            + ", taskScheduling=" + taskScheduling
             + '}';
     }
 
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.execution;
+
+import org.gradle.api.Incubating;
+
+/**
+ * Specifies the order in which tasks that are ready to execute are handed out to workers.
+ */
+@Incubating
+public enum TaskSchedulingStrategy {
+    /**
+     * Execute ready tasks in the order in which they appear in the task graph.
+     */
+    Default,
+    /**
+     * Execute first the ready tasks that start the longest remaining chain of dependent tasks, as estimated from the durations of previous executions.
+     */
+    CriticalPath
+}
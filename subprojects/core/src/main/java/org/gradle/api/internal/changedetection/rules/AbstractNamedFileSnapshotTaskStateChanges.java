@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
@@ -74,6 +75,11 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
 
     protected abstract Map<String, FileCollectionSnapshot> getPrevious();
 
+    /**
+     * Returns the hashes of the previous snapshots, so that the previous snapshots that have not changed do not need to be loaded. May return null.
+     */
+    protected abstract Map<String, HashCode> getPreviousHashes();
+
     protected abstract void saveCurrent();
 
     protected FileCollectionSnapshotter getSnapshotter() {
@@ -130,6 +136,9 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
             public Iterator<TaskStateChange> apply(Map.Entry<String, FileCollectionSnapshot> entry) {
                 String propertyName = entry.getKey();
                 FileCollectionSnapshot currentSnapshot = entry.getValue();
+                if (isUnchanged(propertyName, currentSnapshot)) {
+                    return Iterators.emptyIterator();
+                }
                 FileCollectionSnapshot previousSnapshot = getPrevious().get(propertyName);
                 String propertyTitle = title + " property '" + propertyName + "'";
                 return currentSnapshot.iterateContentChangesSince(previousSnapshot, propertyTitle);
@@ -137,6 +146,12 @@ abstract class AbstractNamedFileSnapshotTaskStateChanges implements TaskStateCha
         }).iterator());
     }
 
+    private boolean isUnchanged(String propertyName, FileCollectionSnapshot currentSnapshot) {
+        Map<String, HashCode> previousHashes = getPreviousHashes();
+        HashCode previousHash = previousHashes == null ? null : previousHashes.get(propertyName);
+        return previousHash != null && previousHash.equals(currentSnapshot.getHash());
+    }
+
     @Override
     public void snapshotAfterTask() {
         saveCurrent();
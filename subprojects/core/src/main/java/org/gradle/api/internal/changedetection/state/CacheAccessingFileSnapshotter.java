@@ -23,6 +23,7 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.resource.TextResource;
 
 import java.io.File;
+import java.util.List;
 
 public class CacheAccessingFileSnapshotter implements FileSnapshotter {
     private final FileSnapshotter delegate;
@@ -63,6 +64,16 @@ public class CacheAccessingFileSnapshotter implements FileSnapshotter {
         });
     }
 
+    @Override
+    public List<FileSnapshot> snapshotAll(final List<? extends FileTreeElement> fileDetails) {
+        return cacheAccess.useCache("snapshotAll(List<FileTreeElement>)", new Factory<List<FileSnapshot>>() {
+            @Override
+            public List<FileSnapshot> create() {
+                return delegate.snapshotAll(fileDetails);
+            }
+        });
+    }
+
     @Override
     public HashCode hash(final File file) {
         return cacheAccess.useCache("hash(File)", new Factory<HashCode>() {
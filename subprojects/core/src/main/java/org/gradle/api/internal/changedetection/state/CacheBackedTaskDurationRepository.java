@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+
+/**
+ * Stores task durations in the task history cache, keyed by task path. The stored value is a moving average over the previous executions, so that a
+ * single unusually slow or fast execution does not dominate the estimate.
+ */
+public class CacheBackedTaskDurationRepository implements TaskDurationRepository {
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final PersistentIndexedCache<String, Long> taskDurationCache;
+
+    public CacheBackedTaskDurationRepository(TaskArtifactStateCacheAccess cacheAccess) {
+        this.cacheAccess = cacheAccess;
+        this.taskDurationCache = cacheAccess.createCache("taskDurations", String.class, BaseSerializerFactory.LONG_SERIALIZER);
+    }
+
+    @Override
+    public Long getDuration(final TaskInternal task) {
+        return cacheAccess.readCache("Load task duration", new Factory<Long>() {
+            public Long create() {
+                return taskDurationCache.get(task.getPath());
+            }
+        });
+    }
+
+    @Override
+    public void recordDuration(final TaskInternal task, final long durationMillis) {
+        cacheAccess.useCache("Update task duration", new Runnable() {
+            public void run() {
+                Long previous = taskDurationCache.get(task.getPath());
+                long estimate = previous == null ? durationMillis : (previous + durationMillis) / 2;
+                taskDurationCache.put(task.getPath(), estimate);
+            }
+        });
+    }
+}
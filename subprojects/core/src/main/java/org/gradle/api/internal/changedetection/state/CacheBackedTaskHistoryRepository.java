@@ -15,7 +15,10 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import org.gradle.api.internal.TaskInternal;
@@ -28,9 +31,12 @@ import org.gradle.internal.serialize.Serializer;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -81,6 +87,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                                 builder.put(entry.getKey(), snapshotRepository.add(entry.getValue()));
                             }
                             currentExecution.inputFilesSnapshotIds = builder.build();
+                            currentExecution.inputFilesSnapshotHashes = hashes(currentExecution.inputFilesSnapshot);
                         }
                         if (currentExecution.outputFilesSnapshotIds == null && currentExecution.outputFilesSnapshot != null) {
                             ImmutableSortedMap.Builder<String, Long> builder = ImmutableSortedMap.naturalOrder();
@@ -88,6 +95,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                                 builder.put(entry.getKey(), snapshotRepository.add(entry.getValue()));
                             }
                             currentExecution.outputFilesSnapshotIds = builder.build();
+                            currentExecution.outputFilesSnapshotHashes = hashes(currentExecution.outputFilesSnapshot);
                         }
                         if (currentExecution.discoveredFilesSnapshotId == null && currentExecution.discoveredFilesSnapshot != null) {
                             currentExecution.discoveredFilesSnapshotId = snapshotRepository.add(currentExecution.discoveredFilesSnapshot);
@@ -219,10 +227,20 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         }
     }
 
+    private static Map<String, HashCode> hashes(Map<String, FileCollectionSnapshot> snapshots) {
+        ImmutableSortedMap.Builder<String, HashCode> builder = ImmutableSortedMap.naturalOrder();
+        for (Map.Entry<String, FileCollectionSnapshot> entry : snapshots.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue().getHash());
+        }
+        return builder.build();
+    }
+
     //TODO SF extract & unit test
     private static class LazyTaskExecution extends TaskExecution {
         private Map<String, Long> inputFilesSnapshotIds;
         private Map<String, Long> outputFilesSnapshotIds;
+        private Map<String, HashCode> inputFilesSnapshotHashes;
+        private Map<String, HashCode> outputFilesSnapshotHashes;
         private Long discoveredFilesSnapshotId;
         private transient FileSnapshotRepository snapshotRepository;
         private transient Map<String, FileCollectionSnapshot> inputFilesSnapshot;
@@ -233,15 +251,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         @Override
         public Map<String, FileCollectionSnapshot> getInputFilesSnapshot() {
             if (inputFilesSnapshot == null) {
-                inputFilesSnapshot = cacheAccess.useCache("fetch input files", new Factory<Map<String, FileCollectionSnapshot>>() {
-                    public Map<String, FileCollectionSnapshot> create() {
-                        ImmutableSortedMap.Builder<String, FileCollectionSnapshot> builder = ImmutableSortedMap.naturalOrder();
-                        for (Map.Entry<String, Long> entry : inputFilesSnapshotIds.entrySet()) {
-                            builder.put(entry.getKey(), snapshotRepository.get(entry.getValue()));
-                        }
-                        return builder.build();
-                    }
-                });
+                inputFilesSnapshot = new LazySnapshotMap("fetch input files", inputFilesSnapshotIds);
             }
             return inputFilesSnapshot;
         }
@@ -250,12 +260,21 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         public void setInputFilesSnapshot(Map<String, FileCollectionSnapshot> inputFilesSnapshot) {
             this.inputFilesSnapshot = inputFilesSnapshot;
             this.inputFilesSnapshotIds = null;
+            this.inputFilesSnapshotHashes = null;
+        }
+
+        @Override
+        public Map<String, HashCode> getInputFilesHashes() {
+            if (inputFilesSnapshotHashes == null && inputFilesSnapshotIds == null && inputFilesSnapshot != null) {
+                return hashes(inputFilesSnapshot);
+            }
+            return inputFilesSnapshotHashes;
         }
 
         @Override
         public FileCollectionSnapshot getDiscoveredInputFilesSnapshot() {
             if (discoveredFilesSnapshot == null) {
-                discoveredFilesSnapshot = cacheAccess.useCache("fetch discovered input files", new Factory<FileCollectionSnapshot>() {
+                discoveredFilesSnapshot = cacheAccess.readCache("fetch discovered input files", new Factory<FileCollectionSnapshot>() {
                     public FileCollectionSnapshot create() {
                         return snapshotRepository.get(discoveredFilesSnapshotId);
                     }
@@ -273,16 +292,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         @Override
         public Map<String, FileCollectionSnapshot> getOutputFilesSnapshot() {
             if (outputFilesSnapshot == null) {
-                outputFilesSnapshot = cacheAccess.useCache("fetch output files", new Factory<Map<String, FileCollectionSnapshot>>() {
-                    public Map<String, FileCollectionSnapshot> create() {
-                        ImmutableSortedMap.Builder<String, FileCollectionSnapshot> builder = ImmutableSortedMap.naturalOrder();
-                        for (Map.Entry<String, Long> entry : outputFilesSnapshotIds.entrySet()) {
-                            String propertyName = entry.getKey();
-                            builder.put(propertyName, snapshotRepository.get(entry.getValue()));
-                        }
-                        return builder.build();
-                    }
-                });
+                outputFilesSnapshot = new LazySnapshotMap("fetch output files", outputFilesSnapshotIds);
             }
             return outputFilesSnapshot;
         }
@@ -291,6 +301,83 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         public void setOutputFilesSnapshot(Map<String, FileCollectionSnapshot> outputFilesSnapshot) {
             this.outputFilesSnapshot = outputFilesSnapshot;
             outputFilesSnapshotIds = null;
+            outputFilesSnapshotHashes = null;
+        }
+
+        @Override
+        public Map<String, HashCode> getOutputFilesHashes() {
+            if (outputFilesSnapshotHashes == null && outputFilesSnapshotIds == null && outputFilesSnapshot != null) {
+                return hashes(outputFilesSnapshot);
+            }
+            return outputFilesSnapshotHashes;
+        }
+
+        /**
+         * The snapshots of the file properties of an earlier execution. Each snapshot is loaded from the repository when it is first used, so that
+         * the snapshots of the properties that are not compared, or that are found to be unchanged by comparing their hashes, are never loaded.
+         */
+        private class LazySnapshotMap extends AbstractMap<String, FileCollectionSnapshot> {
+            private final String operationDisplayName;
+            private final Map<String, Long> ids;
+            private final Map<String, FileCollectionSnapshot> loaded = new HashMap<String, FileCollectionSnapshot>();
+
+            LazySnapshotMap(String operationDisplayName, Map<String, Long> ids) {
+                this.operationDisplayName = operationDisplayName;
+                this.ids = ids;
+            }
+
+            @Override
+            public FileCollectionSnapshot get(Object propertyName) {
+                FileCollectionSnapshot snapshot = loaded.get(propertyName);
+                if (snapshot == null) {
+                    final Long id = ids.get(propertyName);
+                    if (id == null) {
+                        return null;
+                    }
+                    snapshot = cacheAccess.readCache(operationDisplayName, new Factory<FileCollectionSnapshot>() {
+                        public FileCollectionSnapshot create() {
+                            return snapshotRepository.get(id);
+                        }
+                    });
+                    loaded.put((String) propertyName, snapshot);
+                }
+                return snapshot;
+            }
+
+            @Override
+            public boolean containsKey(Object propertyName) {
+                return ids.containsKey(propertyName);
+            }
+
+            @Override
+            public Set<String> keySet() {
+                return ids.keySet();
+            }
+
+            @Override
+            public int size() {
+                return ids.size();
+            }
+
+            @Override
+            public Set<Entry<String, FileCollectionSnapshot>> entrySet() {
+                return new AbstractSet<Entry<String, FileCollectionSnapshot>>() {
+                    @Override
+                    public Iterator<Entry<String, FileCollectionSnapshot>> iterator() {
+                        return Iterators.transform(ids.keySet().iterator(), new Function<String, Entry<String, FileCollectionSnapshot>>() {
+                            @Override
+                            public Entry<String, FileCollectionSnapshot> apply(String propertyName) {
+                                return Maps.immutableEntry(propertyName, get(propertyName));
+                            }
+                        });
+                    }
+
+                    @Override
+                    public int size() {
+                        return ids.size();
+                    }
+                };
+            }
         }
 
         static class TaskHistorySerializer implements Serializer<LazyTaskExecution> {
@@ -305,7 +392,9 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             public LazyTaskExecution read(Decoder decoder) throws Exception {
                 LazyTaskExecution execution = new LazyTaskExecution();
                 execution.inputFilesSnapshotIds = readSnapshotIds(decoder);
+                execution.inputFilesSnapshotHashes = readSnapshotHashes(decoder);
                 execution.outputFilesSnapshotIds = readSnapshotIds(decoder);
+                execution.outputFilesSnapshotHashes = readSnapshotHashes(decoder);
                 execution.discoveredFilesSnapshotId = decoder.readLong();
                 execution.setTaskClass(decoder.readString());
                 if (decoder.readBoolean()) {
@@ -333,7 +422,9 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
 
             public void write(Encoder encoder, LazyTaskExecution execution) throws Exception {
                 writeSnapshotIds(encoder, execution.inputFilesSnapshotIds);
+                writeSnapshotHashes(encoder, execution.inputFilesSnapshotHashes);
                 writeSnapshotIds(encoder, execution.outputFilesSnapshotIds);
+                writeSnapshotHashes(encoder, execution.outputFilesSnapshotHashes);
                 encoder.writeLong(execution.discoveredFilesSnapshotId);
                 encoder.writeString(execution.getTaskClass());
                 HashCode classLoaderHash = execution.getTaskClassLoaderHash();
@@ -380,6 +471,25 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                     encoder.writeLong(entry.getValue());
                 }
             }
+
+            private static Map<String, HashCode> readSnapshotHashes(Decoder decoder) throws IOException {
+                int count = decoder.readInt();
+                ImmutableSortedMap.Builder<String, HashCode> builder = ImmutableSortedMap.naturalOrder();
+                for (int snapshotIdx = 0; snapshotIdx < count; snapshotIdx++) {
+                    String property = decoder.readString();
+                    HashCode hash = HashCode.fromBytes(decoder.readBinary());
+                    builder.put(property, hash);
+                }
+                return builder.build();
+            }
+
+            private static void writeSnapshotHashes(Encoder encoder, Map<String, HashCode> hashes) throws IOException {
+                encoder.writeInt(hashes.size());
+                for (Map.Entry<String, HashCode> entry : hashes.entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    encoder.writeBinary(entry.getValue().asBytes());
+                }
+            }
         }
     }
 }
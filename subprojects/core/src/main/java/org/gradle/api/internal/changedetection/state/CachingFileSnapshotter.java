@@ -17,13 +17,17 @@ package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.base.Charsets;
 import com.google.common.hash.HashCode;
-import com.google.common.hash.Hashing;
-import net.jcip.annotations.NotThreadSafe;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.hash.HashingStrategy;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentStore;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.resource.TextResource;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -31,17 +35,44 @@ import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.File;
-
-@NotThreadSafe
-public class CachingFileSnapshotter implements FileSnapshotter {
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Snapshots files using a cache of file hashes, keyed by absolute path and validated using the length and timestamp of the file.
+ *
+ * <p>The cache is only ever accessed from the calling thread, so callers are responsible for holding whatever lock the cache requires. When a hashing executor is provided,
+ * the files of a batch that need to be hashed are split up between the threads of the executor.</p>
+ */
+@ThreadSafe
+public class CachingFileSnapshotter implements FileSnapshotter, Stoppable {
     private final PersistentIndexedCache<String, FileInfo> cache;
     private final Hasher hasher;
+    private final HashingStrategy hashingStrategy;
     private final StringInterner stringInterner;
+    private final StoppableExecutor hashingExecutor;
+    private final int hashingParallelism;
 
     public CachingFileSnapshotter(Hasher hasher, PersistentStore store, StringInterner stringInterner) {
+        this(hasher, HashingStrategy.current(), store, stringInterner, null, 1);
+    }
+
+    /**
+     * @param hashingStrategy The strategy used by the given hasher. Cached hashes that were created using a different strategy are ignored.
+     * @param hashingExecutor The executor to hash batches of files with, or null to hash all files on the calling thread. It is stopped when this snapshotter is stopped.
+     * @param hashingParallelism The maximum number of files to hash concurrently.
+     */
+    public CachingFileSnapshotter(Hasher hasher, HashingStrategy hashingStrategy, PersistentStore store, StringInterner stringInterner, @Nullable StoppableExecutor hashingExecutor, int hashingParallelism) {
         this.hasher = hasher;
-        this.cache = store.createCache("fileHashes", String.class, new FileInfoSerializer());
+        this.hashingStrategy = hashingStrategy;
+        this.cache = store.createCache("fileHashes", String.class, new FileInfoSerializer(hashingStrategy));
         this.stringInterner = stringInterner;
+        this.hashingExecutor = hashingExecutor;
+        this.hashingParallelism = hashingParallelism;
     }
 
     @Override
@@ -50,11 +81,11 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         if (file != null) {
             return snapshot(file);
         }
-        final HashCode md5 = Hashing.md5().hashString(resource.getText(), Charsets.UTF_8);
+        final HashCode hash = hashingStrategy.getFunction().hashString(resource.getText(), Charsets.UTF_8);
         return new FileSnapshot() {
             @Override
             public HashCode getHash() {
-                return md5;
+                return hash;
             }
         };
     }
@@ -72,6 +103,42 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         return snapshot(file.getFile(), file.getSize(), file.getLastModified());
     }
 
+    @Override
+    public List<FileSnapshot> snapshotAll(List<? extends FileTreeElement> fileDetails) {
+        FileSnapshot[] snapshots = new FileSnapshot[fileDetails.size()];
+        List<Integer> changed = new ArrayList<Integer>();
+        for (int i = 0; i < snapshots.length; i++) {
+            FileTreeElement details = fileDetails.get(i);
+            FileInfo info = cache.get(details.getFile().getAbsolutePath());
+            if (info != null && details.getSize() == info.length && details.getLastModified() == info.timestamp) {
+                snapshots[i] = info;
+            } else {
+                changed.add(i);
+            }
+        }
+
+        List<File> filesToHash = new ArrayList<File>(changed.size());
+        for (Integer index : changed) {
+            filesToHash.add(fileDetails.get(index).getFile());
+        }
+        HashCode[] hashes = hash(filesToHash);
+
+        for (int i = 0; i < hashes.length; i++) {
+            FileTreeElement details = fileDetails.get(changed.get(i));
+            FileInfo info = new FileInfo(hashes[i], details.getSize(), details.getLastModified());
+            cache.put(stringInterner.intern(details.getFile().getAbsolutePath()), info);
+            snapshots[changed.get(i)] = info;
+        }
+        return Arrays.asList(snapshots);
+    }
+
+    @Override
+    public void stop() {
+        if (hashingExecutor != null) {
+            hashingExecutor.stop();
+        }
+    }
+
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
         FileInfo info = cache.get(absolutePath);
@@ -86,6 +153,60 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         return info;
     }
 
+    private HashCode[] hash(final List<File> files) {
+        final HashCode[] hashes = new HashCode[files.size()];
+        int batchCount = hashingExecutor == null ? 1 : Math.min(hashingParallelism, files.size());
+        if (batchCount <= 1) {
+            hashRange(files, hashes, 0, files.size());
+            return hashes;
+        }
+
+        // Each batch hashes a contiguous range of the files, the calling thread takes the first one
+        int batchSize = (files.size() + batchCount - 1) / batchCount;
+        List<Future<?>> futures = new ArrayList<Future<?>>(batchCount - 1);
+        for (int start = batchSize; start < files.size(); start += batchSize) {
+            final int from = start;
+            final int to = Math.min(start + batchSize, files.size());
+            futures.add(hashingExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    hashRange(files, hashes, from, to);
+                    return null;
+                }
+            }));
+        }
+        try {
+            hashRange(files, hashes, 0, batchSize);
+        } finally {
+            waitFor(futures);
+        }
+        return hashes;
+    }
+
+    private void hashRange(List<File> files, HashCode[] hashes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            hashes[i] = hasher.hash(files.get(i));
+        }
+    }
+
+    private static void waitFor(List<Future<?>> futures) {
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+    }
+
     public static class FileInfo implements FileSnapshot {
         private final HashCode hash;
         private final long timestamp;
@@ -102,17 +223,30 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         }
     }
 
-    private static class FileInfoSerializer implements Serializer<FileInfo> {
+    /**
+     * Tags each entry with the hashing strategy that created it. Entries created with a different strategy are read as missing, so they are replaced with a fresh hash on next use.
+     */
+    static class FileInfoSerializer implements Serializer<FileInfo> {
         private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+        private final HashingStrategy hashingStrategy;
+
+        FileInfoSerializer(HashingStrategy hashingStrategy) {
+            this.hashingStrategy = hashingStrategy;
+        }
 
         public FileInfo read(Decoder decoder) throws Exception {
+            byte strategy = decoder.readByte();
             HashCode hash = hashCodeSerializer.read(decoder);
             long timestamp = decoder.readLong();
             long length = decoder.readLong();
+            if (strategy != hashingStrategy.getId()) {
+                return null;
+            }
             return new FileInfo(hash, length, timestamp);
         }
 
         public void write(Encoder encoder, FileInfo value) throws Exception {
+            encoder.writeByte(hashingStrategy.getId());
             hashCodeSerializer.write(encoder, value.hash);
             encoder.writeLong(value.timestamp);
             encoder.writeLong(value.length);
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
@@ -37,6 +38,7 @@ class DefaultFileSnapshotterSerializer implements Serializer<FileCollectionSnaps
 
     public FileCollectionSnapshotImpl read(Decoder decoder) throws Exception {
         TaskFilePropertyCompareType compareType = TaskFilePropertyCompareType.values()[decoder.readSmallInt()];
+        HashCode hash = HashCode.fromBytes(decoder.readBinary());
         List<TreeSnapshot> treeSnapshots = new ArrayList<TreeSnapshot>();
         int sharedTreeCount = decoder.readSmallInt();
         for (int i = 0; i < sharedTreeCount; i++) {
@@ -47,11 +49,12 @@ class DefaultFileSnapshotterSerializer implements Serializer<FileCollectionSnaps
         if (!nonShared.getFileSnapshots().isEmpty()) {
             treeSnapshots.add(nonShared);
         }
-        return new FileCollectionSnapshotImpl(treeSnapshots, compareType);
+        return new FileCollectionSnapshotImpl(treeSnapshots, compareType, hash);
     }
 
     public void write(Encoder encoder, FileCollectionSnapshotImpl value) throws Exception {
         encoder.writeSmallInt(value.compareType.ordinal());
+        encoder.writeBinary(value.getHash().asBytes());
         final List<TreeSnapshot> treeSnapshots = value.treeSnapshots;
         if (treeSnapshots != null) {
             TreeSnapshot nonShared = null;
@@ -76,8 +79,9 @@ class DefaultFileSnapshotterSerializer implements Serializer<FileCollectionSnaps
             }
         } else {
             encoder.writeSmallInt(0);
-            encoder.writeSmallInt(value.snapshots.size());
-            for (Map.Entry<String, IncrementalFileSnapshot> entry : value.snapshots.entrySet()) {
+            Map<String, IncrementalFileSnapshot> snapshots = value.getSnapshots();
+            encoder.writeSmallInt(snapshots.size());
+            for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
                 encoder.writeString(entry.getKey());
                 incrementalFileSnapshotSerializer.write(encoder, entry.getValue());
             }
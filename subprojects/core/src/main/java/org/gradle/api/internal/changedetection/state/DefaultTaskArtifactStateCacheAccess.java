@@ -32,9 +32,18 @@ import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess, Closeable {
     private final CacheDecorator inMemoryDecorator;
     private final PersistentCache cache;
+    private final boolean logStructured;
 
     public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator) {
+        this(gradle, cacheRepository, decorator, false);
+    }
+
+    /**
+     * @param logStructured Whether to store the task history in log-structured files, instead of B-tree files.
+     */
+    public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator, boolean logStructured) {
         this.inMemoryDecorator = decorator;
+        this.logStructured = logStructured;
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
                 .withDisplayName("task history cache")
@@ -48,7 +57,8 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
 
     public <K, V> PersistentIndexedCache<K, V> createCache(final String cacheName, final Class<K> keyType, final Serializer<V> valueSerializer) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keyType, valueSerializer)
-                .cacheDecorator(inMemoryDecorator);
+                .cacheDecorator(inMemoryDecorator)
+                .logStructured(logStructured);
         return cache.createCache(parameters);
     }
 
@@ -60,6 +70,10 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
         cache.useCache(operationDisplayName, action);
     }
 
+    public <T> T readCache(String operationDisplayName, Factory<? extends T> action) {
+        return cache.readCache(operationDisplayName, action);
+    }
+
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
         return cache.longRunningOperation(operationDisplayName, action);
     }
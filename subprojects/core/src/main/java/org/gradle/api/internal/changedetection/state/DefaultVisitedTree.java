@@ -26,7 +26,9 @@ import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.util.CollectionUtils;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 class DefaultVisitedTree implements VisitedTree {
@@ -89,6 +91,14 @@ class DefaultVisitedTree implements VisitedTree {
 
 
     private TreeSnapshot createTreeSnapshot(final FileSnapshotter fileSnapshotter, final StringInterner stringInterner) {
+        // Snapshot all files in one batch, so that the snapshotter can hash them concurrently
+        List<FileTreeElement> files = new ArrayList<FileTreeElement>(entries.size());
+        for (FileTreeElement fileTreeElement : entries) {
+            if (!fileTreeElement.isDirectory()) {
+                files.add(fileTreeElement);
+            }
+        }
+        final Iterator<FileSnapshot> snapshots = fileSnapshotter.snapshotAll(files).iterator();
         final Collection<FileSnapshotWithKey> fileSnapshots = CollectionUtils.collect(getEntries(), new Transformer<FileSnapshotWithKey, FileTreeElement>() {
             @Override
             public FileSnapshotWithKey transform(FileTreeElement fileTreeElement) {
@@ -97,7 +107,7 @@ class DefaultVisitedTree implements VisitedTree {
                 if (fileTreeElement.isDirectory()) {
                     incrementalFileSnapshot = DirSnapshot.getInstance();
                 } else {
-                    incrementalFileSnapshot = new FileHashSnapshot(fileSnapshotter.snapshot(fileTreeElement).getHash(), fileTreeElement.getLastModified());
+                    incrementalFileSnapshot = new FileHashSnapshot(snapshots.next().getHash(), fileTreeElement.getLastModified());
                 }
                 return new FileSnapshotWithKey(absolutePath, incrementalFileSnapshot);
             }
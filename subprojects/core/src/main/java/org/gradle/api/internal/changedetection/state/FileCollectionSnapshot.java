@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 
@@ -39,6 +40,12 @@ public interface FileCollectionSnapshot {
 
     Map<String, IncrementalFileSnapshot> getSnapshots();
 
+    /**
+     * Returns a hash of the paths and contents of the files in this snapshot. The hash takes the order of the files into account when the order is significant.
+     * When a snapshot has the same hash as an older snapshot, there are no changes since the older snapshot.
+     */
+    HashCode getHash();
+
     Collection<Long> getTreeSnapshotIds();
 
     void appendToCacheKey(TaskCacheKeyBuilder builder);
@@ -16,9 +16,14 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 
@@ -28,41 +33,88 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * A snapshot of a file collection. When created from tree snapshots, the map of files by path is only built when the individual files need to be compared,
+ * and two snapshots with the same hash are considered to have no changes between them without looking at the individual files at all.
+ */
 class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
-    final Map<String, IncrementalFileSnapshot> snapshots;
+    private static final Function<Map.Entry<String, IncrementalFileSnapshot>, FileSnapshotWithKey> TO_FILE_SNAPSHOT_WITH_KEY = new Function<Map.Entry<String, IncrementalFileSnapshot>, FileSnapshotWithKey>() {
+        @Override
+        public FileSnapshotWithKey apply(Map.Entry<String, IncrementalFileSnapshot> entry) {
+            return new FileSnapshotWithKey(entry.getKey(), entry.getValue());
+        }
+    };
+
+    private volatile Map<String, IncrementalFileSnapshot> snapshots;
     final List<TreeSnapshot> treeSnapshots;
     final TaskFilePropertyCompareType compareType;
+    private volatile HashCode hash;
 
     public FileCollectionSnapshotImpl(List<TreeSnapshot> treeSnapshots, TaskFilePropertyCompareType compareType) {
-        this(convertTreeSnapshots(treeSnapshots), ImmutableList.copyOf(treeSnapshots), compareType);
+        this(treeSnapshots, compareType, null);
+    }
+
+    /**
+     * @param hash The hash of the files, when already known, or null to calculate it when first requested.
+     */
+    FileCollectionSnapshotImpl(List<TreeSnapshot> treeSnapshots, TaskFilePropertyCompareType compareType, HashCode hash) {
+        this(null, ImmutableList.copyOf(treeSnapshots), compareType, hash);
     }
 
     public FileCollectionSnapshotImpl(Map<String, IncrementalFileSnapshot> snapshots, TaskFilePropertyCompareType compareType) {
-        this(snapshots, null, compareType);
+        this(snapshots, null, compareType, null);
     }
 
-    private FileCollectionSnapshotImpl(Map<String, IncrementalFileSnapshot> snapshots, List<TreeSnapshot> treeSnapshots, TaskFilePropertyCompareType compareType) {
+    private FileCollectionSnapshotImpl(Map<String, IncrementalFileSnapshot> snapshots, List<TreeSnapshot> treeSnapshots, TaskFilePropertyCompareType compareType, HashCode hash) {
         this.snapshots = snapshots;
         this.treeSnapshots = treeSnapshots;
         this.compareType = compareType;
+        this.hash = hash;
     }
 
     private static Map<String, IncrementalFileSnapshot> convertTreeSnapshots(List<TreeSnapshot> treeSnapshots) {
         Map<String, IncrementalFileSnapshot> snapshots = Maps.newLinkedHashMap();
         for (TreeSnapshot treeSnapshot : treeSnapshots) {
-            for(FileSnapshotWithKey fileSnapshotWithKey : treeSnapshot.getFileSnapshots()) {
-                snapshots.put(fileSnapshotWithKey.getKey(), fileSnapshotWithKey.getIncrementalFileSnapshot());
+            for (FileSnapshotWithKey fileSnapshotWithKey : treeSnapshot.getFileSnapshots()) {
+                if (!snapshots.containsKey(fileSnapshotWithKey.getKey())) {
+                    snapshots.put(fileSnapshotWithKey.getKey(), fileSnapshotWithKey.getIncrementalFileSnapshot());
+                }
             }
         }
         return snapshots;
     }
 
+    /**
+     * Returns the files of this snapshot in order, without building the map of files by path. A file that appears in more than one tree is only returned the first time,
+     * as in {@link #getSnapshots()}.
+     */
+    private Iterable<FileSnapshotWithKey> getFileSnapshots() {
+        Map<String, IncrementalFileSnapshot> snapshots = this.snapshots;
+        if (snapshots != null) {
+            return Iterables.transform(snapshots.entrySet(), TO_FILE_SNAPSHOT_WITH_KEY);
+        }
+        if (treeSnapshots.size() == 1) {
+            return treeSnapshots.get(0).getFileSnapshots();
+        }
+        List<FileSnapshotWithKey> fileSnapshots = Lists.newArrayList();
+        Set<String> seenKeys = Sets.newHashSet();
+        for (TreeSnapshot treeSnapshot : treeSnapshots) {
+            for (FileSnapshotWithKey fileSnapshotWithKey : treeSnapshot.getFileSnapshots()) {
+                if (seenKeys.add(fileSnapshotWithKey.getKey())) {
+                    fileSnapshots.add(fileSnapshotWithKey);
+                }
+            }
+        }
+        return fileSnapshots;
+    }
+
     public List<File> getFiles() {
         List<File> files = Lists.newArrayList();
-        for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
-            if (!(entry.getValue() instanceof DirSnapshot)) {
-                files.add(new File(entry.getKey()));
+        for (FileSnapshotWithKey fileSnapshot : getFileSnapshots()) {
+            if (!(fileSnapshot.getIncrementalFileSnapshot() instanceof DirSnapshot)) {
+                files.add(new File(fileSnapshot.getKey()));
             }
         }
         return files;
@@ -70,9 +122,24 @@ class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
 
     @Override
     public Map<String, IncrementalFileSnapshot> getSnapshots() {
+        Map<String, IncrementalFileSnapshot> snapshots = this.snapshots;
+        if (snapshots == null) {
+            snapshots = convertTreeSnapshots(treeSnapshots);
+            this.snapshots = snapshots;
+        }
         return snapshots;
     }
 
+    @Override
+    public HashCode getHash() {
+        HashCode hash = this.hash;
+        if (hash == null) {
+            hash = compareType.hash(getFileSnapshots());
+            this.hash = hash;
+        }
+        return hash;
+    }
+
     @Override
     public Collection<Long> getTreeSnapshotIds() {
         List<Long> snapshotIds = new ArrayList<Long>();
@@ -88,16 +155,28 @@ class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
 
     @Override
     public boolean isEmpty() {
-        return snapshots.isEmpty();
+        Map<String, IncrementalFileSnapshot> snapshots = this.snapshots;
+        if (snapshots != null) {
+            return snapshots.isEmpty();
+        }
+        for (TreeSnapshot treeSnapshot : treeSnapshots) {
+            if (!treeSnapshot.getFileSnapshots().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public Iterator<TaskStateChange> iterateContentChangesSince(FileCollectionSnapshot oldSnapshot, String fileType) {
-        return compareType.iterateContentChangesSince(snapshots, oldSnapshot.getSnapshots(), fileType);
+        if (getHash().equals(oldSnapshot.getHash())) {
+            return Iterators.emptyIterator();
+        }
+        return compareType.iterateContentChangesSince(getSnapshots(), oldSnapshot.getSnapshots(), fileType);
     }
 
     @Override
     public void appendToCacheKey(TaskCacheKeyBuilder builder) {
-        compareType.appendToCacheKey(builder, snapshots);
+        compareType.appendToCacheKey(builder, getSnapshots());
     }
 }
@@ -16,8 +16,12 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import org.gradle.api.internal.changedetection.rules.ChangeType;
 import org.gradle.api.internal.changedetection.rules.FileChange;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
@@ -27,9 +31,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 class OrderInsensitiveTaskFilePropertyCompareStrategy implements TaskFilePropertyCompareStrategy {
+    private static final HashFunction HASH_FUNCTION = Hashing.md5();
+    private static final HashCode EMPTY_HASH = HASH_FUNCTION.newHasher().hash();
 
     private final boolean includeAdded;
 
@@ -74,14 +81,33 @@ class OrderInsensitiveTaskFilePropertyCompareStrategy implements TaskFilePropert
 
     @Override
     public void appendToCacheKey(TaskCacheKeyBuilder builder, Map<String, IncrementalFileSnapshot> snapshots) {
+        for (Entry entry : sortedEntries(snapshots)) {
+            entry.appendToCacheKey(builder);
+        }
+    }
+
+    /**
+     * Combines the hashes of the files without sorting them first, so that the hash can be calculated without building a map of the files.
+     */
+    @Override
+    public HashCode hash(Iterable<FileSnapshotWithKey> snapshots) {
+        List<HashCode> fileHashes = Lists.newArrayList();
+        for (FileSnapshotWithKey snapshot : snapshots) {
+            fileHashes.add(HASH_FUNCTION.newHasher()
+                .putString(snapshot.getKey(), Charsets.UTF_8)
+                .putBytes(snapshot.getIncrementalFileSnapshot().getHash().asBytes())
+                .hash());
+        }
+        return fileHashes.isEmpty() ? EMPTY_HASH : Hashing.combineUnordered(fileHashes);
+    }
+
+    private static List<Entry> sortedEntries(Map<String, IncrementalFileSnapshot> snapshots) {
         ArrayList<Entry> entries = Lists.newArrayListWithCapacity(snapshots.size());
         for (Map.Entry<String, IncrementalFileSnapshot> entry : snapshots.entrySet()) {
             entries.add(new Entry(entry.getKey(), entry.getValue().getHash().asBytes()));
         }
         Collections.sort(entries);
-        for (Entry entry : entries) {
-            entry.appendToCacheKey(builder);
-        }
+        return entries;
     }
 
     private static class Entry implements Comparable<Entry> {
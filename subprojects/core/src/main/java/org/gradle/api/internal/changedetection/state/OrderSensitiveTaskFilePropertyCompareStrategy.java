@@ -16,7 +16,11 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.gradle.api.internal.changedetection.rules.ChangeType;
 import org.gradle.api.internal.changedetection.rules.FileChange;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
@@ -70,4 +74,14 @@ class OrderSensitiveTaskFilePropertyCompareStrategy implements TaskFilePropertyC
             builder.putBytes(entry.getValue().getHash().asBytes());
         }
     }
+
+    @Override
+    public HashCode hash(Iterable<FileSnapshotWithKey> snapshots) {
+        Hasher hasher = Hashing.md5().newHasher();
+        for (FileSnapshotWithKey snapshot : snapshots) {
+            hasher.putString(snapshot.getKey(), Charsets.UTF_8);
+            hasher.putBytes(snapshot.getIncrementalFileSnapshot().getHash().asBytes());
+        }
+        return hasher.hash();
+    }
 }
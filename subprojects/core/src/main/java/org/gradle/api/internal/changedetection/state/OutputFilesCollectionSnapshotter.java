@@ -16,9 +16,13 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.rules.ChangeType;
@@ -36,6 +40,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Takes a snapshot of the output files of a task.
@@ -131,6 +136,17 @@ public class OutputFilesCollectionSnapshotter implements FileCollectionSnapshott
             return filesSnapshot.getTreeSnapshotIds();
         }
 
+        @Override
+        public HashCode getHash() {
+            Hasher hasher = Hashing.md5().newHasher();
+            for (Map.Entry<String, Boolean> root : new TreeMap<String, Boolean>(roots).entrySet()) {
+                hasher.putString(root.getKey(), Charsets.UTF_8);
+                hasher.putBoolean(root.getValue());
+            }
+            hasher.putBytes(filesSnapshot.getHash().asBytes());
+            return hasher.hash();
+        }
+
         @Override
         public boolean isEmpty() {
             return filesSnapshot.isEmpty();
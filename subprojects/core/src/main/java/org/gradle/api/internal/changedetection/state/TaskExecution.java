@@ -91,6 +91,20 @@ public abstract class TaskExecution {
 
     public abstract Map<String, FileCollectionSnapshot> getInputFilesSnapshot();
 
+    /**
+     * Returns the hash of the snapshot of each output file property, without loading the snapshots.
+     *
+     * @return May return null.
+     */
+    public abstract Map<String, HashCode> getOutputFilesHashes();
+
+    /**
+     * Returns the hash of the snapshot of each input file property, without loading the snapshots.
+     *
+     * @return May return null.
+     */
+    public abstract Map<String, HashCode> getInputFilesHashes();
+
     public abstract void setInputFilesSnapshot(Map<String, FileCollectionSnapshot> inputFilesSnapshot);
 
     public abstract FileCollectionSnapshot getDiscoveredInputFilesSnapshot();
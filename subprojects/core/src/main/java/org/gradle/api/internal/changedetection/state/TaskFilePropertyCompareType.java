@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 
@@ -40,4 +41,11 @@ public enum TaskFilePropertyCompareType implements TaskFilePropertyCompareStrate
     public void appendToCacheKey(TaskCacheKeyBuilder builder, Map<String, IncrementalFileSnapshot> snapshots) {
         strategy.appendToCacheKey(builder, snapshots);
     }
+
+    /**
+     * Calculates a hash of the paths and contents of the given files. When two collections of files have the same hash, there are no changes between them.
+     */
+    public HashCode hash(Iterable<FileSnapshotWithKey> snapshots) {
+        return strategy.hash(snapshots);
+    }
 }
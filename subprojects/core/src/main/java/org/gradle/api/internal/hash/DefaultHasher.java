@@ -16,26 +16,104 @@
 package org.gradle.api.internal.hash;
 
 import com.google.common.base.Charsets;
-import com.google.common.hash.Funnels;
 import com.google.common.hash.HashCode;
-import com.google.common.hash.Hashing;
-import com.google.common.io.Files;
+import net.jcip.annotations.ThreadSafe;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.os.OperatingSystem;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
+/**
+ * Hashes the content of files using the hash function of a {@link HashingStrategy}.
+ *
+ * <p>Each thread reuses its own read buffer, so that hashing many files does not allocate a buffer per file. Files larger than {@link #MAPPED_READ_THRESHOLD} are read through
+ * a memory mapping, which avoids copying their content through the read buffer twice. Memory mapping is not used on Windows, where a mapped file cannot be deleted or replaced until the
+ * mapping has been garbage collected.</p>
+ */
+@ThreadSafe
 public class DefaultHasher implements Hasher {
-    private static final byte[] SIGNATURE = Hashing.md5().hashString(DefaultHasher.class.getName(), Charsets.UTF_8).asBytes();
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final long MAPPED_READ_THRESHOLD = 1024 * 1024;
+    private static final long MAPPED_REGION_SIZE = 256 * 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    private final HashingStrategy hashingStrategy;
+    private final byte[] signature;
+    private final boolean useMappedReads;
+
+    public DefaultHasher() {
+        this(HashingStrategy.current());
+    }
+
+    public DefaultHasher(HashingStrategy hashingStrategy) {
+        this(hashingStrategy, !OperatingSystem.current().isWindows());
+    }
+
+    DefaultHasher(HashingStrategy hashingStrategy, boolean useMappedReads) {
+        this.hashingStrategy = hashingStrategy;
+        this.signature = hashingStrategy.getFunction().hashString(DefaultHasher.class.getName(), Charsets.UTF_8).asBytes();
+        this.useMappedReads = useMappedReads;
+    }
+
+    public HashingStrategy getHashingStrategy() {
+        return hashingStrategy;
+    }
 
     public HashCode hash(File file) {
         try {
-            com.google.common.hash.Hasher hasher = Hashing.md5().newHasher();
-            hasher.putBytes(SIGNATURE);
-            Files.copy(file, Funnels.asOutputStream(hasher));
+            com.google.common.hash.Hasher hasher = hashingStrategy.getFunction().newHasher();
+            hasher.putBytes(signature);
+            byte[] buffer = BUFFER.get();
+            if (useMappedReads && file.length() > MAPPED_READ_THRESHOLD) {
+                hashMapped(file, hasher, buffer);
+            } else {
+                hashStreamed(file, hasher, buffer);
+            }
             return hasher.hash();
         } catch (IOException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s'.", file), e);
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s'.", hashingStrategy.toString().toUpperCase(), file), e);
+        }
+    }
+
+    private static void hashStreamed(File file, com.google.common.hash.Hasher hasher, byte[] buffer) throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                hasher.putBytes(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static void hashMapped(File file, com.google.common.hash.Hasher hasher, byte[] buffer) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION_SIZE, size - position));
+                while (mapped.hasRemaining()) {
+                    int count = Math.min(buffer.length, mapped.remaining());
+                    mapped.get(buffer, 0, count);
+                    hasher.putBytes(buffer, 0, count);
+                }
+            }
+        } finally {
+            randomAccessFile.close();
         }
     }
 }
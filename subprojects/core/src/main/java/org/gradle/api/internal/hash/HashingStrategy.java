@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * The hash function used to hash file content for up-to-date checks and task cache keys.
+ *
+ * <p>The strategy can be selected using the {@value #SYSTEM_PROPERTY} system property. By default, the non-cryptographic 128-bit Murmur3 hash is used, which is considerably faster
+ * than MD5 on large files while producing hashes of the same length.</p>
+ */
+public enum HashingStrategy {
+    MD5("md5", 1, Hashing.md5()),
+    MURMUR3_128("murmur3-128", 2, Hashing.murmur3_128());
+
+    public static final String SYSTEM_PROPERTY = "org.gradle.internal.hashing";
+
+    private final String displayName;
+    private final byte id;
+    private final HashFunction function;
+
+    HashingStrategy(String displayName, int id, HashFunction function) {
+        this.displayName = displayName;
+        this.id = (byte) id;
+        this.function = function;
+    }
+
+    public HashFunction getFunction() {
+        return function;
+    }
+
+    /**
+     * A stable identifier for this strategy, which can be persisted alongside hashes to detect hashes created using a different strategy.
+     */
+    public byte getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    /**
+     * Returns the strategy selected using the {@value #SYSTEM_PROPERTY} system property, or the default strategy when none is selected.
+     */
+    public static HashingStrategy current() {
+        String value = System.getProperty(SYSTEM_PROPERTY);
+        if (value == null) {
+            return MURMUR3_128;
+        }
+        for (HashingStrategy strategy : values()) {
+            if (strategy.displayName.equalsIgnoreCase(value.trim())) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown hashing strategy '%s' specified by system property '%s'.", value, SYSTEM_PROPERTY));
+    }
+}
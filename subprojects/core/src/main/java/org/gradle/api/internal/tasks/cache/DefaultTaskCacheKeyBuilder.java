@@ -19,13 +19,21 @@ package org.gradle.api.internal.tasks.cache;
 import com.google.common.base.Charsets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
+import org.gradle.api.internal.hash.HashingStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DefaultTaskCacheKeyBuilder implements TaskCacheKeyBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultTaskCacheKeyBuilder.class);
-    private final Hasher hasher = Hashing.md5().newHasher();
+    private final Hasher hasher;
+
+    public DefaultTaskCacheKeyBuilder() {
+        this(HashingStrategy.current());
+    }
+
+    public DefaultTaskCacheKeyBuilder(HashingStrategy hashingStrategy) {
+        this.hasher = hashingStrategy.getFunction().newHasher();
+    }
 
     @Override
     public TaskCacheKeyBuilder putByte(byte b) {
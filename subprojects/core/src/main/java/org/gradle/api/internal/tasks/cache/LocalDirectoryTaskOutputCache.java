@@ -16,19 +16,62 @@
 
 package org.gradle.api.internal.tasks.cache;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.internal.FileLock;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.cache.internal.LockTimeoutException;
+import org.gradle.internal.concurrent.ThreadFactoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * A task output cache that stores each entry as a file in a directory, which may be shared by several processes.
+ *
+ * <p>Entries are written to a temporary file which is then renamed, so that readers never see a partially written entry. The last modified time of an entry is updated whenever
+ * the entry is read, and is used to evict the least recently used entries once the total size of the cache exceeds the maximum size. Eviction runs on a background thread while
+ * holding an exclusive lock on the cache directory, so that only one process cleans up the cache at a time.</p>
+ */
 public class LocalDirectoryTaskOutputCache implements TaskOutputCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalDirectoryTaskOutputCache.class);
+    private static final String TEMP_FILE_SUFFIX = ".part";
+    // Temporary files older than this are left over from a process that died while writing an entry
+    private static final long STALE_TEMP_FILE_AGE = TimeUnit.HOURS.toMillis(1);
+    // Fraction of the maximum size to shrink the cache to, so that cleanup does not run again after the next few entries are stored
+    private static final double CLEANUP_TARGET_RATIO = 0.8;
+
     private final File directory;
+    private final long maxSizeInBytes;
+    private final FileLockManager fileLockManager;
+    private final Executor cleanupExecutor;
+    private final AtomicBoolean cleanupPending = new AtomicBoolean();
+    private final AtomicLong bytesWrittenSinceCleanup = new AtomicLong();
+    private volatile boolean cleanedUp;
+
+    public LocalDirectoryTaskOutputCache(File directory, long maxSizeInBytes, FileLockManager fileLockManager) {
+        this(directory, maxSizeInBytes, fileLockManager, createCleanupExecutor());
+    }
 
-    public LocalDirectoryTaskOutputCache(File directory) {
+    @VisibleForTesting
+    LocalDirectoryTaskOutputCache(File directory, long maxSizeInBytes, FileLockManager fileLockManager, Executor cleanupExecutor) {
         if (directory.exists()) {
             if (!directory.isDirectory()) {
                 throw new IllegalArgumentException(String.format("Cache directory %s must be a directory", directory));
@@ -45,12 +88,26 @@ public class LocalDirectoryTaskOutputCache implements TaskOutputCache {
             }
         }
         this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.fileLockManager = fileLockManager;
+        this.cleanupExecutor = cleanupExecutor;
+    }
+
+    /**
+     * The cleanup thread goes away when idle, as nothing stops the cache explicitly.
+     */
+    private static Executor createCleanupExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactoryImpl("Task output cache cleanup"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
     public TaskOutputReader get(TaskCacheKey key) throws IOException {
         final File file = getFile(key.getHashCode());
         if (file.isFile()) {
+            // Mark the entry as recently used
+            file.setLastModified(System.currentTimeMillis());
             return new TaskOutputReader() {
                 @Override
                 public InputStream read() throws IOException {
@@ -64,11 +121,26 @@ public class LocalDirectoryTaskOutputCache implements TaskOutputCache {
     @Override
     public void put(TaskCacheKey key, TaskOutputWriter result) throws IOException {
         File file = getFile(key.getHashCode());
-        OutputStream output = new FileOutputStream(file);
+        File tempFile = File.createTempFile(key.getHashCode() + "-", TEMP_FILE_SUFFIX, directory);
         try {
-            result.writeTo(output);
+            OutputStream output = new FileOutputStream(tempFile);
+            try {
+                result.writeTo(output);
+            } finally {
+                output.close();
+            }
+            long length = tempFile.length();
+            if (!tempFile.renameTo(file)) {
+                // Some platforms do not replace an existing file, in which case another process has already stored the same entry
+                if (!file.isFile()) {
+                    throw new IOException(String.format("Could not move temporary file %s to %s", tempFile, file));
+                }
+            }
+            maybeScheduleCleanup(length);
         } finally {
-            output.close();
+            if (tempFile.exists() && !tempFile.delete()) {
+                LOGGER.debug("Could not delete temporary file {}", tempFile);
+            }
         }
     }
 
@@ -76,6 +148,105 @@ public class LocalDirectoryTaskOutputCache implements TaskOutputCache {
         return new File(directory, key);
     }
 
+    /**
+     * The first store of a build cleans up the cache, as do later stores once enough has been written to the cache since the previous cleanup.
+     */
+    private void maybeScheduleCleanup(long bytesWritten) {
+        long written = bytesWrittenSinceCleanup.addAndGet(bytesWritten);
+        if (cleanedUp && written < maxSizeInBytes * (1 - CLEANUP_TARGET_RATIO)) {
+            return;
+        }
+        if (cleanupPending.compareAndSet(false, true)) {
+            cleanupExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        bytesWrittenSinceCleanup.set(0);
+                        cleanup();
+                        cleanedUp = true;
+                    } catch (Exception e) {
+                        LOGGER.warn("Could not clean up {}", getDescription(), e);
+                    } finally {
+                        cleanupPending.set(false);
+                    }
+                }
+            });
+        }
+    }
+
+    @VisibleForTesting
+    void cleanup() {
+        FileLock lock;
+        try {
+            lock = fileLockManager.lock(directory, mode(FileLockManager.LockMode.Exclusive).useCrossVersionImplementation(), getDescription(), "Clean up");
+        } catch (LockTimeoutException e) {
+            LOGGER.info("Skipping cleanup of {} as it is locked by another process", getDescription());
+            return;
+        }
+        try {
+            removeLeastRecentlyUsedEntries(lock);
+        } finally {
+            lock.close();
+        }
+    }
+
+    private void removeLeastRecentlyUsedEntries(final FileLock lock) {
+        final long now = System.currentTimeMillis();
+        File[] entries = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                if (!file.isFile() || lock.isLockFile(file)) {
+                    return false;
+                }
+                if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                    if (now - file.lastModified() > STALE_TEMP_FILE_AGE) {
+                        file.delete();
+                    }
+                    return false;
+                }
+                return true;
+            }
+        });
+        if (entries == null) {
+            return;
+        }
+
+        final long[] lastModified = new long[entries.length];
+        long totalSize = 0;
+        for (int i = 0; i < entries.length; i++) {
+            totalSize += entries[i].length();
+        }
+        if (totalSize <= maxSizeInBytes) {
+            return;
+        }
+
+        // Sort on a snapshot of the timestamps, as they may change while sorting
+        Integer[] order = new Integer[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            lastModified[i] = entries[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                long diff = lastModified[o1] - lastModified[o2];
+                return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+            }
+        });
+
+        long targetSize = (long) (maxSizeInBytes * CLEANUP_TARGET_RATIO);
+        int removed = 0;
+        for (int i = 0; i < order.length && totalSize > targetSize; i++) {
+            File entry = entries[order[i]];
+            long length = entry.length();
+            if (entry.delete()) {
+                totalSize -= length;
+                removed++;
+            }
+        }
+        LOGGER.info("Removed {} entries from {}", removed, getDescription());
+    }
+
     @Override
     public String getDescription() {
         return "local directory cache in " + directory;
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closer;
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.tasks.TaskFilePropertySpec;
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec;
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec.OutputType;
+import org.gradle.internal.nativeplatform.filesystem.FileSystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Packs task outputs into a tar-like stream of entries. Each entry has a header with the output property name, the path relative to the output property and the Unix file mode,
+ * which is restored when unpacking. Files are followed by their content.
+ *
+ * <p>File content is written in chunks. When compression is enabled, chunks are deflated using the fastest compression level. As soon as a chunk of a file does not shrink enough,
+ * that chunk and the remaining chunks of the file are stored as they are, without deflating them. This way already compressed outputs, such as jars and images, cost at most
+ * one deflated chunk each.</p>
+ */
+public class StreamTaskOutputPacker implements TaskOutputPacker {
+    private static final int MAGIC = 0x67746f70;
+    private static final byte VERSION = 1;
+
+    private static final byte END_ENTRY = 0;
+    private static final byte DIRECTORY_ENTRY = 1;
+    private static final byte FILE_ENTRY = 2;
+
+    private static final byte STORED_CHUNK = 0;
+    private static final byte DEFLATED_CHUNK = 1;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // A deflated chunk must be no larger than this fraction of the original chunk to be worth inflating when unpacking
+    private static final double MAX_DEFLATED_CHUNK_RATIO = 0.9;
+
+    private static final int DEFAULT_DIRECTORY_MODE = 0755;
+
+    private final FileSystem fileSystem;
+    private final boolean compress;
+
+    public StreamTaskOutputPacker(FileSystem fileSystem, boolean compress) {
+        this.fileSystem = fileSystem;
+        this.compress = compress;
+    }
+
+    @VisibleForTesting
+    protected Deflater createDeflater() {
+        return new Deflater(Deflater.BEST_SPEED);
+    }
+
+    @Override
+    public String getFormat() {
+        // Compressed and stored chunks can both be read by any stream packer
+        return "stream-" + VERSION;
+    }
+
+    @Override
+    public TaskOutputWriter createWriter(final TaskOutputsInternal taskOutputs) throws IOException {
+        return new TaskOutputWriter() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream, CHUNK_SIZE));
+                final ChunkWriter chunkWriter = new ChunkWriter(output);
+                try {
+                    output.writeInt(MAGIC);
+                    output.writeByte(VERSION);
+                    for (TaskOutputFilePropertySpec propertySpec : taskOutputs.getFileProperties()) {
+                        final String propertyName = propertySpec.getPropertyName();
+                        File outputFile = propertySpec.getOutputFile();
+                        switch (propertySpec.getOutputType()) {
+                            case DIRECTORY:
+                                int rootMode = outputFile.isDirectory() ? fileSystem.getUnixMode(outputFile) : DEFAULT_DIRECTORY_MODE;
+                                writeEntryHeader(output, DIRECTORY_ENTRY, propertyName, "", rootMode);
+                                new DirectoryFileTree(outputFile).visit(new FileVisitor() {
+                                    @Override
+                                    public void visitDir(FileVisitDetails dirDetails) {
+                                        try {
+                                            writeEntryHeader(output, DIRECTORY_ENTRY, propertyName, dirDetails.getRelativePath().getPathString(), dirDetails.getMode());
+                                        } catch (IOException e) {
+                                            throw Throwables.propagate(e);
+                                        }
+                                    }
+
+                                    @Override
+                                    public void visitFile(FileVisitDetails fileDetails) {
+                                        try {
+                                            writeEntryHeader(output, FILE_ENTRY, propertyName, fileDetails.getRelativePath().getPathString(), fileDetails.getMode());
+                                            InputStream input = fileDetails.open();
+                                            try {
+                                                chunkWriter.write(input);
+                                            } finally {
+                                                input.close();
+                                            }
+                                        } catch (IOException e) {
+                                            throw Throwables.propagate(e);
+                                        }
+                                    }
+                                });
+                                break;
+                            case FILE:
+                                InputStream input = new FileInputStream(outputFile);
+                                try {
+                                    writeEntryHeader(output, FILE_ENTRY, propertyName, "", fileSystem.getUnixMode(outputFile));
+                                    chunkWriter.write(input);
+                                } finally {
+                                    input.close();
+                                }
+                                break;
+                            default:
+                                throw new AssertionError();
+                        }
+                    }
+                    output.writeByte(END_ENTRY);
+                    output.flush();
+                } finally {
+                    chunkWriter.close();
+                }
+            }
+        };
+    }
+
+    private static void writeEntryHeader(DataOutputStream output, byte type, String propertyName, String path, int mode) throws IOException {
+        output.writeByte(type);
+        output.writeUTF(propertyName);
+        output.writeUTF(path);
+        output.writeInt(mode);
+    }
+
+    @Override
+    public void unpack(TaskOutputsInternal taskOutputs, TaskOutputReader result) throws IOException {
+        Closer closer = Closer.create();
+        InputStream input = closer.register(result.read());
+        Map<String, TaskOutputFilePropertySpec> propertySpecs = Maps.uniqueIndex(taskOutputs.getFileProperties(), new Function<TaskFilePropertySpec, String>() {
+            @Override
+            public String apply(TaskFilePropertySpec propertySpec) {
+                return propertySpec.getPropertyName();
+            }
+        });
+        ChunkReader chunkReader = closer.register(new ChunkReader());
+        try {
+            DataInputStream dataInput = new DataInputStream(new BufferedInputStream(input, CHUNK_SIZE));
+            if (dataInput.readInt() != MAGIC || dataInput.readByte() != VERSION) {
+                throw new IllegalStateException("Cached task output is not in the expected format");
+            }
+            // Directory modes are restored last, so that read-only directories can still be populated
+            List<DirectoryMode> directoryModes = Lists.newArrayList();
+            byte type;
+            while ((type = dataInput.readByte()) != END_ENTRY) {
+                String propertyName = dataInput.readUTF();
+                String path = dataInput.readUTF();
+                int mode = dataInput.readInt();
+                TaskOutputFilePropertySpec propertySpec = propertySpecs.get(propertyName);
+                if (propertySpec == null) {
+                    throw new IllegalStateException(String.format("No output property '%s' registered", propertyName));
+                }
+
+                File outputFile = path.isEmpty() ? propertySpec.getOutputFile() : new File(propertySpec.getOutputFile(), path);
+                if (type == DIRECTORY_ENTRY) {
+                    if (propertySpec.getOutputType() != OutputType.DIRECTORY) {
+                        throw new IllegalStateException("Property should be an output directory property: " + propertyName);
+                    }
+                    FileUtils.forceMkdir(outputFile);
+                    directoryModes.add(new DirectoryMode(outputFile, mode));
+                } else if (type == FILE_ENTRY) {
+                    Files.createParentDirs(outputFile);
+                    OutputStream output = new FileOutputStream(outputFile);
+                    try {
+                        chunkReader.read(dataInput, output);
+                    } finally {
+                        output.close();
+                    }
+                    fileSystem.chmod(outputFile, mode);
+                } else {
+                    throw new IllegalStateException(String.format("Unknown entry type %d in cached task output", type));
+                }
+            }
+            for (int i = directoryModes.size() - 1; i >= 0; i--) {
+                DirectoryMode directoryMode = directoryModes.get(i);
+                fileSystem.chmod(directoryMode.directory, directoryMode.mode);
+            }
+        } catch (Exception e) {
+            throw closer.rethrow(e);
+        } finally {
+            //noinspection ThrowFromFinallyBlock
+            closer.close();
+        }
+    }
+
+    private static class DirectoryMode {
+        private final File directory;
+        private final int mode;
+
+        private DirectoryMode(File directory, int mode) {
+            this.directory = directory;
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * Writes content as a sequence of chunks, each prefixed by its original length, its storage method and for deflated chunks the deflated length. A chunk of length 0 ends the content.
+     */
+    private class ChunkWriter {
+        private final DataOutputStream output;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private final byte[] deflated = new byte[(int) (CHUNK_SIZE * MAX_DEFLATED_CHUNK_RATIO)];
+        private final Deflater deflater = compress ? createDeflater() : null;
+
+        ChunkWriter(DataOutputStream output) {
+            this.output = output;
+        }
+
+        void write(InputStream input) throws IOException {
+            boolean compressEntry = deflater != null;
+            int length;
+            while ((length = readChunk(input)) > 0) {
+                output.writeInt(length);
+                int deflatedLength = compressEntry ? deflate(length) : -1;
+                if (deflatedLength >= 0) {
+                    output.writeByte(DEFLATED_CHUNK);
+                    output.writeInt(deflatedLength);
+                    output.write(deflated, 0, deflatedLength);
+                } else {
+                    // Content that does not compress is most likely compressed already, so don't bother deflating the rest of it
+                    compressEntry = false;
+                    output.writeByte(STORED_CHUNK);
+                    output.write(buffer, 0, length);
+                }
+            }
+            output.writeInt(0);
+        }
+
+        private int readChunk(InputStream input) throws IOException {
+            int length = 0;
+            int read;
+            while (length < buffer.length && (read = input.read(buffer, length, buffer.length - length)) >= 0) {
+                length += read;
+            }
+            return length;
+        }
+
+        /**
+         * Returns the deflated length, or -1 when the chunk does not compress well enough.
+         */
+        private int deflate(int length) {
+            deflater.reset();
+            deflater.setInput(buffer, 0, length);
+            deflater.finish();
+            int deflatedLength = 0;
+            while (!deflater.finished()) {
+                if (deflatedLength == deflated.length) {
+                    return -1;
+                }
+                deflatedLength += deflater.deflate(deflated, deflatedLength, deflated.length - deflatedLength);
+            }
+            return deflatedLength;
+        }
+
+        void close() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    private static class ChunkReader implements Closeable {
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private final byte[] deflated = new byte[CHUNK_SIZE];
+        private final Inflater inflater = new Inflater();
+
+        void read(DataInputStream input, OutputStream output) throws IOException, DataFormatException {
+            int length;
+            while ((length = input.readInt()) > 0) {
+                byte method = input.readByte();
+                if (method == STORED_CHUNK) {
+                    input.readFully(buffer, 0, length);
+                } else if (method == DEFLATED_CHUNK) {
+                    int deflatedLength = input.readInt();
+                    input.readFully(deflated, 0, deflatedLength);
+                    inflate(deflatedLength, length);
+                } else {
+                    throw new IllegalStateException(String.format("Unknown chunk storage method %d in cached task output", method));
+                }
+                output.write(buffer, 0, length);
+            }
+        }
+
+        private void inflate(int deflatedLength, int length) throws DataFormatException {
+            inflater.reset();
+            inflater.setInput(deflated, 0, deflatedLength);
+            int inflatedLength = 0;
+            while (inflatedLength < length) {
+                int inflated = inflater.inflate(buffer, inflatedLength, length - inflatedLength);
+                if (inflated == 0 && (inflater.needsInput() || inflater.finished())) {
+                    throw new IllegalStateException("Cached task output contains a truncated chunk");
+                }
+                inflatedLength += inflated;
+            }
+        }
+
+        @Override
+        public void close() {
+            inflater.end();
+        }
+    }
+}
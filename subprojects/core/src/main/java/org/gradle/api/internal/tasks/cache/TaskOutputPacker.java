@@ -21,7 +21,15 @@ import org.gradle.api.internal.TaskOutputsInternal;
 import java.io.IOException;
 
 public interface TaskOutputPacker {
+    /**
+     * Identifies the format of the cache entries written by this packer. An entry can only be unpacked by a packer with the same format.
+     */
+    String getFormat();
+
     TaskOutputWriter createWriter(TaskOutputsInternal taskOutputs) throws IOException;
 
+    /**
+     * Unpacks the given cache entry into the task's outputs. Fails when the entry is not in this packer's format.
+     */
     void unpack(TaskOutputsInternal taskOutputs, TaskOutputReader result) throws IOException;
 }
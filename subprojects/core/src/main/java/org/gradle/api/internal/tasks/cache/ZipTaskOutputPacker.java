@@ -43,12 +43,22 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 public class ZipTaskOutputPacker implements TaskOutputPacker {
+    private static final String FORMAT = "zip-1";
+    // Written as the first entry, so that data in another format is not mistaken for an empty zip
+    private static final String FORMAT_ENTRY = "format-" + FORMAT;
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
     @Override
     public TaskOutputWriter createWriter(final TaskOutputsInternal taskOutputs) throws IOException {
         return new TaskOutputWriter() {
             @Override
             public void writeTo(OutputStream outputStream) throws IOException {
                 final ZipOutputStream zipOutput = new ZipOutputStream(outputStream);
+                zipOutput.putNextEntry(new ZipEntry(FORMAT_ENTRY));
                 for (TaskOutputFilePropertySpec propertySpec : taskOutputs.getFileProperties()) {
                     final String propertyName = propertySpec.getPropertyName();
                     switch (propertySpec.getOutputType()) {
@@ -109,7 +119,10 @@ public class ZipTaskOutputPacker implements TaskOutputPacker {
         });
         try {
             ZipInputStream zipInput = new ZipInputStream(input);
-            ZipEntry entry;
+            ZipEntry entry = zipInput.getNextEntry();
+            if (entry == null || !entry.getName().equals(FORMAT_ENTRY)) {
+                throw new IllegalStateException("Cached task output is not in the expected format");
+            }
             while ((entry = zipInput.getNextEntry()) != null) {
                 String name = entry.getName();
                 Matcher matcher = PROPERTY_PATH.matcher(name);
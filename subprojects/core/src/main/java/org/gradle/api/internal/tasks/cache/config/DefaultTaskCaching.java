@@ -19,26 +19,43 @@ package org.gradle.api.internal.tasks.cache.config;
 import org.gradle.StartParameter;
 import org.gradle.api.internal.tasks.cache.LocalDirectoryTaskOutputCache;
 import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.StreamTaskOutputPacker;
 import org.gradle.api.internal.tasks.cache.TaskOutputCacheFactory;
+import org.gradle.api.internal.tasks.cache.TaskOutputPacker;
+import org.gradle.api.internal.tasks.cache.ZipTaskOutputPacker;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 
 import java.io.File;
 
 public class DefaultTaskCaching implements TaskCachingInternal {
-    private static final TaskOutputCacheFactory DEFAULT_LOCAL_TASK_CACHE_FACTORY = new TaskOutputCacheFactory() {
+    public static final String MAX_SIZE_PROPERTY = "org.gradle.cache.tasks.maxSize";
+    public static final String PACKER_PROPERTY = "org.gradle.cache.tasks.packer";
+    private static final long DEFAULT_MAX_SIZE_IN_MEGABYTES = 5 * 1024;
+
+    private final FileLockManager fileLockManager;
+    private final FileSystem fileSystem;
+    private final TaskOutputCacheFactory defaultLocalTaskCacheFactory = new TaskOutputCacheFactory() {
         @Override
         public TaskOutputCache createCache(StartParameter startParameter) {
             String cacheDirectoryPath = System.getProperty("org.gradle.cache.tasks.directory");
             File cacheDirectory = cacheDirectoryPath != null
                 ? new File(cacheDirectoryPath)
                 : new File(startParameter.getGradleUserHomeDir(), "task-cache");
-            return new LocalDirectoryTaskOutputCache(cacheDirectory);
+            return new LocalDirectoryTaskOutputCache(cacheDirectory, getMaxSizeInBytes(), fileLockManager);
         }
     };
-    private TaskOutputCacheFactory factory = DEFAULT_LOCAL_TASK_CACHE_FACTORY;
+    private TaskOutputCacheFactory factory = defaultLocalTaskCacheFactory;
+    private TaskOutputPacker packer;
+
+    public DefaultTaskCaching(FileLockManager fileLockManager, FileSystem fileSystem) {
+        this.fileLockManager = fileLockManager;
+        this.fileSystem = fileSystem;
+    }
 
     @Override
     public void useLocalCache() {
-        this.factory = DEFAULT_LOCAL_TASK_CACHE_FACTORY;
+        this.factory = defaultLocalTaskCacheFactory;
     }
 
     @Override
@@ -46,7 +63,7 @@ public class DefaultTaskCaching implements TaskCachingInternal {
         this.factory = new TaskOutputCacheFactory() {
             @Override
             public TaskOutputCache createCache(StartParameter startParameter) {
-                return new LocalDirectoryTaskOutputCache(directory);
+                return new LocalDirectoryTaskOutputCache(directory, getMaxSizeInBytes(), fileLockManager);
             }
         };
     }
@@ -60,4 +77,46 @@ public class DefaultTaskCaching implements TaskCachingInternal {
     public TaskOutputCacheFactory getCacheFactory() {
         return factory;
     }
+
+    @Override
+    public void usePacker(TaskOutputPacker packer) {
+        this.packer = packer;
+    }
+
+    @Override
+    public TaskOutputPacker getPacker() {
+        if (packer == null) {
+            packer = createDefaultPacker();
+        }
+        return packer;
+    }
+
+    private TaskOutputPacker createDefaultPacker() {
+        String packerName = System.getProperty(PACKER_PROPERTY, "zip").trim();
+        if (packerName.equals("zip")) {
+            return new ZipTaskOutputPacker();
+        }
+        if (packerName.equals("stream")) {
+            return new StreamTaskOutputPacker(fileSystem, false);
+        }
+        if (packerName.equals("stream-compressed")) {
+            return new StreamTaskOutputPacker(fileSystem, true);
+        }
+        throw new IllegalArgumentException(String.format("Unknown task output packer '%s' specified by system property '%s', expected one of: zip, stream, stream-compressed.", packerName, PACKER_PROPERTY));
+    }
+
+    private static long getMaxSizeInBytes() {
+        String maxSize = System.getProperty(MAX_SIZE_PROPERTY);
+        long maxSizeInMegabytes;
+        if (maxSize == null) {
+            maxSizeInMegabytes = DEFAULT_MAX_SIZE_IN_MEGABYTES;
+        } else {
+            try {
+                maxSizeInMegabytes = Long.parseLong(maxSize.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid maximum task output cache size '%s' specified by system property '%s', expected a number of megabytes.", maxSize, MAX_SIZE_PROPERTY), e);
+            }
+        }
+        return maxSizeInMegabytes * 1024 * 1024;
+    }
 }
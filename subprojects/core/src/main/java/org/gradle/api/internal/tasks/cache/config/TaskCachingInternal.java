@@ -17,8 +17,20 @@
 package org.gradle.api.internal.tasks.cache.config;
 
 import org.gradle.api.internal.tasks.cache.TaskOutputCacheFactory;
+import org.gradle.api.internal.tasks.cache.TaskOutputPacker;
 import org.gradle.api.tasks.TaskCaching;
 
 public interface TaskCachingInternal extends TaskCaching {
     TaskOutputCacheFactory getCacheFactory();
+
+    /**
+     * Use the given packer to convert task outputs to and from cache entries.
+     */
+    void usePacker(TaskOutputPacker packer);
+
+    /**
+     * Returns the packer to use. Unless a packer is set explicitly, it is selected by the {@value DefaultTaskCaching#PACKER_PROPERTY} system property:
+     * {@code zip} (the default), {@code stream} or {@code stream-compressed}.
+     */
+    TaskOutputPacker getPacker();
 }
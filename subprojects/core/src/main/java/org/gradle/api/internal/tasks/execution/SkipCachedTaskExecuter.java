@@ -24,6 +24,7 @@ import org.gradle.api.internal.changedetection.TaskArtifactState;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskExecutionContext;
 import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.api.internal.tasks.cache.DefaultTaskCacheKeyBuilder;
 import org.gradle.api.internal.tasks.cache.TaskCacheKey;
 import org.gradle.api.internal.tasks.cache.TaskOutputCache;
 import org.gradle.api.internal.tasks.cache.TaskOutputPacker;
@@ -40,14 +41,13 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
 
     private final TaskCachingInternal taskCaching;
     private final StartParameter startParameter;
-    private final TaskOutputPacker packer;
     private final TaskExecuter delegate;
     private TaskOutputCache cache;
+    private TaskOutputPacker packer;
 
-    public SkipCachedTaskExecuter(TaskCachingInternal taskCaching, TaskOutputPacker packer, StartParameter startParameter, TaskExecuter delegate) {
+    public SkipCachedTaskExecuter(TaskCachingInternal taskCaching, StartParameter startParameter, TaskExecuter delegate) {
         this.taskCaching = taskCaching;
         this.startParameter = startParameter;
-        this.packer = packer;
         this.delegate = delegate;
         SingleMessageLogger.incubatingFeatureUsed("Task output caching");
     }
@@ -73,6 +73,9 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
             TaskArtifactState taskState = context.getTaskArtifactState();
             try {
                 cacheKey = taskState.calculateCacheKey();
+                if (cacheKey != null) {
+                    cacheKey = appendPackerFormat(cacheKey);
+                }
                 LOGGER.debug("Cache key for {} is {}", task, cacheKey);
             } catch (Exception e) {
                 throw new GradleException(String.format("Could not build cache key for %s.", task), e);
@@ -89,7 +92,7 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
             try {
                 TaskOutputReader cachedOutput = getCache().get(cacheKey);
                 if (cachedOutput != null) {
-                    packer.unpack(taskOutputs, cachedOutput);
+                    getPacker().unpack(taskOutputs, cachedOutput);
                     LOGGER.info("Unpacked output for {} from cache (took {}).", task, clock.getTime());
                     state.upToDate("FROM-CACHE");
                     return;
@@ -103,7 +106,7 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
 
         if (cacheKey != null && state.getFailure() == null) {
             try {
-                TaskOutputWriter cachedOutput = packer.createWriter(taskOutputs);
+                TaskOutputWriter cachedOutput = getPacker().createWriter(taskOutputs);
                 getCache().put(cacheKey, cachedOutput);
             } catch (Exception e) {
                 LOGGER.warn("Could not cache results for {} for cache key {}", task, cacheKey, e);
@@ -111,6 +114,16 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
         }
     }
 
+    /**
+     * Entries written by one packer cannot be unpacked by another, so each packer format gets its own cache key.
+     */
+    private TaskCacheKey appendPackerFormat(TaskCacheKey cacheKey) {
+        return new DefaultTaskCacheKeyBuilder()
+            .putString(cacheKey.getHashCode())
+            .putString(getPacker().getFormat())
+            .build();
+    }
+
     private TaskOutputCache getCache() {
         if (cache == null) {
             cache = taskCaching.getCacheFactory().createCache(startParameter);
@@ -118,4 +131,11 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
         }
         return cache;
     }
+
+    private TaskOutputPacker getPacker() {
+        if (packer == null) {
+            packer = taskCaching.getPacker();
+        }
+        return packer;
+    }
 }
@@ -32,11 +32,12 @@ public interface TaskCaching {
     /**
      * Use the default local directory cache. The cache directory path defaults to {@code $GRADLE_HOME/task-cache}.
      * It can also be overridden via the {@code org.gradle.cache.tasks.directory} system property.
+     * Least recently used entries are removed once the cache grows beyond the size given in megabytes by the {@code org.gradle.cache.tasks.maxSize} system property, which defaults to 5120.
      */
     void useLocalCache();
 
     /**
-     * Use a local directory cache in the given directory.
+     * Use a local directory cache in the given directory. The size of the cache is limited in the same way as for {@link #useLocalCache()}.
      */
     void useLocalCache(File directory);
 
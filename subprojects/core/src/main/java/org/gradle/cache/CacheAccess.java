@@ -37,6 +37,14 @@ public interface CacheAccess {
      */
     void useCache(String operationDisplayName, Runnable action);
 
+    /**
+     * Performs some read-only work against the cache. When this process already holds the locks on the cache, the given action may execute at the same
+     * time as read-only actions in other threads, rather than waiting for exclusive access. Otherwise, acquires the locks as {@link #useCache(String, org.gradle.internal.Factory)} does.
+     *
+     * <p>The action must not write to the cache, and may be executed more than once.</p>
+     */
+    <T> T readCache(String operationDisplayName, Factory<? extends T> action);
+
     /**
      * Performs some long running operation within an action invoked by {@link #useCache(String, org.gradle.internal.Factory)}. Releases all
      * locks while the operation is running, and reacquires the locks at the end of the long running operation.
@@ -26,6 +26,8 @@ public class PersistentIndexedCacheParameters<K, V> {
     private final Serializer<K> keySerializer;
     private final Serializer<V> valueSerializer;
     private CacheDecorator cacheDecorator;
+    private boolean writeBehind;
+    private boolean logStructured;
 
     public PersistentIndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this.cacheName = cacheName;
@@ -67,4 +69,29 @@ public class PersistentIndexedCacheParameters<K, V> {
         this.cacheDecorator = cacheDecorator;
         return this;
     }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Buffers the entries put into the cache in memory, and writes them to the backing file in a batch before the lock on the cache is released.
+     */
+    public PersistentIndexedCacheParameters<K, V> writeBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+        return this;
+    }
+
+    public boolean isLogStructured() {
+        return logStructured;
+    }
+
+    /**
+     * Stores the entries of the cache in an append-only log, rather than in a B-tree. Lookups into the log are faster, at the cost of keeping an index of all
+     * keys in memory while the cache is open.
+     */
+    public PersistentIndexedCacheParameters<K, V> logStructured(boolean logStructured) {
+        this.logStructured = logStructured;
+        return this;
+    }
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
 import org.gradle.cache.internal.filelock.LockOptions;
+import org.gradle.cache.internal.logstore.LogStructuredPersistentIndexedCache;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
@@ -35,6 +36,7 @@ import java.util.Set;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.gradle.cache.internal.FileLockManager.LockMode.Exclusive;
 import static org.gradle.cache.internal.FileLockManager.LockMode.Shared;
@@ -53,11 +55,15 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private final Set<MultiProcessSafePersistentIndexedCache> caches = new HashSet<MultiProcessSafePersistentIndexedCache>();
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
+    // Held for reading by threads that read from the cache without owning it, and for writing by the owner when it writes to the cache or releases the file lock
+    private final ReentrantReadWriteLock sharedReadLock = new ReentrantReadWriteLock();
     private Thread owner;
     private LockOptions lockOptions;
     private FileLock fileLock;
+    // The file lock that threads which do not own the cache can read through, or null when they can't. Guarded by sharedReadLock
+    private FileLock sharedFileLock;
     private FileLock.State stateAtOpen;
-    private boolean contended;
+    private volatile boolean contended;
     private final CacheAccessOperationsStack operations;
     private int cacheClosedCount;
 
@@ -129,7 +135,10 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     private void closeFileLock() {
+        // Wait for any shared readers to finish
+        sharedReadLock.writeLock().lock();
         try {
+            sharedFileLock = null;
             cacheClosedCount++;
             try {
                 // Close the caches and then notify them of the final state, in case the caches do work on close
@@ -145,6 +154,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
             fileLock = null;
             stateAtOpen = null;
             contended = false;
+            sharedReadLock.writeLock().unlock();
         }
     }
 
@@ -179,6 +189,10 @@ public class DefaultCacheAccess implements CacheCoordinator {
         if (lockOptions != null && lockOptions.getMode() == FileLockManager.LockMode.Shared) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
+        if (sharedReadLock.getReadHoldCount() > 0) {
+            // Waiting for ownership while holding the shared read lock could deadlock with the owner
+            throw new SharedReadNotPossibleException();
+        }
 
         boolean wasStarted = false;
         lock.lock();
@@ -206,6 +220,39 @@ public class DefaultCacheAccess implements CacheCoordinator {
         }
     }
 
+    public <T> T readCache(String operationDisplayName, Factory<? extends T> action) {
+        if (startSharedRead()) {
+            boolean nested = sharedReadLock.getReadHoldCount() > 1;
+            try {
+                return action.create();
+            } catch (SharedReadNotPossibleException e) {
+                if (nested) {
+                    throw e;
+                }
+                // Fall through and run the action again with exclusive access
+            } finally {
+                sharedReadLock.readLock().unlock();
+            }
+        }
+        return useCache(operationDisplayName, action);
+    }
+
+    /**
+     * Attempts to start reading from the cache without taking ownership of it. This is possible while this process holds the file lock and no other process
+     * has asked for it. Does not synchronize on {@link #lock}, as the owner may hold that lock while waiting for the shared readers to finish.
+     */
+    private boolean startSharedRead() {
+        if (owner == Thread.currentThread()) {
+            return false;
+        }
+        sharedReadLock.readLock().lock();
+        if (sharedFileLock != null && !contended) {
+            return true;
+        }
+        sharedReadLock.readLock().unlock();
+        return false;
+    }
+
     private void takeOwnership(String operationDisplayName) {
         lock.lock();
         try {
@@ -314,14 +361,17 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final PersistentIndexedCacheParameters<K, V> parameters) {
-        final File cacheFile = new File(baseDir, parameters.getCacheName() + ".bin");
-        Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<BTreePersistentIndexedCache<K, V>>() {
-            public BTreePersistentIndexedCache<K, V> create() {
+        final File cacheFile = new File(baseDir, parameters.getCacheName() + (parameters.isLogStructured() ? ".log" : ".bin"));
+        Factory<FileBackedIndexedCache<K, V>> indexedCacheFactory = new Factory<FileBackedIndexedCache<K, V>>() {
+            public FileBackedIndexedCache<K, V> create() {
+                if (parameters.isLogStructured()) {
+                    return new LogStructuredPersistentIndexedCache<K, V>(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                }
                 return doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
             }
         };
 
-        MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
+        MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess, parameters.isWriteBehind());
         CacheDecorator decorator = parameters.getCacheDecorator();
         indexedCache = decorator == null ? indexedCache : decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), indexedCache);
 
@@ -361,6 +411,13 @@ public class DefaultCacheAccess implements CacheCoordinator {
 
         lockManager.allowContention(fileLock, whenContended());
 
+        sharedReadLock.writeLock().lock();
+        try {
+            sharedFileLock = fileLock;
+        } finally {
+            sharedReadLock.writeLock().unlock();
+        }
+
         return true;
     }
 
@@ -393,16 +450,45 @@ public class DefaultCacheAccess implements CacheCoordinator {
         }
 
         public <T> T readFile(Factory<? extends T> action) throws LockTimeoutException {
+            if (sharedReadLock.getReadHoldCount() > 0) {
+                return sharedFileLock.readFile(action);
+            }
             return getLock().readFile(action);
         }
 
         public void updateFile(Runnable action) throws LockTimeoutException {
-            getLock().updateFile(action);
+            FileLock fileLock = getWriteLock();
+            sharedReadLock.writeLock().lock();
+            try {
+                fileLock.updateFile(action);
+            } finally {
+                sharedReadLock.writeLock().unlock();
+            }
         }
 
         public void writeFile(Runnable action) throws LockTimeoutException {
-            getLock().writeFile(action);
+            FileLock fileLock = getWriteLock();
+            sharedReadLock.writeLock().lock();
+            try {
+                fileLock.writeFile(action);
+            } finally {
+                sharedReadLock.writeLock().unlock();
+            }
         }
+
+        private FileLock getWriteLock() {
+            if (sharedReadLock.getReadHoldCount() > 0) {
+                // Can't upgrade the shared read lock. This happens when a read opens a cache, for example
+                throw new SharedReadNotPossibleException();
+            }
+            return getLock();
+        }
+    }
+
+    /**
+     * Thrown when an action started by {@link #readCache(String, Factory)} needs to write to the cache, so that it can be run again with exclusive access.
+     */
+    private static class SharedReadNotPossibleException extends RuntimeException {
     }
 
     Runnable whenContended() {
@@ -186,5 +186,9 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
         public void useCache(String operationDisplayName, Runnable action) {
             reference.cache.useCache(operationDisplayName, action);
         }
+
+        public <T> T readCache(String operationDisplayName, Factory<? extends T> action) {
+            return reference.cache.readCache(operationDisplayName, action);
+        }
     }
 }
@@ -30,20 +30,30 @@ import org.gradle.util.GFileUtils;
 import java.io.File;
 import java.io.IOException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
 /**
  * Uses file system locks on a lock file per target file.
+ *
+ * <p>A lock that allows contention is leased to this process for a minimum period after it has been acquired. Requests from other processes to release the lock
+ * that arrive during the lease are ignored. As those processes keep asking until they get the lock, the lock is released shortly after the lease expires,
+ * however many requests were made during the lease. This stops two processes that use the same cache from handing the lock back and forth for every unit of work.</p>
  */
 public class DefaultFileLockManager implements FileLockManager {
     private static final Logger LOGGER = Logging.getLogger(DefaultFileLockManager.class);
     public static final int DEFAULT_LOCK_TIMEOUT = 60000;
+    public static final String LOCK_LEASE_PROPERTY = "org.gradle.cache.lockLease";
+    public static final int DEFAULT_LOCK_LEASE = 1000;
 
     private final Set<File> lockedFiles = new CopyOnWriteArraySet<File>();
+    private final ConcurrentMap<File, LockStatistics> statistics = new ConcurrentHashMap<File, LockStatistics>();
     private final ProcessMetaDataProvider metaDataProvider;
     private final int lockTimeoutMs;
+    private final int lockLeaseMs;
     private final IdGenerator<Long> generator;
     private final FileLockContentionHandler fileLockContentionHandler;
     private final long shortTimeoutMs = 10000;
@@ -53,13 +63,21 @@ public class DefaultFileLockManager implements FileLockManager {
     }
 
     public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler) {
-        this(metaDataProvider, lockTimeoutMs, fileLockContentionHandler, new RandomLongIdGenerator());
+        this(metaDataProvider, lockTimeoutMs, fileLockContentionHandler, Integer.getInteger(LOCK_LEASE_PROPERTY, DEFAULT_LOCK_LEASE));
+    }
+
+    /**
+     * @param lockLeaseMs The minimum time to hold a lock for, in milliseconds, before releasing it to another process that requests it.
+     */
+    public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler, int lockLeaseMs) {
+        this(metaDataProvider, lockTimeoutMs, fileLockContentionHandler, lockLeaseMs, new RandomLongIdGenerator());
     }
 
-    DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler,
+    DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler, int lockLeaseMs,
                            IdGenerator<Long> generator) {
         this.metaDataProvider = metaDataProvider;
         this.lockTimeoutMs = lockTimeoutMs;
+        this.lockLeaseMs = lockLeaseMs;
         this.fileLockContentionHandler = fileLockContentionHandler;
         this.generator = generator;
     }
@@ -85,9 +103,77 @@ public class DefaultFileLockManager implements FileLockManager {
         }
     }
 
-    public void allowContention(FileLock fileLock, Runnable whenContended) {
-        DefaultFileLock internalLock = (DefaultFileLock) fileLock;
-        fileLockContentionHandler.start(internalLock.lockId, whenContended);
+    public void allowContention(FileLock fileLock, final Runnable whenContended) {
+        final DefaultFileLock internalLock = (DefaultFileLock) fileLock;
+        fileLockContentionHandler.start(internalLock.lockId, new Runnable() {
+            public void run() {
+                long heldMs = System.currentTimeMillis() - internalLock.acquiredAt;
+                if (heldMs < lockLeaseMs) {
+                    LOGGER.debug("Deferring request for {} from another Gradle process, as the lease expires in {} ms.", internalLock.displayName, lockLeaseMs - heldMs);
+                    internalLock.statistics.deferred();
+                    return;
+                }
+                LOGGER.info("Another Gradle process requested {}, which has been held by this process for {} ms ({}).", internalLock.displayName, heldMs, internalLock.statistics);
+                whenContended.run();
+            }
+        });
+    }
+
+    /**
+     * Returns the lock times for the given target, accumulated over all of the locks that this manager has acquired on it.
+     */
+    LockStatistics getStatistics(File target) {
+        File canonicalTarget = FileUtils.canonicalize(target);
+        LockStatistics targetStatistics = statistics.get(canonicalTarget);
+        if (targetStatistics == null) {
+            statistics.putIfAbsent(canonicalTarget, new LockStatistics());
+            targetStatistics = statistics.get(canonicalTarget);
+        }
+        return targetStatistics;
+    }
+
+    /**
+     * The time spent waiting for and holding the locks on a target. Makes the cost of handing a lock between processes visible.
+     */
+    static class LockStatistics {
+        private int acquiredCount;
+        private long waitMs;
+        private long holdMs;
+        private int deferredCount;
+
+        synchronized void acquired(long waitMs) {
+            acquiredCount++;
+            this.waitMs += waitMs;
+        }
+
+        synchronized void released(long holdMs) {
+            this.holdMs += holdMs;
+        }
+
+        synchronized void deferred() {
+            deferredCount++;
+        }
+
+        synchronized int getAcquiredCount() {
+            return acquiredCount;
+        }
+
+        synchronized long getWaitMs() {
+            return waitMs;
+        }
+
+        synchronized long getHoldMs() {
+            return holdMs;
+        }
+
+        synchronized int getDeferredCount() {
+            return deferredCount;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("acquired %s times, waited %s ms, held %s ms, deferred %s requests", acquiredCount, waitMs, holdMs, deferredCount);
+        }
     }
 
     private class DefaultFileLock extends AbstractFileAccess implements FileLock {
@@ -101,6 +187,8 @@ public class DefaultFileLockManager implements FileLockManager {
         private LockState lockState;
         private int port;
         private final long lockId;
+        private final LockStatistics statistics;
+        private long acquiredAt;
 
         public DefaultFileLock(File target, LockOptions options, String displayName, String operationDisplayName, int port) throws Throwable {
             this.port = port;
@@ -110,6 +198,7 @@ public class DefaultFileLockManager implements FileLockManager {
             }
 
             this.target = target;
+            this.statistics = getStatistics(target);
 
             this.displayName = displayName;
             this.operationDisplayName = operationDisplayName;
@@ -213,7 +302,9 @@ public class DefaultFileLockManager implements FileLockManager {
                         return;
                     }
                     try {
-                        LOGGER.debug("Releasing lock on {}.", displayName);
+                        long heldMs = System.currentTimeMillis() - acquiredAt;
+                        statistics.released(heldMs);
+                        LOGGER.debug("Releasing lock on {} after holding it for {} ms.", displayName, heldMs);
                         try {
                             if (lock != null && !lock.isShared()) {
                                 // Discard information region
@@ -255,7 +346,8 @@ public class DefaultFileLockManager implements FileLockManager {
 
         private LockState lock(FileLockManager.LockMode lockMode) throws Throwable {
             LOGGER.debug("Waiting to acquire {} lock on {}.", lockMode.toString().toLowerCase(), displayName);
-            long waitUntil = System.currentTimeMillis() + lockTimeoutMs;
+            long startedAt = System.currentTimeMillis();
+            long waitUntil = startedAt + lockTimeoutMs;
 
             // Lock the state region, with the requested mode
             java.nio.channels.FileLock stateRegionLock = lockStateRegion(lockMode, waitUntil);
@@ -288,7 +380,9 @@ public class DefaultFileLockManager implements FileLockManager {
                     // Just read the state region
                     lockState = lockFileAccess.readLockState();
                 }
-                LOGGER.debug("Lock acquired.");
+                acquiredAt = System.currentTimeMillis();
+                statistics.acquired(acquiredAt - startedAt);
+                LOGGER.debug("Lock acquired after waiting {} ms.", acquiredAt - startedAt);
                 lock = stateRegionLock;
                 return lockState;
             } catch (Throwable t) {
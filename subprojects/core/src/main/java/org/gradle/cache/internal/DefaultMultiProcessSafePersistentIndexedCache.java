@@ -16,20 +16,46 @@
 package org.gradle.cache.internal;
 
 import org.gradle.cache.PersistentIndexedCache;
-import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.internal.Factory;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link MultiProcessSafePersistentIndexedCache} backed by a {@link FileBackedIndexedCache}.
+ *
+ * <p>In write-behind mode, entries that are put into the cache are buffered in memory, and are visible to readers of this cache straight away. The buffered
+ * entries are written to the backing cache in a single batch when the cache is closed, which happens before the lock on the cache is released, or when
+ * too many entries are buffered.</p>
+ *
+ * <p>Entries can be read by multiple threads at the same time. The {@link FileAccess} is responsible for making sure that these reads do not overlap with writes.</p>
+ */
 public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
+    private static final int MAX_PENDING_WRITES = 1000;
     private final FileAccess fileAccess;
-    private final Factory<BTreePersistentIndexedCache<K, V>> factory;
-    private BTreePersistentIndexedCache<K, V> cache;
+    private final Factory<? extends FileBackedIndexedCache<K, V>> factory;
+    private final boolean writeBehind;
+    private final Map<K, V> pendingWrites = new LinkedHashMap<K, V>();
+    private FileBackedIndexedCache<K, V> cache;
 
-    public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
+    public DefaultMultiProcessSafePersistentIndexedCache(Factory<? extends FileBackedIndexedCache<K, V>> factory, FileAccess fileAccess) {
+        this(factory, fileAccess, false);
+    }
+
+    public DefaultMultiProcessSafePersistentIndexedCache(Factory<? extends FileBackedIndexedCache<K, V>> factory, FileAccess fileAccess, boolean writeBehind) {
         this.factory = factory;
         this.fileAccess = fileAccess;
+        this.writeBehind = writeBehind;
     }
 
     public V get(final K key) {
+        V pending;
+        synchronized (pendingWrites) {
+            pending = pendingWrites.get(key);
+        }
+        if (pending != null) {
+            return pending;
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         try {
             return fileAccess.readFile(new Factory<V>() {
@@ -43,6 +69,17 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void put(final K key, final V value) {
+        if (writeBehind) {
+            boolean flush;
+            synchronized (pendingWrites) {
+                pendingWrites.put(key, value);
+                flush = pendingWrites.size() >= MAX_PENDING_WRITES;
+            }
+            if (flush) {
+                flushPendingWrites();
+            }
+            return;
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
@@ -54,6 +91,9 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void remove(final K key) {
+        synchronized (pendingWrites) {
+            pendingWrites.remove(key);
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
@@ -71,6 +111,7 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void close() {
+        flushPendingWrites();
         if (cache != null) {
             try {
                 fileAccess.writeFile(new Runnable() {
@@ -84,7 +125,31 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
         }
     }
 
-    private PersistentIndexedCache<K, V> getCache() {
+    private void flushPendingWrites() {
+        final Map<K, V> entries;
+        synchronized (pendingWrites) {
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            entries = new LinkedHashMap<K, V>(pendingWrites);
+        }
+        final FileBackedIndexedCache<K, V> cache = getCache();
+        try {
+            // Use writeFile because the cache can internally recover from datafile
+            // corruption, so we don't care at this level if it's corrupt
+            fileAccess.writeFile(new Runnable() {
+                public void run() {
+                    cache.putAll(entries);
+                }
+            });
+        } finally {
+            synchronized (pendingWrites) {
+                pendingWrites.clear();
+            }
+        }
+    }
+
+    private FileBackedIndexedCache<K, V> getCache() {
         if (cache == null) {
             // Use writeFile because the cache can internally recover from datafile
             // corruption, so we don't care at this level if it's corrupt
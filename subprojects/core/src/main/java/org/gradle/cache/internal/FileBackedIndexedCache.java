@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.PersistentIndexedCache;
+
+import java.util.Map;
+
+/**
+ * A {@link PersistentIndexedCache} that stores its entries in a single file, which is opened when the cache is created. Used by {@link DefaultMultiProcessSafePersistentIndexedCache}
+ * to access the file while the lock on the cache is held.
+ */
+public interface FileBackedIndexedCache<K, V> extends PersistentIndexedCache<K, V> {
+    /**
+     * Puts/replaces the values of the given keys. Implementations may write the whole batch more efficiently than the same number of calls to {@link #put(Object, Object)}.
+     */
+    void putAll(Map<K, V> entries);
+
+    /**
+     * Closes and reopens the backing file, discarding any state held in memory.
+     */
+    void reset();
+
+    void close();
+
+    boolean isOpen();
+
+    /**
+     * Checks the integrity of the backing file.
+     */
+    void verify();
+}
@@ -53,6 +53,11 @@ public class MapBackedInMemoryStore implements PersistentStore {
         }
     }
 
+    @Override
+    public <T> T readCache(String operationDisplayName, Factory<? extends T> action) {
+        return useCache(operationDisplayName, action);
+    }
+
     @Override
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
         return action.create();
@@ -16,7 +16,7 @@
 package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
-import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.internal.FileBackedIndexedCache;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
@@ -28,19 +28,25 @@ import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 // todo - stream serialised value to file
 // todo - handle hash collisions (properly, this time)
 // todo - don't store null links to child blocks in leaf index blocks
 // todo - align block boundaries
-// todo - thread safety control
 // todo - merge small values into a single data block
 // todo - discard when file corrupt
 // todo - include data directly in index entry when serializer can guarantee small fixed sized data
 // todo - free list leaks disk space
 // todo - merge adjacent free blocks
 // todo - use more efficient lookup for free block with nearest size
-public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+/**
+ * A {@link FileBackedIndexedCache} that stores its entries in a B-tree.
+ *
+ * <p>Lookups can be made by multiple threads at the same time. Changes to the cache are made with exclusive access, so they wait for the lookups in progress.</p>
+ */
+public class BTreePersistentIndexedCache<K, V> implements FileBackedIndexedCache<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
     private final File cacheFile;
     private final Serializer<K> keySerializer;
@@ -48,6 +54,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
     private final StateCheckBlockStore store;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private HeaderBlock header;
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
@@ -114,6 +121,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public V get(K key) {
         try {
+            lock.readLock().lock();
             try {
                 DataBlock block = header.getRoot().get(key);
                 if (block != null) {
@@ -121,42 +129,86 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 }
                 return null;
             } catch (CorruptedCacheException e) {
+                // Rebuild below, once the read lock has been released
+            } finally {
+                lock.readLock().unlock();
+            }
+            lock.writeLock().lock();
+            try {
                 rebuild();
-                return null;
+            } finally {
+                lock.writeLock().unlock();
             }
+            return null;
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
         }
     }
 
     public void put(K key, V value) {
+        lock.writeLock().lock();
         try {
-            MessageDigestStream digestStream = new MessageDigestStream();
-            KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
-            keySerializer.write(encoder, key);
-            encoder.flush();
-            long hashCode = digestStream.getChecksum();
-            Lookup lookup = header.getRoot().find(hashCode);
-            boolean needNewBlock = true;
-            if (lookup.entry != null) {
-                DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
-                needNewBlock = !block.useNewValue(value);
-                if (needNewBlock) {
-                    store.remove(block);
-                }
+            doPut(hashKey(key), value);
+            store.flush();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entries are added in the order of their position in the index, and the changes are flushed to the backing file once for the whole batch, rather
+     * than once per entry.</p>
+     */
+    public void putAll(Map<K, V> entries) {
+        List<PendingEntry<V>> pending = new ArrayList<PendingEntry<V>>(entries.size());
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                pending.add(new PendingEntry<V>(hashKey(entry.getKey()), entry.getValue()));
             }
-            if (needNewBlock) {
-                DataBlock block = new DataBlock(value);
-                store.write(block);
-                lookup.indexBlock.put(hashCode, block.getPos());
+            Collections.sort(pending);
+            for (PendingEntry<V> entry : pending) {
+                doPut(entry.hashCode, entry.value);
             }
             store.flush();
         } catch (Exception e) {
-            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+            throw new UncheckedIOException(String.format("Could not add %s entries to %s.", entries.size(), this), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long hashKey(K key) throws Exception {
+        MessageDigestStream digestStream = new MessageDigestStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
+        keySerializer.write(encoder, key);
+        encoder.flush();
+        return digestStream.getChecksum();
+    }
+
+    private void doPut(long hashCode, V value) throws Exception {
+        Lookup lookup = header.getRoot().find(hashCode);
+        boolean needNewBlock = true;
+        if (lookup.entry != null) {
+            DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
+            needNewBlock = !block.useNewValue(value);
+            if (needNewBlock) {
+                store.remove(block);
+            }
+        }
+        if (needNewBlock) {
+            DataBlock block = new DataBlock(value);
+            store.write(block);
+            lookup.indexBlock.put(hashCode, block.getPos());
         }
     }
 
     public void remove(K key) {
+        lock.writeLock().lock();
         try {
             Lookup lookup = header.getRoot().find(key);
             if (lookup.entry == null) {
@@ -168,11 +220,14 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     private IndexBlock load(BlockPointer pos, IndexRoot root, IndexBlock parent, int index) {
         IndexBlock block = store.read(pos, IndexBlock.class);
+        // Concurrent lookups may set these on the same cached block. They always set the same values, and the values are only used when changing the index
         block.root = root;
         block.parent = parent;
         block.parentEntryIndex = index;
@@ -180,20 +235,28 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public void reset() {
-        close();
+        lock.writeLock().lock();
         try {
-            open();
-        } catch (Exception e) {
-            throw new UncheckedIOException(e);
+            close();
+            try {
+                open();
+            } catch (Exception e) {
+                throw new UncheckedIOException(e);
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     public void close() {
         LOGGER.debug("Closing {}", this);
+        lock.writeLock().lock();
         try {
             store.close();
         } catch (Exception e) {
             throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
@@ -209,11 +272,14 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public void verify() {
+        lock.readLock().lock();
         try {
             doVerify();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Some problems were found when checking the integrity of %s.",
                     this), e);
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
@@ -449,12 +515,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
 
         public Lookup find(K key) throws Exception {
-            MessageDigestStream digestStream = new MessageDigestStream();
-            KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
-            keySerializer.write(encoder, key);
-            encoder.flush();
-            long checksum = digestStream.getChecksum();
-            return find(checksum);
+            return find(hashKey(key));
         }
 
         private Lookup find(long hashCode) throws Exception {
@@ -624,6 +685,26 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    private static class PendingEntry<V> implements Comparable<PendingEntry<V>> {
+        final long hashCode;
+        final V value;
+
+        private PendingEntry(long hashCode, V value) {
+            this.hashCode = hashCode;
+            this.value = value;
+        }
+
+        public int compareTo(PendingEntry<V> other) {
+            if (hashCode > other.hashCode) {
+                return 1;
+            }
+            if (hashCode < other.hashCode) {
+                return -1;
+            }
+            return 0;
+        }
+    }
+
     private class Lookup {
         final IndexBlock indexBlock;
         final IndexEntry entry;
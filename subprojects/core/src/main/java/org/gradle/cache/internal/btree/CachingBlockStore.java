@@ -22,7 +22,8 @@ import java.util.*;
 public class CachingBlockStore implements BlockStore {
     private final BlockStore store;
     private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
-    private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
+    // Synchronized, as concurrent reads update the recently used order
+    private final Map<BlockPointer, BlockPayload> indexBlockCache = Collections.synchronizedMap(new LRUMap(100));
     private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
 
     public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
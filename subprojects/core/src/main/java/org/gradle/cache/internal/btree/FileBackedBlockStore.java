@@ -174,6 +174,12 @@ public class FileBackedBlockStore implements BlockStore {
         }
 
         public void write() throws Exception {
+            synchronized (FileBackedBlockStore.this) {
+                doWrite();
+            }
+        }
+
+        private void doWrite() throws Exception {
             long pos = getPos().getPos();
             file.seek(pos);
 
@@ -204,6 +210,13 @@ public class FileBackedBlockStore implements BlockStore {
         }
 
         public void read() throws Exception {
+            // Blocks may be read by multiple threads at the same time, which all share the file pointer
+            synchronized (FileBackedBlockStore.this) {
+                doRead();
+            }
+        }
+
+        private void doRead() throws Exception {
             long pos = getPos().getPos();
             assert pos >= 0;
             if (pos + HEADER_SIZE >= currentFileSize) {
@@ -0,0 +1,479 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal.logstore;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.internal.FileBackedIndexedCache;
+import org.gradle.internal.io.RandomAccessFileInputStream;
+import org.gradle.internal.io.RandomAccessFileOutputStream;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link FileBackedIndexedCache} that appends every change to the end of a log file, and keeps the position of the latest value of each key in memory.
+ *
+ * <p>Each record in the log holds a serialized key, its serialized value or a marker for a removed key, and a checksum of both. When the log is opened, it is
+ * read from the start to rebuild the index. A record that is incomplete or does not match its checksum, for example because a process crashed while writing it,
+ * marks the end of the log: it and everything after it are discarded.</p>
+ *
+ * <p>Values are read from a read-only memory mapping of the log, which is refreshed as the log grows. Replaced and removed values stay in the log until it is
+ * compacted. When the cache is closed and most of the log is made up of such values, the current entries are copied to a new log, which then replaces the old one.</p>
+ *
+ * <p>Lookups can be made by multiple threads at the same time. Changes to the cache are made with exclusive access, so they wait for the lookups in progress.</p>
+ */
+public class LogStructuredPersistentIndexedCache<K, V> implements FileBackedIndexedCache<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredPersistentIndexedCache.class);
+    private static final int MAGIC = 0x4c4f4721;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int REMOVED = -1;
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+    private static final long REMAP_SIZE = 1024 * 1024;
+
+    private final File logFile;
+    private final File compactedFile;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<K, Record> index = new HashMap<K, Record>();
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long length;
+    private long liveLength;
+    // Guarded by this, as it is replaced by lookups
+    private MappedByteBuffer mapping;
+
+    public LogStructuredPersistentIndexedCache(File logFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this.logFile = logFile;
+        this.compactedFile = new File(logFile.getParentFile(), logFile.getName() + ".compacted");
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        try {
+            open();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "cache " + logFile.getName() + " (" + logFile + ")";
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        if (compactedFile.isFile()) {
+            // The compacted log is complete once it has been renamed, so a compacted log that is left over was either abandoned, or was about to replace a deleted log
+            if (logFile.isFile() || !compactedFile.renameTo(logFile)) {
+                compactedFile.delete();
+            }
+        }
+        logFile.getParentFile().mkdirs();
+        file = new RandomAccessFile(logFile, "rw");
+        channel = file.getChannel();
+        index.clear();
+        mapping = null;
+        if (!hasValidHeader()) {
+            if (file.length() > 0) {
+                LOGGER.warn("{} is corrupt. Discarding.", this);
+            }
+            file.setLength(0);
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(header, 0);
+            length = FILE_HEADER_SIZE;
+            liveLength = 0;
+            return;
+        }
+        length = readRecords(index);
+        if (length < file.length()) {
+            LOGGER.warn("{} has a corrupt entry at offset {}. Discarding the entries from this offset onwards.", this, length);
+            file.setLength(length);
+        }
+        liveLength = 0;
+        for (Record record : index.values()) {
+            liveLength += record.getLength();
+        }
+    }
+
+    private boolean hasValidHeader() throws IOException {
+        if (file.length() < FILE_HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION;
+    }
+
+    /**
+     * Reads the records of the log into the given index, and returns the offset of the end of the last intact record.
+     */
+    private long readRecords(Map<K, Record> index) throws IOException {
+        long fileLength = file.length();
+        file.seek(FILE_HEADER_SIZE);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new RandomAccessFileInputStream(file)));
+        CRC32 checksum = new CRC32();
+        long pos = FILE_HEADER_SIZE;
+        while (pos + RECORD_HEADER_SIZE <= fileLength) {
+            int keyLength = input.readInt();
+            int valueLength = input.readInt();
+            int expectedChecksum = input.readInt();
+            if (keyLength < 0 || valueLength < REMOVED || pos + RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0) > fileLength) {
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            byte[] value = new byte[Math.max(valueLength, 0)];
+            try {
+                input.readFully(key);
+                input.readFully(value);
+            } catch (EOFException e) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(key);
+            checksum.update(value);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                break;
+            }
+            K decodedKey;
+            try {
+                decodedKey = decode(keySerializer, key);
+            } catch (Exception e) {
+                break;
+            }
+            if (valueLength == REMOVED) {
+                index.remove(decodedKey);
+            } else {
+                index.put(decodedKey, new Record(pos, keyLength, valueLength));
+            }
+            pos += RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+        }
+        return pos;
+    }
+
+    public V get(K key) {
+        lock.readLock().lock();
+        try {
+            Record record = index.get(key);
+            if (record == null) {
+                return null;
+            }
+            return decode(valueSerializer, read(record.getValuePos(), record.valueLength));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        lock.writeLock().lock();
+        try {
+            append(Collections.singletonMap(key, value));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entries are appended to the log with a single write.</p>
+     */
+    public void putAll(Map<K, V> entries) {
+        lock.writeLock().lock();
+        try {
+            append(entries);
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add %s entries to %s.", entries.size(), this), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            if (!index.containsKey(key)) {
+                return;
+            }
+            append(Collections.<K, V>singletonMap(key, null));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a record for each of the given entries. A null value marks a removed key. The index is only updated once all records have been written.
+     */
+    private void append(Map<K, V> entries) throws Exception {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(records);
+        CRC32 checksum = new CRC32();
+        List<K> keys = new ArrayList<K>(entries.size());
+        List<Record> added = new ArrayList<Record>(entries.size());
+        long pos = length;
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            byte[] key = encode(keySerializer, entry.getKey());
+            byte[] value = entry.getValue() == null ? new byte[0] : encode(valueSerializer, entry.getValue());
+            int valueLength = entry.getValue() == null ? REMOVED : value.length;
+            checksum.reset();
+            checksum.update(key);
+            checksum.update(value);
+            output.writeInt(key.length);
+            output.writeInt(valueLength);
+            output.writeInt((int) checksum.getValue());
+            output.write(key);
+            output.write(value);
+            keys.add(entry.getKey());
+            added.add(valueLength == REMOVED ? null : new Record(pos, key.length, valueLength));
+            pos += RECORD_HEADER_SIZE + key.length + value.length;
+        }
+        output.flush();
+        writeFully(ByteBuffer.wrap(records.toByteArray()), length);
+        length = pos;
+
+        for (int i = 0; i < keys.size(); i++) {
+            Record record = added.get(i);
+            Record previous = record == null ? index.remove(keys.get(i)) : index.put(keys.get(i), record);
+            if (previous != null) {
+                liveLength -= previous.getLength();
+            }
+            if (record != null) {
+                liveLength += record.getLength();
+            }
+        }
+    }
+
+    private byte[] read(long pos, int count) throws IOException {
+        byte[] bytes = new byte[count];
+        ByteBuffer mapping = getMapping(pos + count);
+        if (mapping != null) {
+            ByteBuffer view = mapping.duplicate();
+            view.position((int) pos);
+            view.get(bytes);
+        } else {
+            readFully(ByteBuffer.wrap(bytes), pos);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns a mapping of the log that includes the given offset, or null when the data should be read from the file instead. To avoid mapping the log
+     * again after every change, recently appended records are read from the file until enough of them have accumulated.
+     */
+    private synchronized ByteBuffer getMapping(long end) throws IOException {
+        if (mapping != null && end <= mapping.capacity()) {
+            return mapping;
+        }
+        if (length > Integer.MAX_VALUE || (mapping != null && length - mapping.capacity() < REMAP_SIZE)) {
+            return null;
+        }
+        mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        return mapping;
+    }
+
+    private void readFully(ByteBuffer buffer, long pos) throws IOException {
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, pos + buffer.position());
+            if (count < 0) {
+                throw new EOFException(String.format("Unexpected end of %s.", this));
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long pos) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, pos + buffer.position());
+        }
+    }
+
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            close();
+            try {
+                open();
+            } catch (Exception e) {
+                throw new UncheckedIOException(e);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void close() {
+        LOGGER.debug("Closing {}", this);
+        lock.writeLock().lock();
+        try {
+            if (file == null) {
+                return;
+            }
+            if (length >= MIN_COMPACTION_SIZE && liveLength < (length - FILE_HEADER_SIZE) / 2) {
+                compact();
+            }
+            closeFile();
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void closeFile() throws IOException {
+        if (file == null) {
+            return;
+        }
+        mapping = null;
+        channel = null;
+        try {
+            file.close();
+        } finally {
+            file = null;
+        }
+    }
+
+    /**
+     * Copies the current records to a new log, and replaces the old log with it. When the old log can't be replaced, for example because it is still mapped,
+     * the old log is kept.
+     */
+    private void compact() throws IOException {
+        LOGGER.debug("Compacting {}", this);
+        RandomAccessFile compacted = new RandomAccessFile(compactedFile, "rw");
+        try {
+            compacted.setLength(0);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new RandomAccessFileOutputStream(compacted)));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            for (Record record : index.values()) {
+                output.write(read(record.pos, record.getLength()));
+            }
+            output.flush();
+            compacted.getFD().sync();
+        } finally {
+            compacted.close();
+        }
+        closeFile();
+        if (!compactedFile.renameTo(logFile) && !(logFile.delete() && compactedFile.renameTo(logFile))) {
+            LOGGER.debug("Could not replace {} with its compacted log.", this);
+            compactedFile.delete();
+        }
+    }
+
+    public boolean isOpen() {
+        return file != null;
+    }
+
+    public void verify() {
+        lock.writeLock().lock();
+        try {
+            Map<K, Record> records = new HashMap<K, Record>();
+            long end = readRecords(records);
+            if (end != length || end != file.length()) {
+                throw new IOException(String.format("Corrupt entry found at offset %s.", end));
+            }
+            if (!records.equals(index)) {
+                throw new IOException("The index does not match the entries in the log.");
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Some problems were found when checking the integrity of %s.", this), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static <T> byte[] encode(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream outStr = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outStr);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return outStr.toByteArray();
+    }
+
+    private static <T> T decode(Serializer<T> serializer, byte[] bytes) throws Exception {
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * The location of the latest record for a key.
+     */
+    private static class Record {
+        final long pos;
+        final int keyLength;
+        final int valueLength;
+
+        Record(long pos, int keyLength, int valueLength) {
+            this.pos = pos;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+        }
+
+        long getValuePos() {
+            return pos + RECORD_HEADER_SIZE + keyLength;
+        }
+
+        int getLength() {
+            return RECORD_HEADER_SIZE + keyLength + valueLength;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Record)) {
+                return false;
+            }
+            Record other = (Record) obj;
+            return pos == other.pos && keyLength == other.keyLength && valueLength == other.valueLength;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) pos;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.google.common.base.StandardSystemProperty;
 import com.google.common.collect.*;
 import org.gradle.api.*;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository;
 import org.gradle.api.internal.tasks.CachingTaskDependencyResolveContext;
 import org.gradle.api.internal.tasks.TaskContainerInternal;
 import org.gradle.api.logging.Logger;
@@ -40,7 +41,6 @@ import org.gradle.internal.graph.DirectedGraphRenderer;
 import org.gradle.internal.graph.GraphNodeRenderer;
 import org.gradle.internal.logging.text.StyledTextOutput;
 import org.gradle.util.CollectionUtils;
-import org.gradle.util.TextUtil;
 
 import java.io.File;
 import java.io.IOException;
@@ -57,11 +57,13 @@ import java.util.concurrent.locks.ReentrantLock;
 public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     public static final String INTRA_PROJECT_TOGGLE = "org.gradle.parallel.intra";
+    public static final String READY_QUEUE_TOGGLE = "org.gradle.parallel.readyQueue";
 
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
+    private final Condition taskAvailable = lock.newCondition();
     private final Set<TaskInfo> tasksInUnknownState = new LinkedHashSet<TaskInfo>();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
@@ -75,23 +77,43 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Multiset<String> projectsWithRunningTasks = HashMultiset.create();
     private final Multiset<String> projectsWithRunningNonParallelizableTasks = HashMultiset.create();
     private final Set<TaskInternal> runningTasks = Sets.newIdentityHashSet();
+    // Running tasks whose outputs have not been added to runningTaskOutputs yet
+    private final Set<TaskInternal> unindexedRunningTasks = Sets.newIdentityHashSet();
+    private final OutputPathTrie<TaskInternal> runningTaskOutputs = new OutputPathTrie<TaskInternal>(StandardSystemProperty.FILE_SEPARATOR.value());
     private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
+    private ReadyTaskQueue readyQueue;
+    private TaskDurationRepository taskDurations;
 
     private final boolean intraProjectParallelization;
+    private final boolean readyQueueScheduling;
+    private final Spec<TaskInfo> canRunWithCurrentlyExecutedTasks = new Spec<TaskInfo>() {
+        @Override
+        public boolean isSatisfiedBy(TaskInfo taskInfo) {
+            return canRunWithWithCurrentlyExecutedTasks(taskInfo);
+        }
+    };
 
-    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, boolean readyQueueScheduling) {
         this.cancellationToken = cancellationToken;
         this.intraProjectParallelization = intraProjectParallelization;
+        this.readyQueueScheduling = readyQueueScheduling;
 
         if (intraProjectParallelization) {
             LOGGER.info("intra project task parallelization is enabled");
         }
+        if (readyQueueScheduling) {
+            LOGGER.info("ready queue task scheduling is enabled");
+        }
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+        this(cancellationToken, intraProjectParallelization, false);
     }
 
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken) {
-        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE));
+        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE), Boolean.getBoolean(READY_QUEUE_TOGGLE));
     }
 
     public void addToTaskGraph(Collection<? extends Task> tasks) {
@@ -308,6 +330,38 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         executionQueue.clear();
         executionQueue.addAll(executionPlan.values());
+        if (taskDurations != null) {
+            readyQueue = new ReadyTaskQueue(executionQueue, estimateDurations());
+        } else if (readyQueueScheduling) {
+            readyQueue = new ReadyTaskQueue(executionQueue);
+        } else {
+            readyQueue = null;
+        }
+    }
+
+    /**
+     * Tasks without a recorded duration are assumed to take as long as the average task with a recorded duration.
+     */
+    private Map<TaskInfo, Long> estimateDurations() {
+        Map<TaskInfo, Long> durations = Maps.newIdentityHashMap();
+        long knownTotal = 0;
+        for (TaskInfo taskInfo : executionQueue) {
+            Long duration = taskDurations.getDuration(taskInfo.getTask());
+            if (duration != null) {
+                durations.put(taskInfo, duration);
+                knownTotal += duration;
+            }
+        }
+        if (durations.isEmpty()) {
+            return durations;
+        }
+        long average = knownTotal / durations.size();
+        for (TaskInfo taskInfo : executionQueue) {
+            if (!durations.containsKey(taskInfo)) {
+                durations.put(taskInfo, average);
+            }
+        }
+        return durations;
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -429,12 +483,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             entryTasks.clear();
             executionPlan.clear();
             executionQueue.clear();
+            readyQueue = null;
             failures.clear();
             projectsWithRunningTasks.clear();
             projectsWithRunningNonParallelizableTasks.clear();
             canonicalizedOutputCache.clear();
             isParallelSafeCache.clear();
             runningTasks.clear();
+            unindexedRunningTasks.clear();
+            runningTaskOutputs.clear();
         } finally {
             lock.unlock();
         }
@@ -452,7 +509,31 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         this.failureHandler = handler;
     }
 
+    /**
+     * Hands out ready tasks ordered by the estimated length of the longest chain of tasks that depends on them, based on the given task durations.
+     */
+    public void useCriticalPathScheduling(TaskDurationRepository taskDurations) {
+        this.taskDurations = taskDurations;
+    }
+
+    /**
+     * Returns the estimated duration of the longest chain of dependent tasks in the plan, in milliseconds, or 0 when critical path scheduling is not used.
+     */
+    public long getEstimatedCriticalPathLength() {
+        return taskDurations == null || readyQueue == null ? 0 : readyQueue.getCriticalPathLength();
+    }
+
+    /**
+     * Returns the estimated sum of the durations of all tasks in the plan, in milliseconds, or 0 when critical path scheduling is not used.
+     */
+    public long getEstimatedTotalDuration() {
+        return taskDurations == null || readyQueue == null ? 0 : readyQueue.getTotalEstimatedDuration();
+    }
+
     public TaskInfo getTaskToExecute() {
+        if (readyQueue != null) {
+            return getTaskToExecuteFromReadyQueue();
+        }
         lock.lock();
         try {
             while (true) {
@@ -498,6 +579,56 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    private TaskInfo getTaskToExecuteFromReadyQueue() {
+        lock.lock();
+        try {
+            while (true) {
+                if (cancellationToken.isCancellationRequested()) {
+                    if (abortExecution()) {
+                        tasksCancelled = true;
+                    }
+                }
+                if (readyQueue.isExhausted()) {
+                    return null;
+                }
+                TaskInfo nextMatching = readyQueue.selectNext(canRunWithCurrentlyExecutedTasks);
+                if (nextMatching == null) {
+                    try {
+                        taskAvailable.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                } else {
+                    if (nextMatching.allDependenciesSuccessful()) {
+                        nextMatching.startExecution();
+                        recordTaskStarted(nextMatching);
+                        return nextMatching;
+                    } else {
+                        nextMatching.skipExecution();
+                        readyQueue.taskCompleted(nextMatching);
+                        condition.signalAll();
+                        signalWaitingWorkers();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up only as many waiting workers as there are tasks that may be ready to execute, or all of them when no more work is left so they can finish.
+     */
+    private void signalWaitingWorkers() {
+        if (readyQueue.isExhausted()) {
+            taskAvailable.signalAll();
+            return;
+        }
+        for (int i = readyQueue.getReadyCount(); i > 0; i--) {
+            taskAvailable.signal();
+        }
+    }
+
     private boolean canRunWithWithCurrentlyExecutedTasks(TaskInfo taskInfo) {
         TaskInternal task = taskInfo.getTask();
         String projectPath = task.getProject().getPath();
@@ -549,35 +680,27 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             return null;
         }
 
+        indexRunningTaskOutputs();
         for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
-            for (TaskInternal runningTask : runningTasks) {
-                for (String runningTaskOutputPath : canonicalizedOutputPaths(runningTask)) {
-                    if (pathsOverlap(candidateTaskOutputPath, runningTaskOutputPath)) {
-                        return Pair.of(runningTask, TextUtil.shorterOf(candidateTaskOutputPath, runningTaskOutputPath));
-                    }
-                }
+            Pair<TaskInternal, String> overlap = runningTaskOutputs.findOverlap(candidateTaskOutputPath);
+            if (overlap != null) {
+                return overlap;
             }
         }
 
         return null;
     }
 
-
-    private boolean pathsOverlap(String firstPath, String secondPath) {
-        if (firstPath.equals(secondPath)) {
-            return true;
-        }
-
-        String shorter;
-        String longer;
-        if (firstPath.length() > secondPath.length()) {
-            shorter = secondPath;
-            longer = firstPath;
-        } else {
-            shorter = firstPath;
-            longer = secondPath;
+    /**
+     * The outputs of a running task are only resolved once another task needs to be checked against them, so that tasks executed on their own never resolve their outputs.
+     */
+    private void indexRunningTaskOutputs() {
+        for (TaskInternal runningTask : unindexedRunningTasks) {
+            for (String runningTaskOutputPath : canonicalizedOutputPaths(runningTask)) {
+                runningTaskOutputs.add(runningTaskOutputPath, runningTask);
+            }
         }
-        return longer.startsWith(shorter + StandardSystemProperty.FILE_SEPARATOR.value());
+        unindexedRunningTasks.clear();
     }
 
     boolean isParallelizable(TaskInternal task) {
@@ -614,6 +737,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         projectsWithRunningTasks.add(projectPath);
         runningTasks.add(task);
+        unindexedRunningTasks.add(task);
     }
 
     private void recordTaskCompleted(TaskInfo taskInfo) {
@@ -623,9 +747,13 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             projectsWithRunningNonParallelizableTasks.remove(projectPath);
         }
         projectsWithRunningTasks.remove(projectPath);
+        if (runningTasks.remove(task) && !unindexedRunningTasks.remove(task)) {
+            for (String outputPath : canonicalizedOutputPaths(task)) {
+                runningTaskOutputs.remove(outputPath, task);
+            }
+        }
         canonicalizedOutputCache.remove(task);
         isParallelSafeCache.remove(task);
-        runningTasks.remove(task);
     }
 
     public void taskComplete(TaskInfo taskInfo) {
@@ -639,6 +767,10 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             taskInfo.finishExecution();
             recordTaskCompleted(taskInfo);
             condition.signalAll();
+            if (readyQueue != null) {
+                readyQueue.taskCompleted(taskInfo);
+                signalWaitingWorkers();
+            }
         } finally {
             lock.unlock();
         }
@@ -663,7 +795,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             enforceWithDependencies(dependencyNode, enforcedTasks);
         }
         if (node.isMustNotRun() || node.isRequired()) {
+            boolean wasComplete = node.isComplete();
             node.enforceRun();
+            if (wasComplete && readyQueue != null) {
+                readyQueue.taskEnforced(node);
+            }
         }
     }
 
@@ -693,6 +829,9 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         for (TaskInfo taskInfo : executionPlan.values()) {
             if (taskInfo.isRequired()) {
                 taskInfo.skipExecution();
+                if (readyQueue != null) {
+                    readyQueue.taskCompleted(taskInfo);
+                }
                 aborted = true;
             }
         }
@@ -24,6 +24,7 @@ import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.execution.internal.InternalTaskExecutionListener;
 import org.gradle.api.execution.internal.TaskOperationInternal;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskStateInternal;
 import org.gradle.api.internal.tasks.execution.DefaultTaskExecutionContext;
@@ -64,6 +65,8 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private final ListenerBroadcast<InternalTaskExecutionListener> internalTaskListeners;
     private final DefaultTaskExecutionPlan taskExecutionPlan;
     private final BuildOperationExecutor buildOperationExecutor;
+    private TaskDurationRepository taskDurations;
+    private TaskSchedulingListener schedulingListener;
     private TaskGraphState taskGraphState = TaskGraphState.EMPTY;
 
     public DefaultTaskGraphExecuter(ListenerManager listenerManager, TaskPlanExecutor taskPlanExecutor, Factory<? extends TaskExecuter> taskExecuter, BuildCancellationToken cancellationToken, TimeProvider timeProvider, BuildOperationExecutor buildOperationExecutor) {
@@ -81,6 +84,15 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         taskExecutionPlan.useFailureHandler(handler);
     }
 
+    /**
+     * Orders ready tasks by their estimated remaining critical path, and records the duration of each executed task to improve later estimates.
+     */
+    public void useCriticalPathScheduling(TaskDurationRepository taskDurations, TaskSchedulingListener schedulingListener) {
+        this.taskDurations = taskDurations;
+        this.schedulingListener = schedulingListener;
+        taskExecutionPlan.useCriticalPathScheduling(taskDurations);
+    }
+
     public void useFilter(Spec<? super Task> filter) {
         taskExecutionPlan.useFilter(filter);
         taskGraphState = TaskGraphState.DIRTY;
@@ -106,6 +118,9 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         ensurePopulated();
 
         graphListeners.getSource().graphPopulated(this);
+        if (taskDurations != null) {
+            schedulingListener.executionPlanEstimated(taskExecutionPlan.getEstimatedCriticalPathLength(), taskExecutionPlan.getEstimatedTotalDuration());
+        }
         try {
             taskPlanExecutor.process(taskExecutionPlan, new EventFiringTaskWorker(taskExecuter.create(), buildOperationExecutor.getCurrentOperationId()));
             LOGGER.debug("Timing: Executing the DAG took " + clock.getTime());
@@ -204,6 +219,10 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
                 taskListeners.getSource().afterExecute(task, state);
             } finally {
                 long endTime = timeProvider.getCurrentTime();
+                // Skipped tasks, including up-to-date and cached tasks, finish almost immediately and would drag the estimate of the task towards 0
+                if (taskDurations != null && state.getFailure() == null && !state.getSkipped()) {
+                    taskDurations.recordDuration(task, endTime - startTime);
+                }
                 internalTaskListeners.getSource().afterExecute(taskOperation, new OperationResult(startTime, endTime, task.getState().getFailure()));
             }
         }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Indexes the output paths of running tasks by path segment, so that checking whether a path overlaps any running task's output only needs to walk the
+ * segments of that path, rather than compare it with every output path of every running task.
+ *
+ * <p>Two paths overlap if they are equal, or one of them is an ancestor of the other. This class is not thread-safe.</p>
+ *
+ * @param <T> the type of the owner of the paths.
+ */
+class OutputPathTrie<T> {
+    private final String separator;
+    private final Pattern separatorPattern;
+    private final Node<T> root = new Node<T>(null, "");
+
+    OutputPathTrie(String separator) {
+        this.separator = separator;
+        this.separatorPattern = Pattern.compile(Pattern.quote(separator));
+    }
+
+    boolean isEmpty() {
+        return root.ownersInSubtree == 0;
+    }
+
+    void add(String path, T owner) {
+        Node<T> node = root;
+        node.ownersInSubtree++;
+        for (String segment : split(path)) {
+            node = node.child(segment);
+            node.ownersInSubtree++;
+        }
+        node.owners.add(owner);
+    }
+
+    void remove(String path, T owner) {
+        Node<T> node = root;
+        List<Node<T>> visited = new ArrayList<Node<T>>();
+        for (String segment : split(path)) {
+            node = node.children == null ? null : node.children.get(segment);
+            if (node == null) {
+                return;
+            }
+            visited.add(node);
+        }
+        if (!node.owners.remove(owner)) {
+            return;
+        }
+        root.ownersInSubtree--;
+        for (Node<T> visitedNode : visited) {
+            visitedNode.ownersInSubtree--;
+            if (visitedNode.ownersInSubtree == 0) {
+                visitedNode.parent.children.remove(visitedNode.segment);
+                break;
+            }
+        }
+    }
+
+    void clear() {
+        root.children = null;
+        root.owners.clear();
+        root.ownersInSubtree = 0;
+    }
+
+    /**
+     * Returns an owner of a path that overlaps the given path, together with the shorter of the two overlapping paths. Returns null when there is no overlap.
+     */
+    @Nullable
+    Pair<T, String> findOverlap(String path) {
+        if (isEmpty()) {
+            return null;
+        }
+        String[] segments = split(path);
+        Node<T> node = root;
+        for (String segment : segments) {
+            if (!node.owners.isEmpty()) {
+                // An ancestor of the path is owned
+                return Pair.of(node.owners.get(0), node.path(separator));
+            }
+            node = node.children == null ? null : node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        if (node.ownersInSubtree == 0) {
+            return null;
+        }
+        // The path itself, or one of its descendants, is owned
+        while (node.owners.isEmpty()) {
+            node = firstOwnedChild(node);
+        }
+        return Pair.of(node.owners.get(0), path);
+    }
+
+    private Node<T> firstOwnedChild(Node<T> node) {
+        for (Node<T> child : node.children.values()) {
+            if (child.ownersInSubtree > 0) {
+                return child;
+            }
+        }
+        throw new IllegalStateException("Inconsistent output path index");
+    }
+
+    private String[] split(String path) {
+        return separatorPattern.split(path);
+    }
+
+    private static class Node<T> {
+        private final Node<T> parent;
+        private final String segment;
+        private final List<T> owners = new ArrayList<T>(1);
+        private Map<String, Node<T>> children;
+        private int ownersInSubtree;
+
+        private Node(Node<T> parent, String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+
+        Node<T> child(String segment) {
+            if (children == null) {
+                children = new HashMap<String, Node<T>>();
+            }
+            Node<T> child = children.get(segment);
+            if (child == null) {
+                child = new Node<T>(this, segment);
+                children.put(segment, child);
+            }
+            return child;
+        }
+
+        String path(String separator) {
+            if (parent == null) {
+                return "";
+            }
+            String parentPath = parent.path(separator);
+            return parent.parent == null ? segment : parentPath + separator + segment;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.collect.Iterables;
+import org.gradle.api.Nullable;
+import org.gradle.api.specs.Spec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tracks which tasks of an execution plan have all of their dependencies complete, so that the next task to execute can be found without scanning the whole plan.
+ *
+ * <p>Each queued task keeps a counter of its incomplete dependencies (including must run after ordering). The counters are updated when a task completes, or when a complete task
+ * becomes incomplete again because it is enforced as a finalizer. Tasks whose counter drops to zero are moved into the ready set, which is ordered by plan position, so tasks
+ * are handed out in the same order as a linear scan of the plan would hand them out.</p>
+ *
+ * <p>When task duration estimates are provided, the ready set is instead ordered by the estimated length of the longest chain of tasks that still has to run after
+ * each task, including the task itself. Starting the tasks on the critical path first keeps long dependency chains from being started late.</p>
+ *
+ * <p>This class is not thread-safe. Callers must hold the lock of the owning execution plan.</p>
+ */
+class ReadyTaskQueue {
+    private final Map<TaskInfo, Node> nodes = new IdentityHashMap<TaskInfo, Node>();
+    private final List<Node> nodesInPlanOrder = new ArrayList<Node>();
+    private final TreeSet<Node> ready = new TreeSet<Node>(new Comparator<Node>() {
+        public int compare(Node o1, Node o2) {
+            if (o1.remainingPathLength != o2.remainingPathLength) {
+                return o1.remainingPathLength > o2.remainingPathLength ? -1 : 1;
+            }
+            return o1.position - o2.position;
+        }
+    });
+    private int incompleteQueuedTasks;
+    private long criticalPathLength;
+    private long totalEstimatedDuration;
+
+    ReadyTaskQueue(Collection<TaskInfo> executionQueue) {
+        this(executionQueue, null);
+    }
+
+    /**
+     * @param durations The estimated duration of each task in milliseconds, or null to hand out tasks in plan order.
+     */
+    ReadyTaskQueue(Collection<TaskInfo> executionQueue, @Nullable Map<TaskInfo, Long> durations) {
+        int position = 0;
+        for (TaskInfo taskInfo : executionQueue) {
+            Node node = new Node(taskInfo, position++);
+            nodes.put(taskInfo, node);
+            nodesInPlanOrder.add(node);
+        }
+        for (Node node : nodesInPlanOrder) {
+            for (TaskInfo dependency : Iterables.concat(node.taskInfo.getMustSuccessors(), node.taskInfo.getDependencySuccessors())) {
+                Node dependencyNode = nodes.get(dependency);
+                if (dependencyNode != null) {
+                    dependencyNode.dependents.add(node);
+                }
+            }
+        }
+        if (durations != null) {
+            calculateRemainingPathLengths(durations);
+        }
+        for (Node node : nodesInPlanOrder) {
+            for (TaskInfo dependency : Iterables.concat(node.taskInfo.getMustSuccessors(), node.taskInfo.getDependencySuccessors())) {
+                if (!dependency.isComplete()) {
+                    node.remainingDependencies++;
+                }
+            }
+            if (node.remainingDependencies == 0) {
+                ready.add(node);
+            }
+            if (!node.taskInfo.isComplete()) {
+                incompleteQueuedTasks++;
+            }
+        }
+    }
+
+    /**
+     * Dependents always appear after their dependencies in the plan, so walking the plan backwards visits every dependent before the tasks it depends on.
+     * Tasks that are not going to run, such as finalizers that have not been triggered, do not contribute to the path lengths.
+     */
+    private void calculateRemainingPathLengths(Map<TaskInfo, Long> durations) {
+        for (int i = nodesInPlanOrder.size() - 1; i >= 0; i--) {
+            Node node = nodesInPlanOrder.get(i);
+            long longestDependentPath = 0;
+            for (Node dependent : node.dependents) {
+                longestDependentPath = Math.max(longestDependentPath, dependent.remainingPathLength);
+            }
+            long duration = 0;
+            if (!node.taskInfo.isComplete()) {
+                Long estimate = durations.get(node.taskInfo);
+                duration = estimate == null ? 0 : estimate;
+            }
+            node.remainingPathLength = duration + longestDependentPath;
+            totalEstimatedDuration += duration;
+            criticalPathLength = Math.max(criticalPathLength, node.remainingPathLength);
+        }
+    }
+
+    /**
+     * The estimated duration of the longest chain of dependent tasks in the plan, in milliseconds. Returns 0 when no durations were provided.
+     */
+    long getCriticalPathLength() {
+        return criticalPathLength;
+    }
+
+    /**
+     * The estimated sum of the durations of all tasks in the plan, in milliseconds. Returns 0 when no durations were provided.
+     */
+    long getTotalEstimatedDuration() {
+        return totalEstimatedDuration;
+    }
+
+    /**
+     * Returns true when every task still in the queue is complete, meaning there is nothing left to hand out.
+     */
+    boolean isExhausted() {
+        return incompleteQueuedTasks == 0;
+    }
+
+    /**
+     * The number of queued tasks whose dependencies are all complete. This is an upper bound for the number of tasks that can be started right now.
+     */
+    int getReadyCount() {
+        return ready.size();
+    }
+
+    /**
+     * Removes and returns the first ready-to-execute task, in priority order, that satisfies the given spec. Returns null when no such task exists.
+     */
+    TaskInfo selectNext(Spec<? super TaskInfo> canRun) {
+        Iterator<Node> iterator = ready.iterator();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            TaskInfo taskInfo = node.taskInfo;
+            if (!taskInfo.isReady()) {
+                // Will be added back if it is enforced later on
+                iterator.remove();
+                continue;
+            }
+            assert taskInfo.allDependenciesComplete();
+            if (canRun.isSatisfiedBy(taskInfo)) {
+                iterator.remove();
+                node.queued = false;
+                incompleteQueuedTasks--;
+                return taskInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Signals that the given task has moved from an incomplete state to a complete state.
+     */
+    void taskCompleted(TaskInfo taskInfo) {
+        Node node = nodes.get(taskInfo);
+        if (node == null) {
+            return;
+        }
+        if (node.queued) {
+            incompleteQueuedTasks--;
+        }
+        for (Node dependent : node.dependents) {
+            dependent.remainingDependencies--;
+            if (dependent.remainingDependencies == 0 && dependent.queued) {
+                ready.add(dependent);
+            }
+        }
+    }
+
+    /**
+     * Signals that the given, previously complete, task has been enforced to run and so has become incomplete again.
+     */
+    void taskEnforced(TaskInfo taskInfo) {
+        Node node = nodes.get(taskInfo);
+        if (node == null || !node.queued) {
+            return;
+        }
+        incompleteQueuedTasks++;
+        for (Node dependent : node.dependents) {
+            dependent.remainingDependencies++;
+            ready.remove(dependent);
+        }
+        if (node.remainingDependencies == 0) {
+            ready.add(node);
+        }
+    }
+
+    private static class Node {
+        private final TaskInfo taskInfo;
+        private final int position;
+        private final List<Node> dependents = new ArrayList<Node>();
+        private int remainingDependencies;
+        private long remainingPathLength;
+        private boolean queued = true;
+
+        private Node(TaskInfo taskInfo, int position) {
+            this.taskInfo = taskInfo;
+            this.position = position;
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.gradle.initialization;
 
 import org.gradle.StartParameter;
 import org.gradle.api.Transformer;
+import org.gradle.api.execution.TaskSchedulingStrategy;
 import org.gradle.api.internal.file.BasicFileResolver;
 import org.gradle.api.logging.configuration.LoggingConfiguration;
 import org.gradle.cli.AbstractCommandLineConverter;
@@ -51,6 +52,7 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
 
     private static final String PARALLEL = "parallel";
     private static final String MAX_WORKERS = "max-workers";
+    private static final String SCHEDULING = "scheduling";
 
     private static final String CONFIGURE_ON_DEMAND = "configure-on-demand";
 
@@ -90,6 +92,7 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
         parser.option(REFRESH_DEPENDENCIES).hasDescription("Refresh the state of dependencies.");
         parser.option(PARALLEL).hasDescription("Build projects in parallel. Gradle will attempt to determine the optimal number of executor threads to use.").incubating();
         parser.option(MAX_WORKERS).hasArgument().hasDescription("Configure the number of concurrent workers Gradle is allowed to use.").incubating();
+        parser.option(SCHEDULING).hasArgument().hasDescription("Specifies the order in which ready tasks are executed. Values are 'default' or 'critical-path'.").incubating();
         parser.option(CONFIGURE_ON_DEMAND).hasDescription("Only relevant projects are configured in this build run. This means faster build for large multi-project builds.").incubating();
         parser.option(CONTINUOUS, CONTINUOUS_SHORT_FLAG).hasDescription("Enables continuous build. Gradle does not exit and will re-execute tasks when task file inputs change.").incubating();
         parser.option(INCLUDE_BUILD).hasArguments().hasDescription("Includes the specified build in the composite.").incubating();
@@ -188,6 +191,10 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
             }
         }
 
+        if (options.hasOption(SCHEDULING)) {
+            startParameter.setTaskScheduling(toTaskSchedulingStrategy(options.option(SCHEDULING).getValue()));
+        }
+
         if (options.hasOption(CONFIGURE_ON_DEMAND)) {
             startParameter.setConfigureOnDemand(true);
         }
@@ -207,6 +214,16 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
         throw new CommandLineArgumentException(String.format("Argument value '%s' given for --%s option is invalid (must be a positive, non-zero, integer)", value, MAX_WORKERS));
     }
 
+    private TaskSchedulingStrategy toTaskSchedulingStrategy(String value) {
+        if (value.equals("default")) {
+            return TaskSchedulingStrategy.Default;
+        }
+        if (value.equals("critical-path")) {
+            return TaskSchedulingStrategy.CriticalPath;
+        }
+        throw new CommandLineArgumentException(String.format("Argument value '%s' given for --%s option is invalid (must be one of 'default', 'critical-path')", value, SCHEDULING));
+    }
+
     void convertCommandLineSystemProperties(Map<String, String> systemProperties, StartParameter startParameter, Transformer<File, String> resolver) {
         startParameter.getSystemPropertiesArgs().putAll(systemProperties);
         if (systemProperties.containsKey(GRADLE_USER_HOME_PROPERTY_KEY)) {
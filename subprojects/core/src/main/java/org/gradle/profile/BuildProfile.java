@@ -54,6 +54,9 @@ public class BuildProfile {
     private long buildFinished;
     private StartParameter startParameter;
     private boolean successful;
+    private boolean executionPlanEstimated;
+    private long estimatedCriticalPath;
+    private long estimatedTotalTaskDuration;
 
     public BuildProfile(StartParameter startParameter) {
         this.startParameter = startParameter;
@@ -242,6 +245,43 @@ public class BuildProfile {
         return result;
     }
 
+    /**
+     * Should be set with the estimates of the task execution plan, when critical path scheduling is used.
+     */
+    public void setExecutionPlanEstimate(long criticalPathLength, long totalTaskDuration) {
+        this.executionPlanEstimated = true;
+        this.estimatedCriticalPath = criticalPathLength;
+        this.estimatedTotalTaskDuration = totalTaskDuration;
+    }
+
+    public boolean isExecutionPlanEstimated() {
+        return executionPlanEstimated;
+    }
+
+    /**
+     * Get the predicted wall clock time (in mSec) of task execution. This is the estimated critical path, or the estimated total task time spread across all
+     * workers, whichever is longer.
+     */
+    public long getPredictedTaskExecutionMakespan() {
+        int workers = startParameter.isParallelProjectExecutionEnabled() ? startParameter.getMaxWorkerCount() : 1;
+        return Math.max(estimatedCriticalPath, estimatedTotalTaskDuration / workers);
+    }
+
+    /**
+     * Get the wall clock time (in mSec) between the start of the first task and the end of the last task.
+     */
+    public long getActualTaskExecutionMakespan() {
+        long firstStart = Long.MAX_VALUE;
+        long lastFinish = Long.MIN_VALUE;
+        for (ProjectProfile projectProfile : projects.values()) {
+            for (TaskExecution taskExecution : projectProfile.getTasks()) {
+                firstStart = Math.min(firstStart, taskExecution.getStartTime());
+                lastFinish = Math.max(lastFinish, taskExecution.getStartTime() + taskExecution.getElapsedTime());
+            }
+        }
+        return firstStart > lastFinish ? 0 : lastFinish - firstStart;
+    }
+
     public String getBuildStartedDescription() {
         return "Started on: " + DATE_FORMAT.format(buildStarted);
     }
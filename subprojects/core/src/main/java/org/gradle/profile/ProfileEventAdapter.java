@@ -27,6 +27,7 @@ import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.api.tasks.TaskState;
+import org.gradle.execution.taskgraph.TaskSchedulingListener;
 import org.gradle.initialization.BuildCompletionListener;
 import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.internal.TimeProvider;
@@ -34,7 +35,7 @@ import org.gradle.internal.TimeProvider;
 /**
  * Adapts various events to build a {@link BuildProfile} model, and then notifies a {@link ReportGeneratingProfileListener} when the model is ready.
  */
-public class ProfileEventAdapter implements BuildListener, ProjectEvaluationListener, TaskExecutionListener, DependencyResolutionListener, BuildCompletionListener {
+public class ProfileEventAdapter implements BuildListener, ProjectEvaluationListener, TaskExecutionListener, DependencyResolutionListener, BuildCompletionListener, TaskSchedulingListener {
     private final BuildRequestMetaData buildMetaData;
     private final TimeProvider timeProvider;
     private final ProfileListener listener;
@@ -110,6 +111,11 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
         taskExecution.completed(state);
     }
 
+    // TaskSchedulingListener
+    public void executionPlanEstimated(long criticalPathLength, long totalDuration) {
+        buildProfile.setExecutionPlanEstimate(criticalPathLength, totalDuration);
+    }
+
     // DependencyResolutionListener
     public void beforeResolve(ResolvableDependencies dependencies) {
         long now = timeProvider.getCurrentTime();
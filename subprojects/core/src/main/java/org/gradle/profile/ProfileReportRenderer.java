@@ -106,6 +106,16 @@ public class ProfileReportRenderer {
                                     htmlWriter.startElement("td").characters("Task Execution").endElement();
                                     htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(model.getElapsedTotalExecutionTime())).endElement();
                                 htmlWriter.endElement();
+                                if (model.isExecutionPlanEstimated()) {
+                                    htmlWriter.startElement("tr");
+                                        htmlWriter.startElement("td").characters("Task Execution Wall Clock (predicted)").endElement();
+                                        htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(model.getPredictedTaskExecutionMakespan())).endElement();
+                                    htmlWriter.endElement();
+                                    htmlWriter.startElement("tr");
+                                        htmlWriter.startElement("td").characters("Task Execution Wall Clock (actual)").endElement();
+                                        htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(model.getActualTaskExecutionMakespan())).endElement();
+                                    htmlWriter.endElement();
+                                }
                             htmlWriter.endElement();
                         htmlWriter.endElement();
                         htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab1");
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class CacheBackedTaskDurationRepositoryTest extends Specification {
+    final TaskArtifactStateCacheAccess cacheAccess = Mock()
+    final PersistentIndexedCache<String, Long> indexedCache = Mock()
+    final TaskInternal task = Stub() {
+        getPath() >> ":a"
+    }
+    TaskDurationRepository repository
+
+    def setup() {
+        1 * cacheAccess.createCache("taskDurations", String, _) >> indexedCache
+        _ * cacheAccess.useCache(_, _ as Factory) >> { String name, Factory factory -> factory.create() }
+        _ * cacheAccess.readCache(_, _) >> { String name, Factory factory -> factory.create() }
+        _ * cacheAccess.useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        repository = new CacheBackedTaskDurationRepository(cacheAccess)
+    }
+
+    def "returns null for task without recorded duration"() {
+        when:
+        def result = repository.getDuration(task)
+
+        then:
+        result == null
+        1 * indexedCache.get(":a") >> null
+    }
+
+    def "stores duration of first execution"() {
+        when:
+        repository.recordDuration(task, 120)
+
+        then:
+        1 * indexedCache.get(":a") >> null
+        1 * indexedCache.put(":a", 120)
+    }
+
+    def "averages duration with previous estimate"() {
+        when:
+        repository.recordDuration(task, 120)
+
+        then:
+        1 * indexedCache.get(":a") >> 80L
+        1 * indexedCache.put(":a", 100)
+    }
+}
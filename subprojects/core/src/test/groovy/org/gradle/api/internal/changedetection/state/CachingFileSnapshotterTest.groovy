@@ -18,9 +18,14 @@ package org.gradle.api.internal.changedetection.state
 
 import com.google.common.base.Charsets
 import com.google.common.hash.Hashing
+import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.hash.Hasher
+import org.gradle.api.internal.hash.HashingStrategy
 import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.serialize.InputStreamBackedDecoder
+import org.gradle.internal.serialize.OutputStreamBackedEncoder
 import org.gradle.internal.resource.TextResource
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -39,7 +44,7 @@ class CachingFileSnapshotterTest extends Specification {
     def setup() {
         file.write("some-content")
         1 * cacheAccess.createCache("fileHashes", _, _) >> cache
-        hasher = new CachingFileSnapshotter(target, cacheAccess, new StringInterner());
+        hasher = new CachingFileSnapshotter(target, HashingStrategy.MD5, cacheAccess, new StringInterner(), null, 1)
     }
 
     def hashesFileWhenHashNotCached() {
@@ -137,4 +142,110 @@ class CachingFileSnapshotterTest extends Specification {
         1 * resource.text >> "hello"
         0 * _._
     }
+
+    def hashesContentUsingHashingStrategy() {
+        def cacheAccess = Mock(TaskArtifactStateCacheAccess)
+        1 * cacheAccess.createCache("fileHashes", _, _) >> cache
+        def hasher = new CachingFileSnapshotter(target, HashingStrategy.MURMUR3_128, cacheAccess, new StringInterner(), null, 1)
+        def resource = Stub(TextResource) {
+            getText() >> "hello"
+        }
+
+        expect:
+        hasher.snapshot(resource).hash == Hashing.murmur3_128().hashString("hello", Charsets.UTF_8)
+    }
+
+    def ignoresCachedHashesCreatedUsingDifferentHashingStrategy() {
+        def fileInfo = new CachingFileSnapshotter.FileInfo(hash, 123, 456)
+        def md5Serializer = new CachingFileSnapshotter.FileInfoSerializer(HashingStrategy.MD5)
+        def murmurSerializer = new CachingFileSnapshotter.FileInfoSerializer(HashingStrategy.MURMUR3_128)
+        def outputStream = new ByteArrayOutputStream()
+        def encoder = new OutputStreamBackedEncoder(outputStream)
+
+        when:
+        md5Serializer.write(encoder, fileInfo)
+        encoder.flush()
+
+        then:
+        def md5Result = md5Serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(outputStream.toByteArray())))
+        md5Result.hash == hash
+        md5Result.length == 123
+        md5Result.timestamp == 456
+        murmurSerializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(outputStream.toByteArray()))) == null
+    }
+
+    def snapshotsBatchOfFilesHashingOnlyChangedFiles() {
+        def unchanged = tmpDir.createFile("unchanged")
+        unchanged.write("unchanged")
+        def details = [fileDetails(file), fileDetails(unchanged)]
+
+        when:
+        def result = hasher.snapshotAll(details)
+
+        then:
+        result*.hash == [hash, hash]
+
+        and:
+        1 * cache.get(file.getAbsolutePath()) >> null
+        1 * cache.get(unchanged.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, unchanged.length(), unchanged.lastModified())
+        1 * target.hash(file) >> hash
+        1 * cache.put(file.getAbsolutePath(), _)
+        0 * _._
+    }
+
+    def hashesBatchOfFilesUsingExecutor() {
+        def executor = new DefaultExecutorFactory().create("hashing", 3)
+        def cacheAccess = Mock(TaskArtifactStateCacheAccess)
+        def cache = Mock(PersistentIndexedCache)
+        1 * cacheAccess.createCache("fileHashes", _, _) >> cache
+        def hasher = new CachingFileSnapshotter(target, HashingStrategy.MD5, cacheAccess, new StringInterner(), executor, 3)
+        def files = (1..10).collect { tmpDir.createFile("file$it").write("content $it") }
+        def hashes = files.collect { Hashing.md5().hashString(it.name, Charsets.UTF_8) }
+
+        when:
+        def result = hasher.snapshotAll(files.collect { fileDetails(it) })
+
+        then:
+        result*.hash == hashes
+
+        and:
+        10 * cache.get(_) >> null
+        10 * target.hash(_) >> { File file -> Hashing.md5().hashString(file.name, Charsets.UTF_8) }
+        10 * cache.put(_, _)
+
+        cleanup:
+        hasher.stop()
+    }
+
+    def propagatesFailureToHashFileUsingExecutor() {
+        def executor = new DefaultExecutorFactory().create("hashing", 2)
+        def cacheAccess = Mock(TaskArtifactStateCacheAccess)
+        def cache = Mock(PersistentIndexedCache)
+        1 * cacheAccess.createCache("fileHashes", _, _) >> cache
+        def hasher = new CachingFileSnapshotter(target, HashingStrategy.MD5, cacheAccess, new StringInterner(), executor, 2)
+        def files = (1..4).collect { tmpDir.createFile("file$it").write("content $it") }
+        def failure = new RuntimeException("broken")
+
+        when:
+        hasher.snapshotAll(files.collect { fileDetails(it) })
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        and:
+        _ * target.hash(_) >> { File file -> if (file.name == "file4") { throw failure }; hash }
+        0 * cache.put(_, _)
+
+        cleanup:
+        hasher.stop()
+    }
+
+    private FileTreeElement fileDetails(File file) {
+        return Stub(FileTreeElement) {
+            getFile() >> file
+            getSize() >> file.length()
+            getLastModified() >> file.lastModified()
+        }
+    }
 }
@@ -56,6 +56,13 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
                 getHash() >> Files.asByteSource(file).hash(Hashing.md5())
             }
         }
+        fileSnapshotter.snapshotAll(_) >> { List<FileTreeElement> fileTreeElements ->
+            return fileTreeElements.collect { fileTreeElement ->
+                Stub(FileSnapshot) {
+                    getHash() >> Files.asByteSource(fileTreeElement.file).hash(Hashing.md5())
+                }
+            }
+        }
         cacheAccess.useCache(_, _) >> { String name, Runnable action ->
             action.run()
         }
@@ -32,12 +32,14 @@ class DefaultFileSnapshotterSerializerTest extends SerializerSpec {
     def "reads and writes the snapshot"() {
         when:
         def hash = Hashing.md5().hashString("foo", Charsets.UTF_8)
-        FileCollectionSnapshotImpl out = serialize(new FileCollectionSnapshotImpl([
+        def original = new FileCollectionSnapshotImpl([
             "1": DirSnapshot.getInstance(),
             "2": MissingFileSnapshot.getInstance(),
-            "3": new FileHashSnapshot(hash)], UNORDERED), serializer)
+            "3": new FileHashSnapshot(hash)], UNORDERED)
+        FileCollectionSnapshotImpl out = serialize(original, serializer)
 
         then:
+        out.hash == original.hash
         out.snapshots.size() == 3
         out.snapshots['1'] instanceof DirSnapshot
         out.snapshots['2'] instanceof MissingFileSnapshot
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import com.google.common.collect.ImmutableList
 import com.google.common.hash.HashCode
 import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder
 import spock.lang.Specification
@@ -78,4 +79,88 @@ class FileCollectionSnapshotImplTest extends Specification {
         1 * builder.putBytes(HashCode.fromInt(123).asBytes())
         0 * _
     }
+
+    def "order-insensitive collection snapshots with the same files have the same hash"() {
+        def oldSnapshot = new FileCollectionSnapshotImpl([
+            "file1.txt": new FileHashSnapshot(HashCode.fromInt(123)),
+            "file2.txt": new FileHashSnapshot(HashCode.fromInt(234)),
+        ], TaskFilePropertyCompareType.UNORDERED)
+        def newSnapshot = new FileCollectionSnapshotImpl([
+            "file2.txt": new FileHashSnapshot(HashCode.fromInt(234)),
+            "file1.txt": new FileHashSnapshot(HashCode.fromInt(123)),
+        ], TaskFilePropertyCompareType.UNORDERED)
+        def changedSnapshot = new FileCollectionSnapshotImpl([
+            "file1.txt": new FileHashSnapshot(HashCode.fromInt(123)),
+            "file2.txt": new FileHashSnapshot(HashCode.fromInt(345)),
+        ], TaskFilePropertyCompareType.UNORDERED)
+
+        expect:
+        oldSnapshot.hash == newSnapshot.hash
+        oldSnapshot.hash != changedSnapshot.hash
+    }
+
+    def "order-sensitive collection snapshots with the same files in a different order have different hashes"() {
+        def oldSnapshot = new FileCollectionSnapshotImpl([
+            "file1.txt": new FileHashSnapshot(HashCode.fromInt(123)),
+            "file2.txt": new FileHashSnapshot(HashCode.fromInt(234)),
+        ], TaskFilePropertyCompareType.ORDERED)
+        def sameSnapshot = new FileCollectionSnapshotImpl([
+            "file1.txt": new FileHashSnapshot(HashCode.fromInt(123)),
+            "file2.txt": new FileHashSnapshot(HashCode.fromInt(234)),
+        ], TaskFilePropertyCompareType.ORDERED)
+        def reorderedSnapshot = new FileCollectionSnapshotImpl([
+            "file2.txt": new FileHashSnapshot(HashCode.fromInt(234)),
+            "file1.txt": new FileHashSnapshot(HashCode.fromInt(123)),
+        ], TaskFilePropertyCompareType.ORDERED)
+
+        expect:
+        oldSnapshot.hash == sameSnapshot.hash
+        oldSnapshot.hash != reorderedSnapshot.hash
+    }
+
+    def "snapshot of trees has the same hash as a snapshot of the same files"() {
+        def treeSnapshot = new FileCollectionSnapshotImpl([
+            tree(new FileSnapshotWithKey("file1.txt", new FileHashSnapshot(HashCode.fromInt(123)))),
+            tree(new FileSnapshotWithKey("file2.txt", new FileHashSnapshot(HashCode.fromInt(234))), new FileSnapshotWithKey("file1.txt", new FileHashSnapshot(HashCode.fromInt(123)))),
+        ], compareType)
+        def mapSnapshot = new FileCollectionSnapshotImpl([
+            "file1.txt": new FileHashSnapshot(HashCode.fromInt(123)),
+            "file2.txt": new FileHashSnapshot(HashCode.fromInt(234)),
+        ], compareType)
+
+        expect:
+        treeSnapshot.hash == mapSnapshot.hash
+        treeSnapshot.snapshots == mapSnapshot.snapshots
+
+        where:
+        compareType << TaskFilePropertyCompareType.values()
+    }
+
+    def "does not compare individual files when hashes are the same"() {
+        def fileSnapshot = Mock(IncrementalFileSnapshot)
+        def newSnapshot = new FileCollectionSnapshotImpl([tree(new FileSnapshotWithKey("file1.txt", fileSnapshot))], TaskFilePropertyCompareType.UNORDERED)
+        def oldSnapshot = Mock(FileCollectionSnapshot)
+
+        when:
+        def changes = newSnapshot.iterateContentChangesSince(oldSnapshot, "TYPE")
+
+        then:
+        !changes.hasNext()
+        _ * fileSnapshot.hash >> HashCode.fromInt(123)
+        1 * oldSnapshot.hash >> { newSnapshot.hash }
+        0 * oldSnapshot.snapshots
+        0 * fileSnapshot.isContentUpToDate(_)
+    }
+
+    def "compares individual files when hashes are different"() {
+        def oldSnapshot = new FileCollectionSnapshotImpl([tree(new FileSnapshotWithKey("file1.txt", new FileHashSnapshot(HashCode.fromInt(123))))], TaskFilePropertyCompareType.UNORDERED)
+        def newSnapshot = new FileCollectionSnapshotImpl([tree(new FileSnapshotWithKey("file1.txt", new FileHashSnapshot(HashCode.fromInt(234))))], TaskFilePropertyCompareType.UNORDERED)
+
+        expect:
+        newSnapshot.iterateContentChangesSince(oldSnapshot, "TYPE")*.path == ["file1.txt"]
+    }
+
+    private static TreeSnapshot tree(FileSnapshotWithKey... fileSnapshots) {
+        new StoredTreeSnapshot(ImmutableList.copyOf(fileSnapshots), -1)
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.hash
+
+import com.google.common.base.Charsets
+import org.gradle.api.UncheckedIOException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DefaultHasherTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    @Unroll
+    def "hashes content of file prefixed with signature using #strategy"() {
+        def file = tmpDir.file("file")
+        file.bytes = content(size)
+
+        expect:
+        new DefaultHasher(strategy, false).hash(file) == expectedHash(strategy, file)
+        new DefaultHasher(strategy, true).hash(file) == expectedHash(strategy, file)
+
+        where:
+        [strategy, size] << [HashingStrategy.values(), [0, 1, DefaultHasher.BUFFER_SIZE, DefaultHasher.BUFFER_SIZE + 1, DefaultHasher.MAPPED_READ_THRESHOLD + 17]].combinations()
+    }
+
+    def "fails when file cannot be read"() {
+        def file = tmpDir.file("missing")
+
+        when:
+        new DefaultHasher(HashingStrategy.MD5).hash(file)
+
+        then:
+        UncheckedIOException e = thrown()
+        e.message == "Failed to create MD5 hash for file '$file'."
+    }
+
+    private static byte[] content(long size) {
+        def bytes = new byte[size as int]
+        new Random(size).nextBytes(bytes)
+        return bytes
+    }
+
+    private static expectedHash(HashingStrategy strategy, File file) {
+        def hasher = strategy.function.newHasher()
+        hasher.putBytes(strategy.function.hashString(DefaultHasher.name, Charsets.UTF_8).asBytes())
+        hasher.putBytes(file.bytes)
+        return hasher.hash()
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache
+
+import org.gradle.cache.internal.FileLock
+import org.gradle.cache.internal.FileLockManager
+import org.gradle.cache.internal.LockTimeoutException
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+
+class LocalDirectoryTaskOutputCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheDir = tmpDir.file("cache")
+    def fileLockManager = Mock(FileLockManager)
+    def fileLock = Mock(FileLock)
+    def cleanupActions = []
+    def executor = { Runnable action -> cleanupActions << action } as Executor
+    def cache = new LocalDirectoryTaskOutputCache(cacheDir, 100, fileLockManager, executor)
+
+    def "can store and load entry"() {
+        when:
+        cache.put(key("abc"), writer("content"))
+
+        then:
+        cacheDir.listFiles()*.name == ["abc"]
+        cache.get(key("abc")).read().text == "content"
+        cache.get(key("other")) == null
+    }
+
+    def "failed store does not leave partial entry"() {
+        when:
+        cache.put(key("abc"), { OutputStream output ->
+            output.write("partial".bytes)
+            throw new IOException("broken")
+        } as TaskOutputWriter)
+
+        then:
+        thrown(IOException)
+        cacheDir.listFiles().length == 0
+        cache.get(key("abc")) == null
+    }
+
+    def "loading entry marks it as recently used"() {
+        def entry = entry("abc", 10)
+        entry.lastModified = 1000
+
+        when:
+        cache.get(key("abc"))
+
+        then:
+        entry.lastModified() > 1000
+    }
+
+    def "schedules cleanup on first store"() {
+        when:
+        cache.put(key("abc"), writer("content"))
+
+        then:
+        cleanupActions.size() == 1
+
+        when:
+        cache.put(key("def"), writer("content"))
+
+        then:
+        cleanupActions.size() == 1
+    }
+
+    def "cleanup removes least recently used entries until cache is below maximum size"() {
+        def entry1 = entry("1", 40, 1000)
+        def entry2 = entry("2", 40, 4000)
+        def entry3 = entry("3", 40, 2000)
+        def entry4 = entry("4", 40, 3000)
+
+        when:
+        cache.cleanup()
+
+        then:
+        1 * fileLockManager.lock(cacheDir, { it.mode == FileLockManager.LockMode.Exclusive }, _, _) >> fileLock
+        _ * fileLock.isLockFile(_) >> false
+        1 * fileLock.close()
+
+        and:
+        !entry1.exists()
+        entry2.exists()
+        !entry3.exists()
+        entry4.exists()
+    }
+
+    def "cleanup leaves cache alone when below maximum size"() {
+        def entry1 = entry("1", 40, 1000)
+        def entry2 = entry("2", 40, 2000)
+
+        when:
+        cache.cleanup()
+
+        then:
+        1 * fileLockManager.lock(cacheDir, _, _, _) >> fileLock
+        _ * fileLock.isLockFile(_) >> false
+
+        and:
+        entry1.exists()
+        entry2.exists()
+    }
+
+    def "cleanup ignores lock file and removes stale temporary files"() {
+        def lockFile = entry("cache.lock", 200, 1000)
+        def staleTempFile = entry("1-123.part", 10, 1000)
+        def tempFile = entry("2-123.part", 10, System.currentTimeMillis())
+
+        when:
+        cache.cleanup()
+
+        then:
+        1 * fileLockManager.lock(cacheDir, _, _, _) >> fileLock
+        _ * fileLock.isLockFile(lockFile) >> true
+        _ * fileLock.isLockFile(_) >> false
+
+        and:
+        lockFile.exists()
+        !staleTempFile.exists()
+        tempFile.exists()
+    }
+
+    def "skips cleanup when cache is locked by another process"() {
+        def entry = entry("1", 200, 1000)
+
+        when:
+        cache.cleanup()
+
+        then:
+        1 * fileLockManager.lock(cacheDir, _, _, _) >> { throw new LockTimeoutException("locked") }
+
+        and:
+        entry.exists()
+    }
+
+    private TestFile entry(String name, int size, long lastModified = System.currentTimeMillis()) {
+        def file = cacheDir.file(name)
+        file.bytes = new byte[size]
+        file.lastModified = lastModified
+        return file
+    }
+
+    private TaskCacheKey key(String hashCode) {
+        return Stub(TaskCacheKey) {
+            getHashCode() >> hashCode
+        }
+    }
+
+    private static TaskOutputWriter writer(String content) {
+        return { OutputStream output -> output.write(content.bytes) } as TaskOutputWriter
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache
+
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.Deflater
+
+import static org.gradle.api.internal.tasks.TaskOutputFilePropertySpec.OutputType.DIRECTORY
+import static org.gradle.api.internal.tasks.TaskOutputFilePropertySpec.OutputType.FILE
+
+class StreamTaskOutputPackerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    @Unroll
+    def "can pack and unpack file and directory outputs (compress: #compress)"() {
+        def packer = new StreamTaskOutputPacker(TestFiles.fileSystem(), compress)
+        def sourceFile = tmpDir.file("source/file.txt")
+        sourceFile.text = "file content"
+        def sourceDir = tmpDir.createDir("source/dir")
+        sourceDir.file("a.txt").text = "a" * 200000
+        sourceDir.file("sub/b.bin").bytes = randomBytes(100000)
+        sourceDir.createDir("empty")
+
+        def targetFile = tmpDir.file("target/file.txt")
+        def targetDir = tmpDir.file("target/dir")
+
+        when:
+        def packed = pack(packer, outputs(file: sourceFile, dir: sourceDir))
+        unpack(packer, outputs(file: targetFile, dir: targetDir), packed)
+
+        then:
+        targetFile.text == "file content"
+        targetDir.file("a.txt").text == "a" * 200000
+        targetDir.file("sub/b.bin").bytes == sourceDir.file("sub/b.bin").bytes
+        targetDir.file("empty").directory
+
+        where:
+        compress << [false, true]
+    }
+
+    def "compresses compressible content only"() {
+        def file = tmpDir.file("file")
+
+        when:
+        file.text = "a" * 200000
+        def compressed = pack(new StreamTaskOutputPacker(TestFiles.fileSystem(), true), outputs(file: file))
+        def stored = pack(new StreamTaskOutputPacker(TestFiles.fileSystem(), false), outputs(file: file))
+
+        then:
+        compressed.length < stored.length / 10
+
+        when:
+        file.bytes = randomBytes(200000)
+        compressed = pack(new StreamTaskOutputPacker(TestFiles.fileSystem(), true), outputs(file: file))
+        stored = pack(new StreamTaskOutputPacker(TestFiles.fileSystem(), false), outputs(file: file))
+
+        then:
+        compressed.length == stored.length
+    }
+
+    def "stops deflating a file once a chunk does not compress"() {
+        def deflatedChunks = new AtomicInteger()
+        def packer = new StreamTaskOutputPacker(TestFiles.fileSystem(), true) {
+            @Override
+            protected Deflater createDeflater() {
+                return new Deflater(Deflater.BEST_SPEED) {
+                    @Override
+                    void setInput(byte[] input, int offset, int length) {
+                        deflatedChunks.incrementAndGet()
+                        super.setInput(input, offset, length)
+                    }
+                }
+            }
+        }
+        def dir = tmpDir.createDir("dir")
+        dir.file("random.bin").bytes = randomBytes(1000000)
+        dir.file("text.txt").text = "a" * 200000
+
+        when:
+        pack(packer, outputs(dir: dir))
+
+        then:
+        // One chunk of the random file, and all four chunks of the text file
+        deflatedChunks.get() == 5
+    }
+
+    @Requires(TestPrecondition.FILE_PERMISSIONS)
+    def "preserves file permissions"() {
+        def packer = new StreamTaskOutputPacker(TestFiles.fileSystem(), true)
+        def sourceDir = tmpDir.createDir("source")
+        sourceDir.file("script.sh").createFile().mode = 0755
+        sourceDir.file("secret.txt").createFile().mode = 0600
+        def targetDir = tmpDir.file("target")
+
+        when:
+        unpack(packer, outputs(dir: targetDir), pack(packer, outputs(dir: sourceDir)))
+
+        then:
+        targetDir.file("script.sh").mode == 0755
+        targetDir.file("secret.txt").mode == 0600
+    }
+
+    def "fails when unpacking output for unknown property"() {
+        def packer = new StreamTaskOutputPacker(TestFiles.fileSystem(), false)
+        def file = tmpDir.createFile("file")
+        def packed = pack(packer, outputs(file: file))
+
+        when:
+        unpack(packer, outputs(other: file), packed)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "No output property 'file' registered"
+    }
+
+    @Unroll
+    def "#unpacker.format packer fails to unpack output packed by #packer.format packer"() {
+        def file = tmpDir.file("source/file.txt")
+        file.text = "file content"
+        def dir = tmpDir.createDir("source/dir")
+        dir.file("a.txt").text = "a"
+        def targetFile = tmpDir.file("target/file.txt")
+        def targetDir = tmpDir.file("target/dir")
+        def packed = pack(packer, outputs(file: file, dir: dir))
+
+        when:
+        unpack(unpacker, outputs(file: targetFile, dir: targetDir), packed)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message == "Cached task output is not in the expected format"
+        !targetFile.exists()
+        !targetDir.exists()
+
+        where:
+        packer                                                   | unpacker
+        new StreamTaskOutputPacker(TestFiles.fileSystem(), true) | new ZipTaskOutputPacker()
+        new ZipTaskOutputPacker()                                | new StreamTaskOutputPacker(TestFiles.fileSystem(), true)
+    }
+
+    def "packers that cannot read each other's output have different formats"() {
+        expect:
+        new StreamTaskOutputPacker(TestFiles.fileSystem(), true).format == new StreamTaskOutputPacker(TestFiles.fileSystem(), false).format
+        new StreamTaskOutputPacker(TestFiles.fileSystem(), false).format != new ZipTaskOutputPacker().format
+    }
+
+    private byte[] pack(TaskOutputPacker packer, TaskOutputsInternal outputs) {
+        def output = new ByteArrayOutputStream()
+        packer.createWriter(outputs).writeTo(output)
+        return output.toByteArray()
+    }
+
+    private void unpack(TaskOutputPacker packer, TaskOutputsInternal outputs, byte[] packed) {
+        packer.unpack(outputs, { new ByteArrayInputStream(packed) } as TaskOutputReader)
+    }
+
+    private TaskOutputsInternal outputs(Map<String, TestFile> files) {
+        def specs = new TreeSet<TaskOutputFilePropertySpec>()
+        files.each { String name, TestFile file ->
+            def type = name == "dir" || (file.exists() && file.directory) ? DIRECTORY : FILE
+            specs << Stub(TaskOutputFilePropertySpec) {
+                getPropertyName() >> name
+                getOutputFile() >> file
+                getOutputType() >> type
+                compareTo(_) >> { TaskOutputFilePropertySpec other -> name <=> other.propertyName }
+            }
+        }
+        return Stub(TaskOutputsInternal) {
+            getFileProperties() >> specs
+        }
+    }
+
+    private static byte[] randomBytes(int count) {
+        def bytes = new byte[count]
+        new Random(count).nextBytes(bytes)
+        return bytes
+    }
+}
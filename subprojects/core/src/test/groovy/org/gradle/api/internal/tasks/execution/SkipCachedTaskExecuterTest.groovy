@@ -25,7 +25,7 @@ import org.gradle.api.internal.changedetection.TaskArtifactState
 import org.gradle.api.internal.tasks.TaskExecuter
 import org.gradle.api.internal.tasks.TaskExecutionContext
 import org.gradle.api.internal.tasks.TaskStateInternal
-import org.gradle.api.internal.tasks.cache.TaskCacheKey
+import org.gradle.api.internal.tasks.cache.DefaultTaskCacheKeyBuilder
 import org.gradle.api.internal.tasks.cache.TaskOutputCache
 import org.gradle.api.internal.tasks.cache.TaskOutputCacheFactory
 import org.gradle.api.internal.tasks.cache.TaskOutputPacker
@@ -48,9 +48,10 @@ public class SkipCachedTaskExecuterTest extends Specification {
     def taskCaching = Mock(TaskCachingInternal)
     def taskOutputPacker = Mock(TaskOutputPacker)
     def startParameter = Mock(StartParameter)
-    def cacheKey = Mock(TaskCacheKey)
+    def cacheKey = new DefaultTaskCacheKeyBuilder().putString("task").build()
+    def packerCacheKey = new DefaultTaskCacheKeyBuilder().putString(cacheKey.hashCode).putString("test-format").build().hashCode
 
-    def executer = new SkipCachedTaskExecuter(taskCaching, taskOutputPacker, startParameter, delegate)
+    def executer = new SkipCachedTaskExecuter(taskCaching, startParameter, delegate)
 
     def "skip task when cached results exist"() {
         def cachedResult = Mock(TaskOutputReader)
@@ -65,11 +66,13 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         1 * taskContext.getTaskArtifactState() >> taskArtifactState
         1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * taskCaching.getPacker() >> taskOutputPacker
+        1 * taskOutputPacker.getFormat() >> "test-format"
 
         1 * taskCaching.getCacheFactory() >> taskOutputCacheFactory
         1 * taskOutputCacheFactory.createCache(_) >> taskOutputCache
         1 * taskOutputCache.getDescription() >> "test"
-        1 * taskOutputCache.get(cacheKey) >> cachedResult
+        1 * taskOutputCache.get({ it.hashCode == packerCacheKey }) >> cachedResult
         1 * taskOutputPacker.unpack(outputs, cachedResult)
         1 * taskState.upToDate("FROM-CACHE")
         0 * _
@@ -88,11 +91,13 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         1 * taskContext.getTaskArtifactState() >> taskArtifactState
         1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * taskCaching.getPacker() >> taskOutputPacker
+        1 * taskOutputPacker.getFormat() >> "test-format"
 
         1 * taskCaching.getCacheFactory() >> taskOutputCacheFactory
         1 * taskOutputCacheFactory.createCache(_) >> taskOutputCache
         1 * taskOutputCache.getDescription() >> "test"
-        1 * taskOutputCache.get(cacheKey) >> null
+        1 * taskOutputCache.get({ it.hashCode == packerCacheKey }) >> null
 
         then:
         1 * delegate.execute(task, taskState, taskContext)
@@ -100,7 +105,7 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         then:
         1 * taskOutputPacker.createWriter(outputs) >> cachedResult
-        1 * taskOutputCache.put(cacheKey, cachedResult)
+        1 * taskOutputCache.put({ it.hashCode == packerCacheKey }, cachedResult)
         0 * _
     }
 
@@ -115,11 +120,13 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         1 * taskContext.getTaskArtifactState() >> taskArtifactState
         1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * taskCaching.getPacker() >> taskOutputPacker
+        1 * taskOutputPacker.getFormat() >> "test-format"
 
         1 * taskCaching.getCacheFactory() >> taskOutputCacheFactory
         1 * taskOutputCacheFactory.createCache(_) >> taskOutputCache
         1 * taskOutputCache.getDescription() >> "test"
-        1 * taskOutputCache.get(cacheKey) >> null
+        1 * taskOutputCache.get({ it.hashCode == packerCacheKey }) >> null
 
         then:
         1 * delegate.execute(task, taskState, taskContext)
@@ -199,11 +206,13 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         1 * taskContext.getTaskArtifactState() >> taskArtifactState
         1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * taskCaching.getPacker() >> taskOutputPacker
+        1 * taskOutputPacker.getFormat() >> "test-format"
 
         1 * taskCaching.getCacheFactory() >> taskOutputCacheFactory
         1 * taskOutputCacheFactory.createCache(_) >> taskOutputCache
         1 * taskOutputCache.getDescription() >> "test"
-        1 * taskOutputCache.get(cacheKey) >> { throw new RuntimeException("Bad cache") }
+        1 * taskOutputCache.get({ it.hashCode == packerCacheKey }) >> { throw new RuntimeException("Bad cache") }
 
         then:
         1 * delegate.execute(task, taskState, taskContext)
@@ -211,7 +220,7 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         then:
         1 * taskOutputPacker.createWriter(outputs) >> cachedResult
-        1 * taskOutputCache.put(cacheKey, cachedResult)
+        1 * taskOutputCache.put({ it.hashCode == packerCacheKey }, cachedResult)
         0 * _
     }
 
@@ -229,11 +238,13 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         1 * taskContext.getTaskArtifactState() >> taskArtifactState
         1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * taskCaching.getPacker() >> taskOutputPacker
+        1 * taskOutputPacker.getFormat() >> "test-format"
 
         1 * taskCaching.getCacheFactory() >> taskOutputCacheFactory
         1 * taskOutputCacheFactory.createCache(_) >> taskOutputCache
         1 * taskOutputCache.getDescription() >> "test"
-        1 * taskOutputCache.get(cacheKey) >> foundResult
+        1 * taskOutputCache.get({ it.hashCode == packerCacheKey }) >> foundResult
         1 * taskOutputPacker.unpack(outputs, foundResult) >> { throw new RuntimeException("Bad result") }
 
         then:
@@ -242,7 +253,7 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         then:
         1 * taskOutputPacker.createWriter(outputs) >> cachedResult
-        1 * taskOutputCache.put(cacheKey, cachedResult)
+        1 * taskOutputCache.put({ it.hashCode == packerCacheKey }, cachedResult)
         0 * _
     }
 
@@ -259,11 +270,13 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         1 * taskContext.getTaskArtifactState() >> taskArtifactState
         1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * taskCaching.getPacker() >> taskOutputPacker
+        1 * taskOutputPacker.getFormat() >> "test-format"
 
         1 * taskCaching.getCacheFactory() >> taskOutputCacheFactory
         1 * taskOutputCacheFactory.createCache(_) >> taskOutputCache
         1 * taskOutputCache.getDescription() >> "test"
-        1 * taskOutputCache.get(cacheKey) >> null
+        1 * taskOutputCache.get({ it.hashCode == packerCacheKey }) >> null
 
         then:
         1 * delegate.execute(task, taskState, taskContext)
@@ -271,7 +284,7 @@ public class SkipCachedTaskExecuterTest extends Specification {
 
         then:
         1 * taskOutputPacker.createWriter(outputs) >> cachedResult
-        1 * taskOutputCache.put(cacheKey, cachedResult) >> { throw new RuntimeException("Bad result") }
+        1 * taskOutputCache.put({ it.hashCode == packerCacheKey }, cachedResult) >> { throw new RuntimeException("Bad result") }
         0 * _
     }
 }
@@ -41,7 +41,7 @@ abstract class AbstractFileLockManagerTest extends Specification {
     def generator = Stub(IdGenerator)
     def contentionHandler = Stub(FileLockContentionHandler)
 
-    FileLockManager manager = new DefaultFileLockManager(metaDataProvider, 5000, contentionHandler, generator)
+    FileLockManager manager = new DefaultFileLockManager(metaDataProvider, 5000, contentionHandler, 0, generator)
 
     TestFile testFile
     TestFile testFileLock
@@ -444,7 +444,7 @@ abstract class AbstractFileLockManagerTest extends Specification {
         def customMetaDataProvider = Mock(ProcessMetaDataProvider)
         def processIdentifier = RandomStringUtils.randomAlphanumeric(1000)
         1 * customMetaDataProvider.processIdentifier >> processIdentifier
-        def customManager = new DefaultFileLockManager(customMetaDataProvider, 5000, contentionHandler, generator)
+        def customManager = new DefaultFileLockManager(customMetaDataProvider, 5000, contentionHandler, 0, generator)
         def operationalDisplayName = RandomStringUtils.randomAlphanumeric(1000)
 
         when:
@@ -483,6 +483,64 @@ abstract class AbstractFileLockManagerTest extends Specification {
         lock?.close()
     }
 
+    def "releases lock when contended after lease has expired"() {
+        given:
+        def contentionAction = Mock(Runnable)
+        def leasingHandler = Stub(FileLockContentionHandler)
+        Runnable onContended = null
+        leasingHandler.reservePort() >> 34
+        leasingHandler.start(678L, _) >> { long lockId, Runnable action -> onContended = action }
+        def leasingManager = new DefaultFileLockManager(metaDataProvider, 5000, leasingHandler, 0, generator)
+        def lock = createLock(Exclusive, testFile, leasingManager)
+        leasingManager.allowContention(lock, contentionAction)
+
+        when:
+        onContended.run()
+
+        then:
+        1 * contentionAction.run()
+    }
+
+    def "defers contention requests until lease has expired"() {
+        given:
+        def contentionAction = Mock(Runnable)
+        def leasingHandler = Stub(FileLockContentionHandler)
+        Runnable onContended = null
+        leasingHandler.reservePort() >> 34
+        leasingHandler.start(678L, _) >> { long lockId, Runnable action -> onContended = action }
+        def leasingManager = new DefaultFileLockManager(metaDataProvider, 5000, leasingHandler, 500, generator)
+        def lock = createLock(Exclusive, testFile, leasingManager)
+        leasingManager.allowContention(lock, contentionAction)
+
+        when:
+        onContended.run()
+        onContended.run()
+
+        then:
+        0 * contentionAction.run()
+        leasingManager.getStatistics(testFile).deferredCount == 2
+
+        when:
+        Thread.sleep(600)
+        onContended.run()
+
+        then:
+        1 * contentionAction.run()
+    }
+
+    def "records lock wait and hold times per target"() {
+        when:
+        createLock(Exclusive).close()
+        createLock(Shared).close()
+
+        then:
+        def statistics = manager.getStatistics(testFile)
+        statistics.acquiredCount == 2
+        statistics.waitMs >= 0
+        statistics.holdMs >= 0
+        manager.getStatistics(testDir).acquiredCount == 0
+    }
+
     void isEmptyLockFile(TestFile lockFile) {
         assert lockFile.isFile()
         assert lockFile.length() == 0
@@ -552,4 +552,76 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         1 * lock.close()
     }
 
+    def "read cache action does not wait for the owner when the lock is held"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", _) >> lock
+        lock.readFile(_) >> { Factory factory -> factory.create() }
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        backingCache.get("key") >> 12
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class))
+        access.useCache("use cache", { cache.get("key") })
+
+        when:
+        async {
+            start {
+                access.useCache("long operation") {
+                    instant.owned
+                    // Blocks forever if the read waits for this action to complete
+                    thread.blockUntil.read
+                }
+            }
+            start {
+                thread.blockUntil.owned
+                assert access.readCache("read cache", { cache.get("key") }) == 12
+                assert access.owner != Thread.currentThread()
+                instant.read
+            }
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "read cache action acquires the lock when it is not held"() {
+        Factory<String> action = Mock()
+
+        when:
+        access.open(mode(None))
+        def result = access.readCache("read cache", action)
+
+        then:
+        1 * lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "read cache") >> lock
+        1 * action.create() >> {
+            assert access.owner == Thread.currentThread()
+            return "result"
+        }
+
+        and:
+        result == "result"
+        !access.owner
+    }
+
+    def "read cache action is run again with exclusive access when it needs to write to the cache"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", _) >> lock
+        lock.readFile(_) >> { Factory factory -> factory.create() }
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        backingCache.get("key") >> 12
+        access.open(mode(None))
+        access.useCache("use cache", {})
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class))
+        def owners = []
+
+        when:
+        def result = access.readCache("read cache", {
+            owners << access.owner
+            // Opens the cache, which requires exclusive access
+            cache.get("key")
+        } as Factory)
+
+        then:
+        result == 12
+        owners == [null, Thread.currentThread()]
+    }
 }
\ No newline at end of file
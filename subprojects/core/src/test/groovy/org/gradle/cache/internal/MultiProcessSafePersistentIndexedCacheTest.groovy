@@ -128,10 +128,92 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
         0 * _._
     }
 
-    def cacheOpened() {
+    def "buffers entries put into write-behind cache until closed"() {
+        given:
+        def writeBehindCache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess, true)
+
+        when:
+        writeBehindCache.put("key1", "value1")
+        writeBehindCache.put("key2", "value2")
+        writeBehindCache.put("key1", "value3")
+
+        then:
+        0 * _._
+
+        when:
+        def result = writeBehindCache.get("key1")
+
+        then:
+        result == "value3"
+        0 * _._
+
+        when:
+        writeBehindCache.close()
+
+        then:
+        2 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * factory.create() >> backingCache
+        1 * backingCache.putAll([key1: "value3", key2: "value2"])
+
+        then:
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.close()
+        0 * _._
+    }
+
+    def "discards buffered entry when entry is removed from write-behind cache"() {
+        given:
+        def writeBehindCache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess, true)
+        writeBehindCache.put("key", "value")
+
+        when:
+        writeBehindCache.remove("key")
+
+        then:
+        2 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
         1 * factory.create() >> backingCache
-        
+        1 * backingCache.remove("key")
+        0 * _._
+
+        when:
+        writeBehindCache.close()
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.close()
+        0 * _._
+    }
+
+    def "writes buffered entries when too many entries are buffered"() {
+        given:
+        def writeBehindCache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess, true)
+        cacheOpened(writeBehindCache)
+
+        when:
+        1000.times { writeBehindCache.put("key${it}", "value${it}") }
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.putAll({ it.size() == 1000 })
+        0 * _._
+
+        when:
+        writeBehindCache.close()
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.close()
+        0 * _._
+    }
+
+    def cacheOpened(def cache) {
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * factory.create() >> backingCache
+
         cache.get("something")
     }
+
+    def cacheOpened() {
+        cacheOpened(cache)
+    }
 }
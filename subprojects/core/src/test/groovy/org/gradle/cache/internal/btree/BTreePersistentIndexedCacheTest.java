@@ -27,6 +27,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertNull;
@@ -278,6 +282,62 @@ public class BTreePersistentIndexedCacheTest {
         cache.close();
     }
 
+    @Test
+    public void persistsEntriesAddedInBatch() {
+        createCache();
+
+        Map<String, Integer> entries = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 20; i++) {
+            entries.put(String.format("key_%d", i), i);
+        }
+        cache.put("key_3", 100);
+        cache.putAll(entries);
+
+        cache.reset();
+
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            assertThat(cache.get(entry.getKey()), equalTo(entry.getValue()));
+        }
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void canReadEntriesFromMultipleThreadsConcurrently() throws Exception {
+        createCache();
+
+        final Map<String, Integer> entries = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 100; i++) {
+            entries.put(String.format("key_%d", i), i);
+        }
+        cache.putAll(entries);
+        cache.reset();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() {
+                        for (int j = 0; j < 10; j++) {
+                            for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+                                if (!entry.getValue().equals(cache.get(entry.getKey()))) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(), equalTo(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verifyAndCloseCache();
+    }
+
     @Test
     public void handlesKeysWithSameHashCode() {
         createCache();
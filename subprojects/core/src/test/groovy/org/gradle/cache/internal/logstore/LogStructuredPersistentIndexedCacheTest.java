@@ -0,0 +1,263 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal.logstore;
+
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.test.fixtures.file.TestFile;
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class LogStructuredPersistentIndexedCacheTest {
+    @Rule
+    public TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider();
+    private final Serializer<String> stringSerializer = new DefaultSerializer<String>();
+    private LogStructuredPersistentIndexedCache<String, String> cache;
+    private TestFile cacheFile;
+
+    @Before
+    public void setup() {
+        cacheFile = tmpDir.file("cache.log");
+    }
+
+    private void createCache() {
+        cache = new LogStructuredPersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer);
+    }
+
+    private void verifyAndCloseCache() {
+        cache.verify();
+        cache.close();
+    }
+
+    @Test
+    public void getReturnsNullWhenEntryDoesNotExist() {
+        createCache();
+        assertNull(cache.get("unknown"));
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void persistsAddedEntries() {
+        createCache();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("a", "3");
+        assertThat(cache.get("a"), equalTo("3"));
+        assertThat(cache.get("b"), equalTo("2"));
+        verifyAndCloseCache();
+
+        createCache();
+        assertThat(cache.get("a"), equalTo("3"));
+        assertThat(cache.get("b"), equalTo("2"));
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void persistsAddedBatchOfEntries() {
+        Map<String, String> entries = new LinkedHashMap<String, String>();
+        for (int i = 0; i < 100; i++) {
+            entries.put("key" + i, "value" + i);
+        }
+
+        createCache();
+        cache.putAll(entries);
+        verifyAndCloseCache();
+
+        createCache();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            assertThat(cache.get(entry.getKey()), equalTo(entry.getValue()));
+        }
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void persistsRemovedEntries() {
+        createCache();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.remove("a");
+        cache.remove("unknown");
+        assertNull(cache.get("a"));
+        verifyAndCloseCache();
+
+        createCache();
+        assertNull(cache.get("a"));
+        assertThat(cache.get("b"), equalTo("2"));
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void canReadEntriesAppendedAfterTheLogWasMapped() {
+        createCache();
+        for (int i = 0; i < 5000; i++) {
+            cache.put("key" + i, largeValue(i));
+            assertThat(cache.get("key" + (i / 2)), equalTo(largeValue(i / 2)));
+        }
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void discardsTruncatedEntryAtEndOfLog() throws IOException {
+        createCache();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.close();
+
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+        try {
+            file.setLength(file.length() - 1);
+        } finally {
+            file.close();
+        }
+
+        createCache();
+        assertThat(cache.get("a"), equalTo("1"));
+        assertNull(cache.get("b"));
+        cache.put("c", "3");
+        verifyAndCloseCache();
+
+        createCache();
+        assertThat(cache.get("a"), equalTo("1"));
+        assertThat(cache.get("c"), equalTo("3"));
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void discardsEntriesFromCorruptEntryOnwards() throws IOException {
+        createCache();
+        cache.put("a", "1");
+        long corruptOffset = cacheFile.length() + 14;
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.close();
+
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+        try {
+            file.seek(corruptOffset);
+            int b = file.read();
+            file.seek(corruptOffset);
+            file.write(b ^ 0xff);
+        } finally {
+            file.close();
+        }
+
+        createCache();
+        assertThat(cache.get("a"), equalTo("1"));
+        assertNull(cache.get("b"));
+        assertNull(cache.get("c"));
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void discardsLogWithCorruptHeader() {
+        cacheFile.write("not a log");
+
+        createCache();
+        assertNull(cache.get("a"));
+        cache.put("a", "1");
+        verifyAndCloseCache();
+
+        createCache();
+        assertThat(cache.get("a"), equalTo("1"));
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void compactsLogOnCloseWhenMostEntriesAreStale() {
+        createCache();
+        for (int i = 0; i < 4000; i++) {
+            cache.put("key" + (i % 10), largeValue(i));
+        }
+        long uncompactedLength = cacheFile.length();
+        verifyAndCloseCache();
+
+        assertThat(cacheFile.length(), lessThan(uncompactedLength / 10));
+        assertFalse(tmpDir.file("cache.log.compacted").exists());
+
+        createCache();
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("key" + i), equalTo(largeValue(3990 + i)));
+        }
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void usesCompactedLogWhenProcessStoppedBeforeReplacingTheLog() {
+        createCache();
+        for (int i = 0; i < 4000; i++) {
+            cache.put("key" + (i % 10), largeValue(i));
+        }
+        cache.close();
+        // Simulate a crash after the old log was deleted, but before the compacted log was renamed
+        cacheFile.renameTo(tmpDir.file("cache.log.compacted"));
+
+        createCache();
+        assertTrue(cacheFile.exists());
+        assertFalse(tmpDir.file("cache.log.compacted").exists());
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("key" + i), equalTo(largeValue(3990 + i)));
+        }
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void discardsCompactedLogWhenProcessStoppedBeforeCompactionCompleted() {
+        createCache();
+        cache.put("a", "1");
+        cache.close();
+        tmpDir.file("cache.log.compacted").write("partial");
+
+        createCache();
+        assertFalse(tmpDir.file("cache.log.compacted").exists());
+        assertThat(cache.get("a"), equalTo("1"));
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void canUseCacheAfterReset() {
+        createCache();
+        cache.put("a", "1");
+        cache.reset();
+        assertTrue(cache.isOpen());
+        assertThat(cache.get("a"), equalTo("1"));
+        verifyAndCloseCache();
+        assertFalse(cache.isOpen());
+    }
+
+    private static String largeValue(int i) {
+        StringBuilder builder = new StringBuilder();
+        for (int j = 0; j < 100; j++) {
+            builder.append(i).append(':');
+        }
+        return builder.toString();
+    }
+}
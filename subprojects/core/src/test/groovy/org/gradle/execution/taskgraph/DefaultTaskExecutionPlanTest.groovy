@@ -21,6 +21,7 @@ import org.gradle.api.CircularReferenceException
 import org.gradle.api.Task
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.api.specs.Spec
@@ -45,7 +46,11 @@ public class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
 
     def setup() {
         root = createRootProject(temporaryFolder.testDirectory);
-        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler)
+        executionPlan = createExecutionPlan(cancellationHandler)
+    }
+
+    protected DefaultTaskExecutionPlan createExecutionPlan(BuildCancellationToken cancellationToken) {
+        new DefaultTaskExecutionPlan(cancellationToken, false, false)
     }
 
     private void addToGraphAndPopulate(List tasks) {
@@ -885,6 +890,48 @@ public class DefaultTaskExecutionPlanTest extends AbstractProjectBuilderSpec {
         t3.task.project != t4.task.project
     }
 
+    def "hands out tasks on the critical path first when using critical path scheduling"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d", dependsOn: [c])
+        executionPlan.useCriticalPathScheduling(Stub(TaskDurationRepository) {
+            getDuration(a) >> 100L
+            getDuration(b) >> 10L
+            getDuration(c) >> 50L
+            getDuration(d) >> 50L
+        })
+
+        when:
+        addToGraphAndPopulate([a, d])
+
+        then:
+        executes(a, b, c, d)
+        executionPlan.estimatedCriticalPathLength == 110
+        executionPlan.estimatedTotalDuration == 210
+        executedTasks == [b, a, c, d]
+    }
+
+    def "uses average duration for tasks without history when using critical path scheduling"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        executionPlan.useCriticalPathScheduling(Stub(TaskDurationRepository) {
+            getDuration(a) >> 30L
+            getDuration(b) >> 10L
+        })
+
+        when:
+        addToGraphAndPopulate([a, c])
+
+        then:
+        executionPlan.estimatedCriticalPathLength == 30
+        executionPlan.estimatedTotalDuration == 60
+        executedTasks == [a, b, c]
+    }
+
     void executes(Task... expectedTasks) {
         assert executionPlan.tasks == expectedTasks as List
         assert expectedTasks == expectedTasks as List
@@ -23,6 +23,7 @@ import org.gradle.api.execution.TaskExecutionGraphListener;
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.execution.internal.InternalTaskExecutionListener;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.TaskDurationRepository;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.DefaultTaskDependency;
 import org.gradle.api.internal.tasks.DefaultTaskOutputs;
@@ -55,7 +56,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.gradle.util.TestUtil.toClosure;
 import static org.gradle.util.WrapUtil.toList;
@@ -447,6 +450,55 @@ public class DefaultTaskGraphExecuterTest {
         assertThat(executedTasks, equalTo(toList(a, c)));
     }
 
+    @Test
+    public void recordsDurationOfExecutedTasksWhenUsingCriticalPathScheduling() {
+        InMemoryTaskDurationRepository taskDurations = new InMemoryTaskDurationRepository();
+        taskDurations.durations.put(":a", 500L);
+        Task a = task("a");
+        skipped(a, false);
+
+        final TaskSchedulingListener schedulingListener = context.mock(TaskSchedulingListener.class);
+        context.checking(new Expectations() {{
+            ignoring(schedulingListener);
+        }});
+        taskExecuter.useCriticalPathScheduling(taskDurations, schedulingListener);
+        taskExecuter.addTasks(toList(a));
+        taskExecuter.execute();
+
+        assertThat(executedTasks, equalTo(toList(a)));
+        assertThat(taskDurations.durations.get(":a"), lessThan(500L));
+    }
+
+    @Test
+    public void doesNotRecordDurationOfUpToDateTasksWhenUsingCriticalPathScheduling() {
+        InMemoryTaskDurationRepository taskDurations = new InMemoryTaskDurationRepository();
+        taskDurations.durations.put(":a", 500L);
+        Task a = task("a");
+        Task b = task("b");
+        skipped(a, true);
+        skipped(b, true);
+
+        final TaskSchedulingListener schedulingListener = context.mock(TaskSchedulingListener.class);
+        context.checking(new Expectations() {{
+            ignoring(schedulingListener);
+        }});
+        taskExecuter.useCriticalPathScheduling(taskDurations, schedulingListener);
+        taskExecuter.addTasks(toList(a, b));
+        taskExecuter.execute();
+
+        assertThat(executedTasks, equalTo(toList(a, b)));
+        assertThat(taskDurations.durations.get(":a"), equalTo(500L));
+        assertFalse(taskDurations.durations.containsKey(":b"));
+    }
+
+    private void skipped(final Task task, final boolean skipped) {
+        final TaskStateInternal state = ((TaskInternal) task).getState();
+        context.checking(new Expectations() {{
+            allowing(state).getSkipped();
+            will(returnValue(skipped));
+        }});
+    }
+
     private void dependsOn(final Task task, final Task... dependsOn) {
         context.checking(new Expectations() {{
             TaskDependency taskDependency = context.mock(TaskDependency.class);
@@ -534,6 +586,19 @@ public class DefaultTaskGraphExecuterTest {
         }});
     }
 
+    private static class InMemoryTaskDurationRepository implements TaskDurationRepository {
+        final Map<String, Long> durations = new HashMap<String, Long>();
+
+        public Long getDuration(TaskInternal task) {
+            return durations.get(task.getPath());
+        }
+
+        public void recordDuration(TaskInternal task, long durationMillis) {
+            Long previous = durations.get(task.getPath());
+            durations.put(task.getPath(), previous == null ? durationMillis : (previous + durationMillis) / 2);
+        }
+    }
+
     private class ExecuteTaskAction implements org.jmock.api.Action {
         private final TaskInternal task;
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.internal.Pair
+import spock.lang.Specification
+
+class OutputPathTrieTest extends Specification {
+    def trie = new OutputPathTrie<String>("/")
+
+    def "no overlap when empty"() {
+        expect:
+        trie.empty
+        trie.findOverlap("/a/b") == null
+    }
+
+    def "finds owner of same path"() {
+        when:
+        trie.add("/a/b", "task")
+
+        then:
+        !trie.empty
+        trie.findOverlap("/a/b") == Pair.of("task", "/a/b")
+    }
+
+    def "finds owner of ancestor path"() {
+        when:
+        trie.add("/a", "task")
+
+        then:
+        trie.findOverlap("/a/b/c") == Pair.of("task", "/a")
+    }
+
+    def "finds owner of descendant path"() {
+        when:
+        trie.add("/a/b/c", "task")
+
+        then:
+        trie.findOverlap("/a") == Pair.of("task", "/a")
+    }
+
+    def "paths sharing a name prefix do not overlap"() {
+        when:
+        trie.add("/a/build", "task")
+
+        then:
+        trie.findOverlap("/a/build2") == null
+        trie.findOverlap("/a/buil") == null
+        trie.findOverlap("/b/build") == null
+    }
+
+    def "removing an owner removes overlap"() {
+        given:
+        trie.add("/a/b", "task1")
+        trie.add("/a/b", "task2")
+        trie.add("/a/c/d", "task3")
+
+        when:
+        trie.remove("/a/b", "task1")
+
+        then:
+        trie.findOverlap("/a/b") == Pair.of("task2", "/a/b")
+
+        when:
+        trie.remove("/a/b", "task2")
+
+        then:
+        trie.findOverlap("/a/b") == null
+        trie.findOverlap("/a") == Pair.of("task3", "/a")
+
+        when:
+        trie.remove("/a/c/d", "task3")
+
+        then:
+        trie.empty
+        trie.findOverlap("/a") == null
+    }
+
+    def "removing unknown path or owner is ignored"() {
+        given:
+        trie.add("/a/b", "task")
+
+        when:
+        trie.remove("/a/b", "other")
+        trie.remove("/a/c", "task")
+        trie.remove("/a", "task")
+
+        then:
+        trie.findOverlap("/a/b") == Pair.of("task", "/a/b")
+    }
+
+    def "can clear"() {
+        given:
+        trie.add("/a/b", "task")
+
+        when:
+        trie.clear()
+
+        then:
+        trie.empty
+        trie.findOverlap("/a/b") == null
+    }
+
+    def "supports other separators"() {
+        given:
+        def windowsTrie = new OutputPathTrie<String>("\\")
+        windowsTrie.add("C:\\a\\b", "task")
+
+        expect:
+        windowsTrie.findOverlap("C:\\a\\b\\c") == Pair.of("task", "C:\\a\\b")
+        windowsTrie.findOverlap("C:\\a") == Pair.of("task", "C:\\a")
+        windowsTrie.findOverlap("D:\\a") == null
+    }
+}
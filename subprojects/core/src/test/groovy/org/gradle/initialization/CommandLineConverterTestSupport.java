@@ -17,6 +17,7 @@
 package org.gradle.initialization;
 
 import org.gradle.StartParameter;
+import org.gradle.api.execution.TaskSchedulingStrategy;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.configuration.ConsoleOutput;
 import org.gradle.api.logging.configuration.ShowStacktrace;
@@ -57,6 +58,7 @@ public class CommandLineConverterTestSupport {
     protected boolean expectedRecompileScripts;
     protected boolean expectedParallelProjectExecution;
     protected int expectedMaxWorkersCount = Runtime.getRuntime().availableProcessors();
+    protected TaskSchedulingStrategy expectedTaskScheduling = TaskSchedulingStrategy.Default;
     protected boolean expectedConfigureOnDemand;
     protected boolean expectedContinuous;
 
@@ -95,6 +97,7 @@ public class CommandLineConverterTestSupport {
         assertEquals(expectedProjectCacheDir, startParameter.getProjectCacheDir());
         assertEquals(expectedConfigureOnDemand, startParameter.isConfigureOnDemand());
         assertEquals(expectedMaxWorkersCount, startParameter.getMaxWorkerCount());
+        assertEquals(expectedTaskScheduling, startParameter.getTaskScheduling());
         assertEquals(expectedContinuous, startParameter.isContinuous());
         assertEquals(expectedParticipants, startParameter.getIncludedBuilds());
     }
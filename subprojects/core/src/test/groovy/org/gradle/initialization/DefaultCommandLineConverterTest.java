@@ -16,6 +16,7 @@
 
 package org.gradle.initialization;
 
+import org.gradle.api.execution.TaskSchedulingStrategy;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.configuration.ConsoleOutput;
 import org.gradle.api.logging.configuration.ShowStacktrace;
@@ -327,6 +328,22 @@ public class DefaultCommandLineConverterTest extends CommandLineConverterTestSup
         checkConversion("--max-workers", "foo");
     }
 
+    @Test
+    public void withCriticalPathScheduling() {
+        expectedTaskScheduling = TaskSchedulingStrategy.CriticalPath;
+        checkConversion("--scheduling", "critical-path");
+    }
+
+    @Test
+    public void withDefaultScheduling() {
+        checkConversion("--scheduling=default");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withInvalidScheduling() {
+        checkConversion("--scheduling", "foo");
+    }
+
     @Test
     public void withConfigureOnDemand() {
         expectedConfigureOnDemand = true;
@@ -62,6 +62,36 @@ class BuildProfileTest extends Specification {
         profile.projects == [profile.getProjectProfile("a"), profile.getProjectProfile("d"), profile.getProjectProfile("b"), profile.getProjectProfile("c")]
     }
 
+    def "calculates actual task execution wall clock time"() {
+        given:
+        profile.getProjectProfile("a").getTaskProfile("a:x").completed(Stub(TaskState)).setStart(100).setFinish(300)
+        profile.getProjectProfile("a").getTaskProfile("a:y").completed(Stub(TaskState)).setStart(150).setFinish(450)
+        profile.getProjectProfile("b").getTaskProfile("b:x").completed(Stub(TaskState)).setStart(200).setFinish(250)
+
+        expect:
+        profile.actualTaskExecutionMakespan == 350
+    }
+
+    def "predicts task execution wall clock time from execution plan estimate"() {
+        given:
+        def param = new StartParameter()
+        param.parallelProjectExecutionEnabled = true
+        param.maxWorkerCount = 4
+        profile = new BuildProfile(param)
+
+        when:
+        profile.setExecutionPlanEstimate(criticalPath, total)
+
+        then:
+        profile.executionPlanEstimated
+        profile.predictedTaskExecutionMakespan == predicted
+
+        where:
+        criticalPath | total | predicted
+        100          | 200   | 100
+        100          | 800   | 200
+    }
+
     def "contains build description"() {
         given:
         def param = new StartParameter()
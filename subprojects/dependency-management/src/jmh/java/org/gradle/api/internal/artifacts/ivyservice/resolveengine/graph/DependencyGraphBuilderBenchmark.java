@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ComponentResolutionState;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultDependencyToConfigurationResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleConflictResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
+import org.gradle.api.internal.tasks.DefaultTaskDependency;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector;
+import org.gradle.internal.component.local.model.DefaultLocalComponentMetadata;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.Exclude;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.LocalComponentDependencyMetadata;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
+import org.gradle.internal.resolve.resolver.ResolveContextToComponentResolver;
+import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Resolves a synthetic dependency graph entirely in memory, to measure the time and allocations of the graph traversal itself.
+ * Run with {@code -prof gc} to see the allocation rate per resolution.
+ *
+ * <p>Each component depends on the next component and on a few random later components. Every {@value #CONFLICT_EVERY}th module has a second version,
+ * which is requested by some of its dependents, so that the traversal also evicts nodes and re-queues their dependents after conflict resolution.</p>
+ */
+@State(Scope.Benchmark)
+public class DependencyGraphBuilderBenchmark {
+    private static final String CONFIGURATION = "default";
+    private static final int CONFLICT_EVERY = 50;
+    private static final int RANDOM_DEPENDENCIES = 3;
+    private static final int MAX_DEPENDENCY_DISTANCE = 200;
+
+    @Param({"5000"})
+    private int components;
+
+    private DefaultLocalComponentMetadata root;
+    private final Map<DependencyMetadata, ComponentResolveMetadata> dependencyTargets = new IdentityHashMap<DependencyMetadata, ComponentResolveMetadata>();
+    private final Map<ComponentIdentifier, ComponentResolveMetadata> componentsById = new HashMap<ComponentIdentifier, ComponentResolveMetadata>();
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        createGraph(components);
+    }
+
+    void createGraph(int components) {
+        DefaultLocalComponentMetadata[] latest = new DefaultLocalComponentMetadata[components];
+        DefaultLocalComponentMetadata[] older = new DefaultLocalComponentMetadata[components];
+        for (int i = 0; i < components; i++) {
+            latest[i] = component("module-" + i, "2");
+            if (i % CONFLICT_EVERY == 0) {
+                older[i] = component("module-" + i, "1");
+            }
+        }
+        root = component("root", "1");
+        dependsOn(root, latest[0]);
+
+        Random random = new Random(components);
+        for (int i = 0; i < components - 1; i++) {
+            DefaultLocalComponentMetadata[] versions = older[i] == null ? new DefaultLocalComponentMetadata[]{latest[i]} : new DefaultLocalComponentMetadata[]{latest[i], older[i]};
+            for (DefaultLocalComponentMetadata from : versions) {
+                dependsOn(from, select(latest, older, i + 1, random));
+                for (int d = 0; d < RANDOM_DEPENDENCIES; d++) {
+                    int target = i + 1 + random.nextInt(Math.min(MAX_DEPENDENCY_DISTANCE, components - i - 1));
+                    dependsOn(from, select(latest, older, target, random));
+                }
+            }
+        }
+    }
+
+    private static DefaultLocalComponentMetadata select(DefaultLocalComponentMetadata[] latest, DefaultLocalComponentMetadata[] older, int index, Random random) {
+        return older[index] != null && random.nextBoolean() ? older[index] : latest[index];
+    }
+
+    private DefaultLocalComponentMetadata component(String name, String version) {
+        ModuleVersionIdentifier id = DefaultModuleVersionIdentifier.newId("org.gradle.benchmark", name, version);
+        DefaultLocalComponentMetadata metadata = new DefaultLocalComponentMetadata(id, DefaultModuleComponentIdentifier.newId(id), "release");
+        metadata.addConfiguration(CONFIGURATION, null, Collections.<String>emptySet(), Collections.singleton(CONFIGURATION), true, true, new DefaultTaskDependency());
+        componentsById.put(metadata.getComponentId(), metadata);
+        return metadata;
+    }
+
+    private void dependsOn(DefaultLocalComponentMetadata from, DefaultLocalComponentMetadata to) {
+        ModuleVersionSelector selector = DefaultModuleVersionSelector.newSelector(to.getId().getGroup(), to.getId().getName(), to.getId().getVersion());
+        DependencyMetadata dependency = new LocalComponentDependencyMetadata(DefaultModuleComponentSelector.newSelector(selector), selector, CONFIGURATION, CONFIGURATION,
+            Collections.<IvyArtifactName>emptySet(), Collections.<Exclude>emptyList(), false, false, true);
+        from.addDependency(dependency);
+        dependencyTargets.put(dependency, to);
+    }
+
+    @Benchmark
+    public void resolve(Blackhole bh) {
+        bh.consume(resolve());
+    }
+
+    int resolve() {
+        DependencyGraphBuilder builder = new DependencyGraphBuilder(new IdResolver(), new MetaDataResolver(), new RootResolver(),
+            new DefaultDependencyToConfigurationResolver(), new DefaultConflictHandler(new LatestVersionConflictResolver(), ModuleReplacementsData.NO_OP));
+        CountingVisitor visitor = new CountingVisitor();
+        builder.resolve(new BenchmarkResolveContext(), visitor);
+        return visitor.nodes;
+    }
+
+    private class IdResolver implements DependencyToComponentIdResolver {
+        @Override
+        public void resolve(DependencyMetadata dependency, BuildableComponentIdResolveResult result) {
+            ComponentResolveMetadata target = dependencyTargets.get(dependency);
+            result.resolved(target.getComponentId(), target.getId());
+        }
+    }
+
+    private class MetaDataResolver implements ComponentMetaDataResolver {
+        @Override
+        public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+            result.resolved(componentsById.get(identifier));
+        }
+    }
+
+    private class RootResolver implements ResolveContextToComponentResolver {
+        @Override
+        public void resolve(ResolveContext resolveContext, BuildableComponentResolveResult result) {
+            result.resolved(root);
+        }
+    }
+
+    private static class LatestVersionConflictResolver implements ModuleConflictResolver {
+        @Override
+        public <T extends ComponentResolutionState> T select(Collection<? extends T> candidates) {
+            T latest = null;
+            for (T candidate : candidates) {
+                if (latest == null || candidate.getVersion().compareTo(latest.getVersion()) > 0) {
+                    latest = candidate;
+                }
+            }
+            return latest;
+        }
+    }
+
+    private static class BenchmarkResolveContext implements ResolveContext {
+        @Override
+        public String getName() {
+            return CONFIGURATION;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "benchmark";
+        }
+
+        @Override
+        public ResolutionStrategyInternal getResolutionStrategy() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ComponentResolveMetadata toRootComponentMetaData() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class CountingVisitor implements DependencyGraphVisitor {
+        private int nodes;
+
+        @Override
+        public void start(DependencyGraphNode root) {
+        }
+
+        @Override
+        public void visitNode(DependencyGraphNode resolvedConfiguration) {
+            nodes++;
+        }
+
+        @Override
+        public void visitEdge(DependencyGraphNode resolvedConfiguration) {
+        }
+
+        @Override
+        public void finish(DependencyGraphNode root) {
+        }
+    }
+}
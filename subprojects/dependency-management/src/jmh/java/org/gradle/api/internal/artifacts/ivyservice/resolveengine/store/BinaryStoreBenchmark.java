@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.internal.cache.BinaryStore;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares re-reading resolution results from a binary store through a file stream and through a memory mapping.
+ */
+@State(Scope.Benchmark)
+public class BinaryStoreBenchmark {
+
+    @Param({"100", "10000"})
+    private int components;
+
+    @Param({"false", "true"})
+    private boolean memoryMapped;
+
+    private File file;
+    private DefaultBinaryStore store;
+    private BinaryStore.BinaryData data;
+
+    @Setup(Level.Trial)
+    public void writeStore() throws IOException {
+        file = File.createTempFile("resolution-results", ".bin");
+        store = new DefaultBinaryStore(file, memoryMapped);
+        // Results of another configuration, written to the same file before the one being read
+        writeComponents(components);
+        store.done();
+        writeComponents(components);
+        data = store.done();
+    }
+
+    private void writeComponents(int count) {
+        for (int i = 0; i < count; i++) {
+            final int component = i;
+            store.write(new BinaryStore.WriteAction() {
+                public void write(Encoder encoder) throws IOException {
+                    encoder.writeString("org.gradle.benchmark");
+                    encoder.writeString("component-" + component);
+                    encoder.writeString("1." + component);
+                    encoder.writeSmallInt(component % 10);
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStore() throws IOException {
+        data.close();
+        store.close();
+    }
+
+    @Benchmark
+    public void readAll(final Blackhole bh) throws IOException {
+        data.read(new BinaryStore.ReadAction<Void>() {
+            public Void read(Decoder decoder) throws IOException {
+                for (int i = 0; i < components; i++) {
+                    bh.consume(decoder.readString());
+                    bh.consume(decoder.readString());
+                    bh.consume(decoder.readString());
+                    bh.consume(decoder.readSmallInt());
+                }
+                return null;
+            }
+        });
+        data.close();
+    }
+}
@@ -22,7 +22,17 @@ public interface ComponentMetadataProcessor {
         @Override
         public void processMetadata(MutableModuleComponentResolveMetadata metadata) {
         }
+
+        @Override
+        public boolean hasRules() {
+            return false;
+        }
     };
 
     void processMetadata(MutableModuleComponentResolveMetadata metadata);
+
+    /**
+     * Returns true when this processor may modify the meta-data it is given.
+     */
+    boolean hasRules();
 }
@@ -20,6 +20,7 @@ import org.gradle.api.Action;
 import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.DependencySubstitution;
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionRuleProvider;
+import org.gradle.api.specs.Spec;
 import org.gradle.internal.Actions;
 import org.gradle.util.CollectionUtils;
 
@@ -29,6 +30,7 @@ public class DefaultGlobalDependencyResolutionRules implements GlobalDependencyR
     private final ComponentMetadataProcessor componentMetadataProcessor;
     private final ComponentModuleMetadataProcessor moduleMetadataProcessor;
     private final Action<DependencySubstitution> globalDependencySubstitutionRule;
+    private final boolean hasDependencySubstitutionRules;
 
     public DefaultGlobalDependencyResolutionRules(ComponentMetadataProcessor componentMetadataProcessor,
                                                   ComponentModuleMetadataProcessor moduleMetadataProcessor,
@@ -42,6 +44,12 @@ public class DefaultGlobalDependencyResolutionRules implements GlobalDependencyR
             }
         });
         this.globalDependencySubstitutionRule = Actions.composite(globalActions);
+        this.hasDependencySubstitutionRules = CollectionUtils.any(globalActions, new Spec<Action<DependencySubstitution>>() {
+            @Override
+            public boolean isSatisfiedBy(Action<DependencySubstitution> action) {
+                return action != DependencySubstitutionRuleProvider.NO_OP;
+            }
+        });
     }
 
     public ComponentMetadataProcessor getComponentMetadataProcessor() {
@@ -56,4 +64,11 @@ public class DefaultGlobalDependencyResolutionRules implements GlobalDependencyR
     public Action<DependencySubstitution> getDependencySubstitutionRule() {
         return globalDependencySubstitutionRule;
     }
+
+    @Override
+    public boolean hasRules() {
+        return hasDependencySubstitutionRules
+            || componentMetadataProcessor.hasRules()
+            || !moduleMetadataProcessor.getModuleReplacements().isEmpty();
+    }
 }
@@ -24,10 +24,15 @@ import org.gradle.api.internal.artifacts.ivyservice.CacheLockingArtifactDependen
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultCacheLockingManager;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
+import org.gradle.api.internal.artifacts.ivyservice.ParallelArtifactDownloader;
+import org.gradle.api.internal.artifacts.ivyservice.ParallelConfigurationResolver;
+import org.gradle.api.internal.artifacts.ivyservice.ResolutionResultsCache;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.SingleFileBackedModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DelegatingComponentResolvers;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolutionProfile;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolutionProfileReporter;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterResolutionOverride;
@@ -38,6 +43,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionC
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleDescriptorCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleArtifactsCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.ConfigurationComponentMetaDataBuilder;
@@ -74,15 +80,20 @@ import org.gradle.api.internal.runtimeshaded.RuntimeShadedJarFactory;
 import org.gradle.cache.CacheRepository;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.installation.CurrentGradleInstallation;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.gradle.internal.progress.BuildOperationExecutor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.cached.ByUrlCachedExternalResourceIndex;
+import org.gradle.internal.resource.cached.ExternalResourceFileStore;
 import org.gradle.internal.resource.cached.ivy.ArtifactAtRepositoryCachedArtifactIndex;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.resource.local.LocallyAvailableResourceFinder;
 import org.gradle.internal.resource.local.UniquePathKeyFileStore;
 import org.gradle.internal.resource.local.ivy.LocallyAvailableResourceFinderFactory;
+import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.util.BuildCommencedTimeProvider;
 import org.gradle.util.GradleVersion;
@@ -93,6 +104,15 @@ import java.util.List;
  * The set of dependency management services that are created per build.
  */
 class DependencyManagementBuildScopeServices {
+    void configure(ServiceRegistration registration, ListenerManager listenerManager, StartParameter startParameter, ExecutorFactory executorFactory,
+                   ProgressLoggerFactory progressLoggerFactory) {
+        if (startParameter.isParallelProjectExecutionEnabled() && Boolean.getBoolean(ParallelConfigurationResolver.PARALLEL_CONFIGURATIONS_TOGGLE)) {
+            ParallelConfigurationResolver configurationResolver = new ParallelConfigurationResolver(executorFactory, startParameter.getMaxWorkerCount(), progressLoggerFactory);
+            registration.add(ParallelConfigurationResolver.class, configurationResolver);
+            listenerManager.addListener(configurationResolver);
+        }
+    }
+
     InMemoryCachedRepositoryFactory createInMemoryDependencyMetadataCache() {
         return new InMemoryCachedRepositoryFactory();
     }
@@ -148,10 +168,11 @@ class DependencyManagementBuildScopeServices {
         );
     }
 
-    ModuleMetaDataCache createModuleDescriptorCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+    ModuleMetaDataCache createModuleDescriptorCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, InMemoryModuleDescriptorCache inMemoryModuleDescriptorCache) {
         return new DefaultModuleMetaDataCache(
             timeProvider,
-            cacheLockingManager
+            cacheLockingManager,
+            inMemoryModuleDescriptorCache
         );
     }
 
@@ -175,6 +196,10 @@ class DependencyManagementBuildScopeServices {
         return new ArtifactIdentifierFileStore(new UniquePathKeyFileStore(cacheLockingManager.getFileStoreDirectory()), new TmpDirTemporaryFileProvider());
     }
 
+    ExternalResourceFileStore createExternalResourceFileStore(CacheLockingManager cacheLockingManager) {
+        return new ExternalResourceFileStore(new UniquePathKeyFileStore(cacheLockingManager.getResourcesStoreDirectory()), new TmpDirTemporaryFileProvider());
+    }
+
     MavenSettingsProvider createMavenSettingsProvider() {
         return new DefaultMavenSettingsProvider(new DefaultMavenFileLocations());
     }
@@ -218,7 +243,8 @@ class DependencyManagementBuildScopeServices {
     ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleVersionsCache moduleVersionsCache, ModuleMetaDataCache moduleMetaDataCache, ModuleArtifactsCache moduleArtifactsCache,
                                               ArtifactAtRepositoryCachedArtifactIndex artifactAtRepositoryCachedArtifactIndex, CacheLockingManager cacheLockingManager,
                                               BuildCommencedTimeProvider buildCommencedTimeProvider, InMemoryCachedRepositoryFactory inMemoryCachedRepositoryFactory,
-                                              VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator) {
+                                              VersionSelectorScheme versionSelectorScheme, VersionComparator versionComparator,
+                                              BuildOperationExecutor buildOperationExecutor, DependencyResolutionProfile dependencyResolutionProfile) {
         StartParameterResolutionOverride startParameterResolutionOverride = new StartParameterResolutionOverride(startParameter);
         return new ResolveIvyFactory(
             moduleVersionsCache,
@@ -230,7 +256,17 @@ class DependencyManagementBuildScopeServices {
             buildCommencedTimeProvider,
             inMemoryCachedRepositoryFactory,
             versionSelectorScheme,
-            versionComparator);
+            versionComparator,
+            buildOperationExecutor,
+            dependencyResolutionProfile);
+    }
+
+    DependencyResolutionProfile createDependencyResolutionProfile(StartParameter startParameter, ListenerManager listenerManager, BuildCommencedTimeProvider buildCommencedTimeProvider) {
+        DependencyResolutionProfile profile = new DependencyResolutionProfile(startParameter.isProfile());
+        if (startParameter.isProfile()) {
+            listenerManager.addListener(new DependencyResolutionProfileReporter(profile, buildCommencedTimeProvider));
+        }
+        return profile;
     }
 
     ArtifactDependencyResolver createArtifactDependencyResolver(ResolveIvyFactory resolveIvyFactory,
@@ -238,20 +274,36 @@ class DependencyManagementBuildScopeServices {
                                                                 CacheLockingManager cacheLockingManager,
                                                                 IvyContextManager ivyContextManager,
                                                                 VersionComparator versionComparator,
-                                                                ServiceRegistry serviceRegistry) {
+                                                                ServiceRegistry serviceRegistry,
+                                                                ExecutorFactory executorFactory,
+                                                                StartParameter startParameter) {
+        int prefetchThreads = Boolean.getBoolean(DefaultArtifactDependencyResolver.METADATA_PREFETCH_TOGGLE) ? startParameter.getMaxWorkerCount() : 0;
         ArtifactDependencyResolver resolver = new DefaultArtifactDependencyResolver(
             serviceRegistry,
             resolveIvyFactory,
             dependencyDescriptorFactory,
             cacheLockingManager,
             ivyContextManager,
-            versionComparator
+            versionComparator,
+            executorFactory,
+            prefetchThreads
         );
         return new CacheLockingArtifactDependencyResolver(cacheLockingManager, resolver);
     }
 
+    ParallelArtifactDownloader createParallelArtifactDownloader(ExecutorFactory executorFactory, StartParameter startParameter, CacheLockingManager cacheLockingManager,
+                                                                ProgressLoggerFactory progressLoggerFactory) {
+        int maxConcurrentDownloads = Boolean.getBoolean(ParallelArtifactDownloader.PARALLEL_DOWNLOADS_TOGGLE) ? startParameter.getMaxWorkerCount() : 1;
+        return new ParallelArtifactDownloader(executorFactory, maxConcurrentDownloads, cacheLockingManager, progressLoggerFactory);
+    }
+
+    ResolutionResultsCache createResolutionResultsCache(CacheLockingManager cacheLockingManager, ModuleMetaDataCache moduleMetaDataCache, ResolveIvyFactory resolveIvyFactory,
+                                                        VersionSelectorScheme versionSelectorScheme, StartParameter startParameter) {
+        return new ResolutionResultsCache(cacheLockingManager, moduleMetaDataCache, resolveIvyFactory, versionSelectorScheme, startParameter.isRefreshDependencies());
+    }
+
     ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider) {
-        return new ResolutionResultsStoreFactory(temporaryFileProvider);
+        return new ResolutionResultsStoreFactory(temporaryFileProvider, Boolean.getBoolean(ResolutionResultsStoreFactory.MAPPED_STORES_TOGGLE));
     }
 
     ProjectPublicationRegistry createProjectPublicationRegistry() {
@@ -36,9 +36,19 @@ public interface GlobalDependencyResolutionRules {
         public Action<DependencySubstitution> getDependencySubstitutionRule() {
             return DependencySubstitutionRuleProvider.NO_OP;
         }
+
+        @Override
+        public boolean hasRules() {
+            return false;
+        }
     };
 
     ComponentMetadataProcessor getComponentMetadataProcessor();
     ComponentModuleMetadataProcessor getModuleMetadataProcessor();
     Action<DependencySubstitution> getDependencySubstitutionRule();
+
+    /**
+     * Returns true when any component meta-data rules, module replacements or dependency substitution rules have been registered.
+     */
+    boolean hasRules();
 }
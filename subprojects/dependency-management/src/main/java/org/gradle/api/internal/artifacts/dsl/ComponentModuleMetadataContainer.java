@@ -59,6 +59,10 @@ public class ComponentModuleMetadataContainer implements ModuleReplacementsData
         return replacements.get(sourceModule);
     }
 
+    public boolean isEmpty() {
+        return replacements.isEmpty();
+    }
+
     private static void detectCycles(Map<ModuleIdentifier, ModuleIdentifier> replacements, ModuleIdentifier source, ModuleIdentifier target) {
         if (source.equals(target)) {
             throw new InvalidUserDataException(String.format("Cannot declare module replacement that replaces self: %s->%s", source, target));
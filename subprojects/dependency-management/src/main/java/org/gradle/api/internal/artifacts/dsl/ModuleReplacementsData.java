@@ -26,7 +26,14 @@ public interface ModuleReplacementsData {
         public ModuleIdentifier getReplacementFor(ModuleIdentifier sourceModule) {
             return null;
         }
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
     };
 
     @Nullable ModuleIdentifier getReplacementFor(ModuleIdentifier sourceModule);
+
+    boolean isEmpty();
 }
@@ -37,6 +37,14 @@ public interface CacheLockingManager extends ArtifactCacheMetaData, CacheAccess
      */
     <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer);
 
+    /**
+     * Creates a cache implementation that is managed by this locking manager, and that buffers the entries put into it in memory. The buffered entries are visible
+     * to readers of the returned cache, and are written to the backing file in a single batch before the lock on the cache is released. This method may be used at any time.
+     *
+     * <p>The returned cache may be used under the same conditions as a cache returned by {@link #createCache(String, Serializer, Serializer)}.
+     */
+    <K, V> PersistentIndexedCache<K, V> createWriteBehindCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer);
+
     /**
      * Returns the root directory for the file store.
      *
@@ -44,6 +52,13 @@ public interface CacheLockingManager extends ArtifactCacheMetaData, CacheAccess
      */
     File getFileStoreDirectory();
 
+    /**
+     * Returns the root directory for the store of external resources that are not artifacts, such as Maven meta-data files.
+     *
+     * @return External resource store location
+     */
+    File getResourcesStoreDirectory();
+
     /**
      * Returns the root directory for the meta-data file store.
      *
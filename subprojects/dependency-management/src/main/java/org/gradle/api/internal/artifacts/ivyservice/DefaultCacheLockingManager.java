@@ -64,19 +64,35 @@ public class DefaultCacheLockingManager implements CacheLockingManager, Closeabl
         cache.useCache(operationDisplayName, action);
     }
 
+    public <T> T readCache(String operationDisplayName, Factory<? extends T> action) {
+        return cache.readCache(operationDisplayName, action);
+    }
+
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
         return cache.longRunningOperation(operationDisplayName, action);
     }
 
     public <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return cache.createCache(createCacheParameters(cacheName, keySerializer, valueSerializer));
+    }
+
+    public <K, V> PersistentIndexedCache<K, V> createWriteBehindCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return cache.createCache(createCacheParameters(cacheName, keySerializer, valueSerializer).writeBehind(true));
+    }
+
+    private <K, V> PersistentIndexedCacheParameters<K, V> createCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         String cacheFileInMetaDataStore = CacheLayout.META_DATA.getKey() + "/" + cacheName;
-        return cache.createCache(new PersistentIndexedCacheParameters<K, V>(cacheFileInMetaDataStore, keySerializer, valueSerializer));
+        return new PersistentIndexedCacheParameters<K, V>(cacheFileInMetaDataStore, keySerializer, valueSerializer);
     }
 
     public File getFileStoreDirectory() {
         return createCacheRelativeDir(CacheLayout.FILE_STORE);
     }
 
+    public File getResourcesStoreDirectory() {
+        return createCacheRelativeDir(CacheLayout.RESOURCES);
+    }
+
     public File createMetaDataStore() {
         return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptors");
     }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ResolveException;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
@@ -35,6 +36,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsRecorder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.StoreSet;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
@@ -53,16 +55,27 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
     private final CacheLockingManager cacheLockingManager;
     private final ResolutionResultsStoreFactory storeFactory;
     private final boolean buildProjectDependencies;
+    private final ParallelArtifactDownloader artifactDownloader;
+    private final ResolutionResultsCache resultsCache;
 
     public DefaultConfigurationResolver(ArtifactDependencyResolver resolver, RepositoryHandler repositories,
                                         GlobalDependencyResolutionRules metadataHandler, CacheLockingManager cacheLockingManager,
                                         ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies) {
+        this(resolver, repositories, metadataHandler, cacheLockingManager, storeFactory, buildProjectDependencies, null, null);
+    }
+
+    public DefaultConfigurationResolver(ArtifactDependencyResolver resolver, RepositoryHandler repositories,
+                                        GlobalDependencyResolutionRules metadataHandler, CacheLockingManager cacheLockingManager,
+                                        ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies,
+                                        @Nullable ParallelArtifactDownloader artifactDownloader, @Nullable ResolutionResultsCache resultsCache) {
         this.resolver = resolver;
         this.repositories = repositories;
         this.metadataHandler = metadataHandler;
         this.cacheLockingManager = cacheLockingManager;
         this.storeFactory = storeFactory;
         this.buildProjectDependencies = buildProjectDependencies;
+        this.artifactDownloader = artifactDownloader;
+        this.resultsCache = resultsCache;
     }
 
     public void resolve(ConfigurationInternal configuration, ResolverResults results) throws ResolveException {
@@ -85,10 +98,20 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
 
         ResolvedArtifactsBuilder artifactsBuilder = new DefaultResolvedArtifactsBuilder();
 
-        DependencyGraphVisitor graphVisitor = new CompositeDependencyGraphVisitor(oldModelVisitor, newModelVisitor, projectModelVisitor);
-        DependencyArtifactsVisitor artifactsVisitor = new CompositeDependencyArtifactsVisitor(oldModelVisitor, artifactsBuilder);
-
-        resolver.resolve(configuration, resolutionAwareRepositories, metadataHandler, graphVisitor, artifactsVisitor);
+        String resultsKey = resultsCache == null ? null : resultsCache.createKey(configuration, resolutionAwareRepositories, metadataHandler);
+        if (resultsKey == null) {
+            DependencyGraphVisitor graphVisitor = new CompositeDependencyGraphVisitor(oldModelVisitor, newModelVisitor, projectModelVisitor);
+            DependencyArtifactsVisitor artifactsVisitor = new CompositeDependencyArtifactsVisitor(oldModelVisitor, artifactsBuilder);
+            resolver.resolve(configuration, resolutionAwareRepositories, metadataHandler, graphVisitor, artifactsVisitor);
+        } else if (!resultsCache.replay(resultsKey, configuration, resolutionAwareRepositories, metadataHandler, oldModelBuilder, newModelBuilder, artifactsBuilder)) {
+            ResolutionResultsRecorder recorder = resultsCache.createRecorder(configuration);
+            ResolvedConfigurationDependencyGraphVisitor recordingOldModelVisitor = new ResolvedConfigurationDependencyGraphVisitor(recorder.recordOldModel(oldModelBuilder));
+            DependencyGraphVisitor recordingNewModelVisitor = new ResolutionResultDependencyGraphVisitor(recorder.recordNewModel(newModelBuilder));
+            DependencyGraphVisitor graphVisitor = new CompositeDependencyGraphVisitor(recordingOldModelVisitor, recordingNewModelVisitor, projectModelVisitor);
+            DependencyArtifactsVisitor artifactsVisitor = new CompositeDependencyArtifactsVisitor(recordingOldModelVisitor, artifactsBuilder, recorder.recordArtifacts());
+            resolver.resolve(configuration, resolutionAwareRepositories, metadataHandler, graphVisitor, artifactsVisitor);
+            resultsCache.store(resultsKey, configuration, recorder);
+        }
 
         DefaultResolverResults defaultResolverResults = (DefaultResolverResults) results;
         defaultResolverResults.resolved(newModelBuilder.complete(), localComponentsResultBuilder.complete());
@@ -107,7 +130,7 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
                 new TransientConfigurationResultsLoader(transientConfigurationResultsBuilder, graphResults, artifactResults);
 
         DefaultLenientConfiguration result = new DefaultLenientConfiguration(
-            configuration, cacheLockingManager, graphResults.getUnresolvedDependencies(), artifactResults, transientConfigurationResultsFactory);
+            configuration, cacheLockingManager, graphResults.getUnresolvedDependencies(), artifactResults, transientConfigurationResultsFactory, artifactDownloader);
         results.withResolvedConfiguration(new DefaultResolvedConfiguration(result));
     }
 }
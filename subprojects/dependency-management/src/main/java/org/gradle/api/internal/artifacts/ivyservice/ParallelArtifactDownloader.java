@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.logging.progress.ProgressLogger;
+import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+
+/**
+ * Downloads the files of a set of resolved artifacts concurrently, so that they are available when the artifacts are later iterated.
+ * Only artifacts from external repositories are downloaded. The files of local components are left to the caller, as producing them may involve building.
+ *
+ * <p>Failures are ignored here. The caller reports them when it asks the failed artifact for its file again.</p>
+ */
+public class ParallelArtifactDownloader implements Stoppable {
+    /**
+     * When enabled, the artifacts of a resolved configuration are downloaded using up to max worker count threads.
+     */
+    public static final String PARALLEL_DOWNLOADS_TOGGLE = "org.gradle.dependency.resolution.parallelDownloads";
+    private final ExecutorFactory executorFactory;
+    private final int maxConcurrentDownloads;
+    private final CacheLockingManager cacheLockingManager;
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private StoppableExecutor executor;
+
+    /**
+     * @param maxConcurrentDownloads The maximum number of artifacts to download at the same time. A value of 1 disables concurrent downloads.
+     */
+    public ParallelArtifactDownloader(ExecutorFactory executorFactory, int maxConcurrentDownloads, CacheLockingManager cacheLockingManager, ProgressLoggerFactory progressLoggerFactory) {
+        this.executorFactory = executorFactory;
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+        this.cacheLockingManager = cacheLockingManager;
+        this.progressLoggerFactory = progressLoggerFactory;
+    }
+
+    /**
+     * Downloads the files of the given artifacts, and blocks until all downloads have finished. Releases the artifact cache lock while waiting.
+     */
+    public void download(Collection<? extends ResolvedArtifact> artifacts, String displayName) {
+        if (maxConcurrentDownloads <= 1) {
+            return;
+        }
+        List<ResolvedArtifact> externalArtifacts = new ArrayList<ResolvedArtifact>(artifacts.size());
+        for (ResolvedArtifact artifact : artifacts) {
+            if (artifact.getId() instanceof ModuleComponentArtifactIdentifier) {
+                externalArtifacts.add(artifact);
+            }
+        }
+        if (externalArtifacts.size() <= 1) {
+            return;
+        }
+
+        final CompletionService<ResolvedArtifact> downloads = new ExecutorCompletionService<ResolvedArtifact>(getExecutor());
+        for (final ResolvedArtifact artifact : externalArtifacts) {
+            downloads.submit(new Callable<ResolvedArtifact>() {
+                public ResolvedArtifact call() {
+                    try {
+                        artifact.getFile();
+                    } catch (Throwable e) {
+                        // Reported when the caller asks for the file
+                    }
+                    return artifact;
+                }
+            });
+        }
+
+        final int total = externalArtifacts.size();
+        final ProgressLogger progressLogger = progressLoggerFactory.newOperation(ParallelArtifactDownloader.class);
+        progressLogger.start("Download artifacts for " + displayName, "Download artifacts");
+        try {
+            cacheLockingManager.longRunningOperation("Download artifacts for " + displayName, new Runnable() {
+                public void run() {
+                    for (int completed = 1; completed <= total; completed++) {
+                        try {
+                            downloads.take();
+                        } catch (InterruptedException e) {
+                            throw UncheckedException.throwAsUncheckedException(e);
+                        }
+                        progressLogger.progress(completed + "/" + total + " artifacts");
+                    }
+                }
+            });
+        } finally {
+            progressLogger.completed();
+        }
+    }
+
+    private synchronized StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Artifact download", maxConcurrentDownloads);
+        }
+        return executor;
+    }
+
+    public void stop() {
+        StoppableExecutor executor;
+        synchronized (this) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+}
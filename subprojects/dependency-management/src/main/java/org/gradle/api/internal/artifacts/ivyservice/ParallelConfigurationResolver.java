@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.execution.TaskExecutionGraphListener;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.file.FileCollectionInternal;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
+import org.gradle.api.internal.file.collections.FileCollectionContainer;
+import org.gradle.api.internal.file.collections.LazilyInitializedFileCollection;
+import org.gradle.api.internal.file.collections.ResolvableFileCollectionResolveContext;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.file.PathToFileResolver;
+import org.gradle.internal.logging.progress.ProgressLogger;
+import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+
+/**
+ * Resolves the configurations that the tasks of a task graph use as input files once the graph has been populated, so that the tasks find them resolved when they execute.
+ *
+ * <p>The configurations of a project are resolved one after the other, as they share the mutable state of the project, such as its dependency sets and the actions
+ * that run before resolution. The configurations of different projects are resolved concurrently. Requests to remote repositories release the artifact cache lock
+ * while they wait, so the requests made for different projects overlap.</p>
+ *
+ * <p>Failures are ignored here. A resolved configuration keeps its resolution failures and reports them when a task asks for its files, and a configuration that
+ * could not be resolved at all is resolved again when a task uses it.</p>
+ */
+public class ParallelConfigurationResolver implements TaskExecutionGraphListener, Stoppable {
+    /**
+     * When enabled and the build runs with --parallel, the configurations used by the task graph are resolved using up to max worker count threads before the tasks execute.
+     */
+    public static final String PARALLEL_CONFIGURATIONS_TOGGLE = "org.gradle.dependency.resolution.parallelConfigurations";
+    private static final Logger LOGGER = Logging.getLogger(ParallelConfigurationResolver.class);
+    private final ExecutorFactory executorFactory;
+    private final int maxConcurrentProjects;
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private StoppableExecutor executor;
+
+    /**
+     * @param maxConcurrentProjects The maximum number of projects to resolve configurations for at the same time. A value of 1 disables resolution ahead of task execution.
+     */
+    public ParallelConfigurationResolver(ExecutorFactory executorFactory, int maxConcurrentProjects, ProgressLoggerFactory progressLoggerFactory) {
+        this.executorFactory = executorFactory;
+        this.maxConcurrentProjects = maxConcurrentProjects;
+        this.progressLoggerFactory = progressLoggerFactory;
+    }
+
+    public void graphPopulated(TaskExecutionGraph graph) {
+        if (maxConcurrentProjects <= 1) {
+            return;
+        }
+        Map<String, List<ConfigurationInternal>> configurationsPerProject = findUnresolvedConfigurations(graph.getAllTasks());
+        if (configurationsPerProject.size() <= 1) {
+            // Nothing to run concurrently, leave resolution to the tasks
+            return;
+        }
+        resolve(configurationsPerProject.values());
+    }
+
+    /**
+     * Finds the unresolved configurations used as input files by the given tasks, grouped by the project that owns them.
+     */
+    Map<String, List<ConfigurationInternal>> findUnresolvedConfigurations(Collection<? extends Task> tasks) {
+        Map<String, List<ConfigurationInternal>> configurationsPerProject = new LinkedHashMap<String, List<ConfigurationInternal>>();
+        Set<ConfigurationInternal> seen = new HashSet<ConfigurationInternal>();
+        for (Task task : tasks) {
+            List<FileCollectionInternal> inputs;
+            try {
+                ResolvableFileCollectionResolveContext context = new NonInitializingResolveContext();
+                context.add(task.getInputs().getFiles());
+                inputs = context.resolveAsFileCollections();
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not determine the configurations used by {}. They will be resolved when the task executes.", task, e);
+                continue;
+            }
+            for (FileCollectionInternal input : inputs) {
+                if (!(input instanceof ConfigurationInternal)) {
+                    continue;
+                }
+                ConfigurationInternal configuration = (ConfigurationInternal) input;
+                if (configuration.getResolvedState() != ConfigurationInternal.InternalState.UNRESOLVED || !seen.add(configuration)) {
+                    continue;
+                }
+                String projectPath = configuration.getPath().substring(0, configuration.getPath().length() - configuration.getName().length());
+                List<ConfigurationInternal> configurations = configurationsPerProject.get(projectPath);
+                if (configurations == null) {
+                    configurations = new ArrayList<ConfigurationInternal>();
+                    configurationsPerProject.put(projectPath, configurations);
+                }
+                configurations.add(configuration);
+            }
+        }
+        return configurationsPerProject;
+    }
+
+    private void resolve(Collection<List<ConfigurationInternal>> configurationsPerProject) {
+        CompletionService<Void> resolves = new ExecutorCompletionService<Void>(getExecutor());
+        int total = 0;
+        for (final List<ConfigurationInternal> configurations : configurationsPerProject) {
+            total += configurations.size();
+            resolves.submit(new Runnable() {
+                public void run() {
+                    for (ConfigurationInternal configuration : configurations) {
+                        try {
+                            configuration.getResolvedConfiguration();
+                        } catch (Throwable e) {
+                            // Reported when a task resolves the configuration
+                            LOGGER.debug("Could not resolve {} ahead of task execution.", configuration, e);
+                        }
+                    }
+                }
+            }, null);
+        }
+
+        ProgressLogger progressLogger = progressLoggerFactory.newOperation(ParallelConfigurationResolver.class);
+        progressLogger.start("Resolve " + total + " configurations", "Resolve configurations");
+        try {
+            for (int completed = 1; completed <= configurationsPerProject.size(); completed++) {
+                try {
+                    resolves.take();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+                progressLogger.progress(completed + "/" + configurationsPerProject.size() + " projects");
+            }
+        } finally {
+            progressLogger.completed();
+        }
+    }
+
+    private synchronized StoppableExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("Configuration resolution", maxConcurrentProjects);
+        }
+        return executor;
+    }
+
+    public void stop() {
+        StoppableExecutor executor;
+        synchronized (this) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    /**
+     * Does not initialize lazily initialized file collections, as doing so can resolve the configurations they are created from.
+     */
+    private static class NonInitializingResolveContext extends DefaultFileCollectionResolveContext {
+        NonInitializingResolveContext() {
+            super(new IdentityFileResolver());
+        }
+
+        NonInitializingResolveContext(PathToFileResolver fileResolver, Converter<? extends FileCollectionInternal> fileCollectionConverter, Converter<? extends FileTreeInternal> fileTreeConverter) {
+            super(fileResolver, fileCollectionConverter, fileTreeConverter);
+        }
+
+        @Override
+        protected <T> void resolveNested(FileCollectionContainer fileCollection, List<T> result, Converter<? extends T> converter) {
+            if (!(fileCollection instanceof LazilyInitializedFileCollection)) {
+                super.resolveNested(fileCollection, result, converter);
+            }
+        }
+
+        @Override
+        protected ResolvableFileCollectionResolveContext newContext(PathToFileResolver fileResolver) {
+            return new NonInitializingResolveContext(fileResolver, fileCollectionConverter, fileTreeConverter);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.DependencyArtifact;
+import org.gradle.api.artifacts.ExcludeRule;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.Module;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.DefaultResolvedModuleVersion;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ErrorHandlingArtifactResolver;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedConfigurationBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsRecorder;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Persists the results of resolving configurations in the dependency cache, so that later builds can replay them instead of traversing the dependency graph again.
+ *
+ * <p>A result is keyed by a hash of the inputs of the resolution, other than the meta-data of the resolved components: the module of the owning project, the dependencies and exclude rules
+ * of the configuration hierarchy, the repositories and the conflict resolution strategy. Only configurations whose resolution is fully described by these inputs are cached. Configurations
+ * with project, file or client module dependencies, dynamic or changing versions, forced modules or resolution rules are always resolved.</p>
+ *
+ * <p>A persisted result is only replayed while the module meta-data cache still holds each of the resolved components with the same descriptor hash, and the cache policy of the
+ * configuration does not require the meta-data of any of the components to be refreshed.</p>
+ */
+public class ResolutionResultsCache {
+    /**
+     * When enabled, the results of resolving configurations are persisted and replayed by later builds while the inputs of the resolution are unchanged.
+     */
+    public static final String RESULTS_CACHE_TOGGLE = "org.gradle.dependency.resolution.cacheResults";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolutionResultsCache.class);
+    private static final int KEY_FORMAT_VERSION = 1;
+
+    private final CacheLockingManager cacheLockingManager;
+    private final ModuleMetaDataCache moduleMetaDataCache;
+    private final ResolveIvyFactory ivyFactory;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final boolean refreshDependencies;
+    private PersistentIndexedCache<String, ResolutionResultsRecorder.Recording> cache;
+
+    public ResolutionResultsCache(CacheLockingManager cacheLockingManager, ModuleMetaDataCache moduleMetaDataCache, ResolveIvyFactory ivyFactory,
+                                  VersionSelectorScheme versionSelectorScheme, boolean refreshDependencies) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.moduleMetaDataCache = moduleMetaDataCache;
+        this.ivyFactory = ivyFactory;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.refreshDependencies = refreshDependencies;
+    }
+
+    private PersistentIndexedCache<String, ResolutionResultsRecorder.Recording> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolution-results", BaseSerializerFactory.STRING_SERIALIZER, new ResolutionResultsRecorder.RecordingSerializer());
+        }
+        return cache;
+    }
+
+    /**
+     * Calculates the key of the results of resolving the given configuration. Returns null when the results of the configuration cannot be cached.
+     */
+    @Nullable
+    public String createKey(ConfigurationInternal configuration, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules globalRules) {
+        ResolutionStrategyInternal resolutionStrategy = configuration.getResolutionStrategy();
+        if (refreshDependencies
+            || globalRules.hasRules()
+            || !resolutionStrategy.getForcedModules().isEmpty()
+            || resolutionStrategy.getDependencySubstitution().hasDependencySubstitutionRules()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()) {
+            return null;
+        }
+
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putInt(KEY_FORMAT_VERSION);
+        Module module = configuration.getModule();
+        putString(hasher, module.getProjectPath());
+        putString(hasher, module.getGroup());
+        putString(hasher, module.getName());
+        putString(hasher, module.getVersion());
+        putString(hasher, module.getStatus());
+        putString(hasher, configuration.getPath());
+        putString(hasher, resolutionStrategy.getConflictResolution().getClass().getName());
+
+        hasher.putInt(configuration.getHierarchy().size());
+        for (Configuration hierarchyConfiguration : configuration.getHierarchy()) {
+            putString(hasher, hierarchyConfiguration.getName());
+            hasher.putBoolean(hierarchyConfiguration.isTransitive());
+            hasher.putInt(hierarchyConfiguration.getDependencies().size());
+            for (Dependency dependency : hierarchyConfiguration.getDependencies()) {
+                if (!isCacheable(dependency)) {
+                    return null;
+                }
+                putDependency(hasher, (ExternalModuleDependency) dependency);
+            }
+            putExcludeRules(hasher, hierarchyConfiguration.getExcludeRules());
+        }
+
+        hasher.putInt(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            ConfiguredModuleComponentRepository resolver = repository.createResolver();
+            if (resolver.isLocal()) {
+                return null;
+            }
+            putString(hasher, resolver.getId());
+            hasher.putBoolean(resolver.isDynamicResolveMode());
+        }
+        return hasher.hash().toString();
+    }
+
+    private boolean isCacheable(Dependency dependency) {
+        if (!(dependency instanceof ExternalModuleDependency) || dependency instanceof ClientModule) {
+            return false;
+        }
+        ExternalModuleDependency moduleDependency = (ExternalModuleDependency) dependency;
+        return !moduleDependency.isChanging()
+            && moduleDependency.getVersion() != null
+            && !versionSelectorScheme.parseSelector(moduleDependency.getVersion()).isDynamic();
+    }
+
+    private static void putDependency(Hasher hasher, ExternalModuleDependency dependency) {
+        putString(hasher, dependency.getGroup());
+        putString(hasher, dependency.getName());
+        putString(hasher, dependency.getVersion());
+        putString(hasher, dependency.getConfiguration());
+        hasher.putBoolean(dependency.isTransitive());
+        hasher.putBoolean(dependency.isForce());
+        hasher.putInt(dependency.getArtifacts().size());
+        for (DependencyArtifact artifact : dependency.getArtifacts()) {
+            putString(hasher, artifact.getName());
+            putString(hasher, artifact.getType());
+            putString(hasher, artifact.getExtension());
+            putString(hasher, artifact.getClassifier());
+            putString(hasher, artifact.getUrl());
+        }
+        putExcludeRules(hasher, dependency.getExcludeRules());
+    }
+
+    private static void putExcludeRules(Hasher hasher, Iterable<ExcludeRule> excludeRules) {
+        for (ExcludeRule excludeRule : excludeRules) {
+            hasher.putBoolean(true);
+            putString(hasher, excludeRule.getGroup());
+            putString(hasher, excludeRule.getModule());
+        }
+        hasher.putBoolean(false);
+    }
+
+    private static void putString(Hasher hasher, @Nullable String value) {
+        if (value == null) {
+            hasher.putBoolean(false);
+        } else {
+            hasher.putBoolean(true);
+            hasher.putInt(value.length());
+            hasher.putString(value, Charsets.UTF_8);
+        }
+    }
+
+    /**
+     * Creates a recorder for the results of resolving the given configuration.
+     */
+    public ResolutionResultsRecorder createRecorder(ConfigurationInternal configuration) {
+        return new ResolutionResultsRecorder(configuration.getDisplayName(), getFirstLevelDependencies(configuration), versionSelectorScheme);
+    }
+
+    /**
+     * Persists the results recorded by the given recorder, when the results can be replayed by a later build.
+     */
+    public void store(final String key, ConfigurationInternal configuration, ResolutionResultsRecorder recorder) {
+        final ResolutionResultsRecorder.Recording recording = recorder.complete();
+        if (recording == null) {
+            return;
+        }
+        cacheLockingManager.useCache("store resolution results for " + configuration, new Runnable() {
+            public void run() {
+                getCache().put(key, recording);
+            }
+        });
+    }
+
+    /**
+     * Replays the persisted results of resolving the given configuration into the given builders.
+     *
+     * @return true when the results have been replayed, false when there are no up-to-date results for the configuration.
+     */
+    public boolean replay(final String key, ConfigurationInternal configuration, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules globalRules,
+                          ResolvedConfigurationBuilder oldModelBuilder, ResolutionResultBuilder newModelBuilder, DependencyArtifactsVisitor artifactsVisitor) {
+        final ResolutionStrategyInternal resolutionStrategy = configuration.getResolutionStrategy();
+        ResolutionResultsRecorder.Recording recording = cacheLockingManager.useCache("load resolution results for " + configuration, new Factory<ResolutionResultsRecorder.Recording>() {
+            public ResolutionResultsRecorder.Recording create() {
+                ResolutionResultsRecorder.Recording recording = getCache().get(key);
+                if (recording == null || !isUpToDate(recording, resolutionStrategy.getCachePolicy())) {
+                    return null;
+                }
+                return recording;
+            }
+        });
+        if (recording == null) {
+            return false;
+        }
+
+        ArtifactResolver artifactResolver = ivyFactory.create(configuration.getDisplayName(), resolutionStrategy, repositories, globalRules.getComponentMetadataProcessor()).getArtifactResolver();
+        artifactResolver = new ErrorHandlingArtifactResolver(new CacheLockingArtifactResolver(cacheLockingManager, artifactResolver));
+        ResolutionResultsRecorder.replay(recording, getFirstLevelDependencies(configuration), oldModelBuilder, newModelBuilder, artifactsVisitor, artifactResolver);
+        LOGGER.debug("Replayed persisted resolution results for {}.", configuration);
+        return true;
+    }
+
+    private boolean isUpToDate(ResolutionResultsRecorder.Recording recording, CachePolicy cachePolicy) {
+        for (ResolutionResultsRecorder.RecordedComponent component : recording.getComponents()) {
+            ModuleComponentIdentifier componentId = component.getComponentId();
+            ModuleMetaDataCache.CachedDescriptorState state = moduleMetaDataCache.getCachedDescriptorState(component.getRepositoryId(), componentId);
+            if (state == null || state.isChanging() || !state.getDescriptorHash().equals(component.getDescriptorHash())) {
+                LOGGER.debug("Persisted resolution results are out-of-date: meta-data of {} has changed.", componentId);
+                return false;
+            }
+            DefaultResolvedModuleVersion moduleVersion = new DefaultResolvedModuleVersion(DefaultModuleVersionIdentifier.newId(componentId));
+            if (cachePolicy.mustRefreshModule(componentId, moduleVersion, state.getAgeMillis())) {
+                LOGGER.debug("Persisted resolution results are out-of-date: meta-data of {} must be refreshed.", componentId);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<ModuleDependency> getFirstLevelDependencies(ConfigurationInternal configuration) {
+        return Lists.newArrayList(configuration.getAllDependencies().withType(ModuleDependency.class));
+    }
+}
@@ -17,6 +17,7 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
 
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.*;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.model.*;
 import org.gradle.api.internal.component.ArtifactType;
 import org.gradle.internal.resolve.result.BuildableArtifactResolveResult;
@@ -24,15 +25,28 @@ import org.gradle.internal.resolve.result.BuildableArtifactSetResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
 import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
 
+import java.util.concurrent.Semaphore;
+
 /**
  * A wrapper around a {@link ModuleComponentRepository} that handles releasing the cache lock before making remote calls.
+ * Also limits the number of artifacts that are downloaded from the repository at the same time.
  */
 public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComponentRepository {
+    /**
+     * The maximum number of artifacts to download from a single repository at the same time.
+     */
+    public static final String MAX_CONCURRENT_DOWNLOADS_PROPERTY = "org.gradle.dependency.resolution.maxDownloadsPerRepository";
+    private static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 4;
+
     private final ModuleComponentRepositoryAccess remoteAccess;
 
     public CacheLockReleasingModuleComponentsRepository(ModuleComponentRepository repository, CacheLockingManager cacheLockingManager) {
+        this(repository, cacheLockingManager, Integer.getInteger(MAX_CONCURRENT_DOWNLOADS_PROPERTY, DEFAULT_MAX_CONCURRENT_DOWNLOADS));
+    }
+
+    public CacheLockReleasingModuleComponentsRepository(ModuleComponentRepository repository, CacheLockingManager cacheLockingManager, int maxConcurrentDownloads) {
         super(repository);
-        this.remoteAccess = new LockReleasingRepositoryAccess(repository.getName(), repository.getRemoteAccess(), cacheLockingManager);
+        this.remoteAccess = new LockReleasingRepositoryAccess(repository.getName(), repository.getRemoteAccess(), cacheLockingManager, new Semaphore(Math.max(1, maxConcurrentDownloads)));
     }
 
     @Override
@@ -44,16 +58,18 @@ public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComp
         private final String name;
         private final ModuleComponentRepositoryAccess delegate;
         private final CacheLockingManager cacheLockingManager;
+        private final Semaphore downloads;
 
         @Override
         public String toString() {
             return "unlocking > " + delegate.toString();
         }
 
-        private LockReleasingRepositoryAccess(String name, ModuleComponentRepositoryAccess delegate, CacheLockingManager cacheLockingManager) {
+        private LockReleasingRepositoryAccess(String name, ModuleComponentRepositoryAccess delegate, CacheLockingManager cacheLockingManager, Semaphore downloads) {
             this.name = name;
             this.delegate = delegate;
             this.cacheLockingManager = cacheLockingManager;
+            this.downloads = downloads;
         }
 
         public void listModuleVersions(final DependencyMetadata dependency, final BuildableModuleVersionListingResolveResult result) {
@@ -93,7 +109,17 @@ public class CacheLockReleasingModuleComponentsRepository extends BaseModuleComp
         public void resolveArtifact(final ComponentArtifactMetadata artifact, final ModuleSource moduleSource, final BuildableArtifactResolveResult result) {
             cacheLockingManager.longRunningOperation("Download " + artifact + " using repository " + name, new Runnable() {
                 public void run() {
-                    delegate.resolveArtifact(artifact, moduleSource, result);
+                    // Wait for a download slot while the cache lock is released
+                    try {
+                        downloads.acquire();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                    try {
+                        delegate.resolveArtifact(artifact, moduleSource, result);
+                    } finally {
+                        downloads.release();
+                    }
                 }
             });
         }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.util.Clock;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the requests made to repositories while resolving dependencies, and aggregates them per consumer, such as a configuration, and per repository.
+ *
+ * <p>A request is either served from the dependency cache, or is made to the remote repository. Remote requests are recorded with their outcome,
+ * their duration and, for artifacts, the number of bytes downloaded.</p>
+ *
+ * <p>A disabled profile ignores all requests, so that repositories don't need to record anything when no report is wanted.</p>
+ */
+public class DependencyResolutionProfile {
+    private static final int SLOWEST_MODULES = 10;
+
+    public enum RequestType {
+        VERSION_LISTING("Version listings"),
+        META_DATA("Meta-data"),
+        ARTIFACT("Artifacts");
+
+        private final String displayName;
+
+        RequestType(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    public enum Outcome {
+        /**
+         * The request was served from the dependency cache.
+         */
+        CACHED,
+        /**
+         * The request was made to the remote repository, and the result was found.
+         */
+        FOUND,
+        /**
+         * The request was made to the remote repository, and the result was not found.
+         */
+        MISSING,
+        /**
+         * The request was made to the remote repository, and failed.
+         */
+        FAILED
+    }
+
+    private final Map<String, Map<String, Map<RequestType, RequestStats>>> consumers = new TreeMap<String, Map<String, Map<RequestType, RequestStats>>>();
+    private final Map<String, Long> remoteTimePerModule = new HashMap<String, Long>();
+    private final boolean enabled;
+
+    public DependencyResolutionProfile(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a request made on behalf of the given consumer.
+     *
+     * @param bytes The number of bytes downloaded, or 0 when not known.
+     * @param durationMillis The time spent in the remote request, or 0 for requests served from the cache.
+     */
+    public void record(String consumer, String repository, RequestType type, String module, Outcome outcome, long bytes, long durationMillis) {
+        if (enabled) {
+            doRecord(consumer, repository, type, module, outcome, bytes, durationMillis);
+        }
+    }
+
+    private synchronized void doRecord(String consumer, String repository, RequestType type, String module, Outcome outcome, long bytes, long durationMillis) {
+        Map<String, Map<RequestType, RequestStats>> repositories = consumers.get(consumer);
+        if (repositories == null) {
+            repositories = new TreeMap<String, Map<RequestType, RequestStats>>();
+            consumers.put(consumer, repositories);
+        }
+        Map<RequestType, RequestStats> requests = repositories.get(repository);
+        if (requests == null) {
+            requests = new TreeMap<RequestType, RequestStats>();
+            repositories.put(repository, requests);
+        }
+        RequestStats stats = requests.get(type);
+        if (stats == null) {
+            stats = new RequestStats();
+            requests.put(type, stats);
+        }
+        stats.add(outcome, bytes, durationMillis);
+
+        if (outcome != Outcome.CACHED) {
+            Long moduleTime = remoteTimePerModule.get(module);
+            remoteTimePerModule.put(module, moduleTime == null ? durationMillis : moduleTime + durationMillis);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return consumers.isEmpty();
+    }
+
+    public synchronized void writeTo(PrintWriter writer) {
+        writer.println("Dependency resolution profile");
+        for (Map.Entry<String, Map<String, Map<RequestType, RequestStats>>> consumer : consumers.entrySet()) {
+            writer.println();
+            writer.println(consumer.getKey());
+            for (Map.Entry<String, Map<RequestType, RequestStats>> repository : consumer.getValue().entrySet()) {
+                writer.println("  Repository " + repository.getKey());
+                for (Map.Entry<RequestType, RequestStats> requests : repository.getValue().entrySet()) {
+                    writer.println("    " + requests.getKey().displayName + ": " + requests.getValue());
+                }
+            }
+        }
+
+        List<Map.Entry<String, Long>> modules = new ArrayList<Map.Entry<String, Long>>(remoteTimePerModule.entrySet());
+        Collections.sort(modules, new Comparator<Map.Entry<String, Long>>() {
+            public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+                return o2.getValue().compareTo(o1.getValue());
+            }
+        });
+        if (!modules.isEmpty()) {
+            writer.println();
+            writer.println("Modules with the most time spent in remote requests");
+            for (Map.Entry<String, Long> module : modules.subList(0, Math.min(SLOWEST_MODULES, modules.size()))) {
+                writer.println("  " + module.getKey() + ": " + Clock.prettyTime(module.getValue()));
+            }
+        }
+        writer.flush();
+    }
+
+    private static class RequestStats {
+        private int cached;
+        private int found;
+        private int missing;
+        private int failed;
+        private long bytes;
+        private long remoteMillis;
+
+        void add(Outcome outcome, long bytes, long durationMillis) {
+            switch (outcome) {
+                case CACHED:
+                    cached++;
+                    break;
+                case FOUND:
+                    found++;
+                    break;
+                case MISSING:
+                    missing++;
+                    break;
+                case FAILED:
+                    failed++;
+                    break;
+                default:
+                    throw new IllegalArgumentException();
+            }
+            this.bytes += bytes;
+            this.remoteMillis += durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            int total = cached + found + missing + failed;
+            return String.format("%d requests, %d cached (%d%%), %d found, %d missing, %d failed, %d bytes downloaded, %s in remote requests",
+                total, cached, total == 0 ? 0 : cached * 100 / total, found, missing, failed, bytes, Clock.prettyTime(remoteMillis));
+        }
+    }
+}
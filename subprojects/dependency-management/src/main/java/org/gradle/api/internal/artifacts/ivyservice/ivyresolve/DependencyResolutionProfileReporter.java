@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Action;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.internal.IoActions;
+import org.gradle.util.BuildCommencedTimeProvider;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Writes the {@link DependencyResolutionProfile} to the profile report directory of the root project at the end of the build.
+ * Nothing is written when the build fails before its projects have been evaluated.
+ */
+public class DependencyResolutionProfileReporter extends BuildAdapter {
+    private static final String FILE_DATE_FORMAT = "yyyy-MM-dd-HH-mm-ss";
+
+    private final DependencyResolutionProfile profile;
+    private final BuildCommencedTimeProvider timeProvider;
+    private File buildDir;
+
+    public DependencyResolutionProfileReporter(DependencyResolutionProfile profile, BuildCommencedTimeProvider timeProvider) {
+        this.profile = profile;
+        this.timeProvider = timeProvider;
+    }
+
+    @Override
+    public void projectsEvaluated(Gradle gradle) {
+        buildDir = gradle.getRootProject().getBuildDir();
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        if (buildDir == null || profile.isEmpty()) {
+            return;
+        }
+        String buildStarted = new SimpleDateFormat(FILE_DATE_FORMAT).format(new Date(timeProvider.getCurrentTime()));
+        File file = new File(buildDir, "reports/profile/dependency-resolution-" + buildStarted + ".txt");
+        file.getParentFile().mkdirs();
+        IoActions.writeTextFile(file, new Action<BufferedWriter>() {
+            public void execute(BufferedWriter writer) {
+                profile.writeTo(new PrintWriter(writer));
+            }
+        });
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolutionProfile.Outcome;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolutionProfile.RequestType;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.progress.BuildOperationExecutor;
+import org.gradle.internal.resolve.ArtifactNotFoundException;
+import org.gradle.internal.resolve.result.BuildableArtifactResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult;
+import org.gradle.internal.resolve.result.BuildableModuleVersionListingResolveResult;
+import org.gradle.util.Clock;
+
+/**
+ * Runs each remote request of a repository as a build operation, and records each request with the {@link DependencyResolutionProfile}.
+ * Requests to the local access that produce a result are recorded as served from the cache. The local access is left as it is when the profile is disabled.
+ */
+public class InstrumentingModuleComponentRepository extends BaseModuleComponentRepository {
+
+    public InstrumentingModuleComponentRepository(ModuleComponentRepository delegate, String consumer, BuildOperationExecutor buildOperationExecutor, DependencyResolutionProfile profile) {
+        super(delegate,
+            createLocalAccess(delegate, consumer, profile),
+            new RemoteAccess(delegate.getRemoteAccess(), new Recorder(consumer, delegate.getName(), profile), buildOperationExecutor));
+    }
+
+    private static ModuleComponentRepositoryAccess createLocalAccess(ModuleComponentRepository delegate, String consumer, DependencyResolutionProfile profile) {
+        if (!profile.isEnabled()) {
+            return delegate.getLocalAccess();
+        }
+        return new LocalAccess(delegate.getLocalAccess(), new Recorder(consumer, delegate.getName(), profile));
+    }
+
+    private static class Recorder {
+        private final String consumer;
+        private final String repository;
+        private final DependencyResolutionProfile profile;
+
+        private Recorder(String consumer, String repository, DependencyResolutionProfile profile) {
+            this.consumer = consumer;
+            this.repository = repository;
+            this.profile = profile;
+        }
+
+        void record(RequestType type, String module, Outcome outcome, long bytes, long durationMillis) {
+            profile.record(consumer, repository, type, module, outcome, bytes, durationMillis);
+        }
+
+        String describe(String request) {
+            return request + " from repository '" + repository + "' for " + consumer;
+        }
+    }
+
+    private static class LocalAccess extends BaseModuleComponentRepositoryAccess {
+        private final Recorder recorder;
+
+        LocalAccess(ModuleComponentRepositoryAccess delegate, Recorder recorder) {
+            super(delegate);
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void listModuleVersions(DependencyMetadata dependency, BuildableModuleVersionListingResolveResult result) {
+            super.listModuleVersions(dependency, result);
+            if (result.getState() != BuildableModuleVersionListingResolveResult.State.Unknown) {
+                recorder.record(RequestType.VERSION_LISTING, toModule(dependency.getRequested()), Outcome.CACHED, 0, 0);
+            }
+        }
+
+        @Override
+        public void resolveComponentMetaData(ModuleComponentIdentifier moduleComponentIdentifier, ComponentOverrideMetadata requestMetaData, BuildableModuleComponentMetaDataResolveResult result) {
+            super.resolveComponentMetaData(moduleComponentIdentifier, requestMetaData, result);
+            if (result.hasResult()) {
+                recorder.record(RequestType.META_DATA, moduleComponentIdentifier.getDisplayName(), Outcome.CACHED, 0, 0);
+            }
+        }
+
+        @Override
+        public void resolveArtifact(ComponentArtifactMetadata artifact, ModuleSource moduleSource, BuildableArtifactResolveResult result) {
+            super.resolveArtifact(artifact, moduleSource, result);
+            if (result.hasResult()) {
+                recorder.record(RequestType.ARTIFACT, artifact.getComponentId().getDisplayName(), Outcome.CACHED, 0, 0);
+            }
+        }
+    }
+
+    private static class RemoteAccess extends BaseModuleComponentRepositoryAccess {
+        private final Recorder recorder;
+        private final BuildOperationExecutor buildOperationExecutor;
+
+        RemoteAccess(ModuleComponentRepositoryAccess delegate, Recorder recorder, BuildOperationExecutor buildOperationExecutor) {
+            super(delegate);
+            this.recorder = recorder;
+            this.buildOperationExecutor = buildOperationExecutor;
+        }
+
+        @Override
+        public void listModuleVersions(final DependencyMetadata dependency, final BuildableModuleVersionListingResolveResult result) {
+            String module = toModule(dependency.getRequested());
+            Clock clock = new Clock();
+            Outcome outcome = Outcome.FAILED;
+            try {
+                buildOperationExecutor.run(recorder.describe("List versions of " + module), new Runnable() {
+                    public void run() {
+                        getDelegate().listModuleVersions(dependency, result);
+                    }
+                });
+                switch (result.getState()) {
+                    case Listed:
+                        outcome = result.getVersions().isEmpty() ? Outcome.MISSING : Outcome.FOUND;
+                        break;
+                    case Unknown:
+                        outcome = Outcome.MISSING;
+                        break;
+                    default:
+                        break;
+                }
+            } finally {
+                recorder.record(RequestType.VERSION_LISTING, module, outcome, 0, clock.getTimeInMs());
+            }
+        }
+
+        @Override
+        public void resolveComponentMetaData(final ModuleComponentIdentifier moduleComponentIdentifier, final ComponentOverrideMetadata requestMetaData, final BuildableModuleComponentMetaDataResolveResult result) {
+            Clock clock = new Clock();
+            Outcome outcome = Outcome.FAILED;
+            try {
+                buildOperationExecutor.run(recorder.describe("Resolve meta-data of " + moduleComponentIdentifier.getDisplayName()), new Runnable() {
+                    public void run() {
+                        getDelegate().resolveComponentMetaData(moduleComponentIdentifier, requestMetaData, result);
+                    }
+                });
+                switch (result.getState()) {
+                    case Resolved:
+                        outcome = Outcome.FOUND;
+                        break;
+                    case Missing:
+                    case Unknown:
+                        outcome = Outcome.MISSING;
+                        break;
+                    default:
+                        break;
+                }
+            } finally {
+                recorder.record(RequestType.META_DATA, moduleComponentIdentifier.getDisplayName(), outcome, 0, clock.getTimeInMs());
+            }
+        }
+
+        @Override
+        public void resolveArtifact(final ComponentArtifactMetadata artifact, final ModuleSource moduleSource, final BuildableArtifactResolveResult result) {
+            Clock clock = new Clock();
+            Outcome outcome = Outcome.FAILED;
+            long bytes = 0;
+            try {
+                buildOperationExecutor.run(recorder.describe("Download " + artifact.getId().getDisplayName()), new Runnable() {
+                    public void run() {
+                        getDelegate().resolveArtifact(artifact, moduleSource, result);
+                    }
+                });
+                if (!result.hasResult() || result.getFailure() instanceof ArtifactNotFoundException) {
+                    outcome = Outcome.MISSING;
+                } else if (result.getFailure() == null) {
+                    outcome = Outcome.FOUND;
+                    bytes = result.getFile().length();
+                }
+            } finally {
+                recorder.record(RequestType.ARTIFACT, artifact.getComponentId().getDisplayName(), outcome, bytes, clock.getTimeInMs());
+            }
+        }
+    }
+
+    private static String toModule(ModuleVersionSelector selector) {
+        return selector.getGroup() + ":" + selector.getName();
+    }
+}
@@ -17,7 +17,7 @@ package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
 
 import org.gradle.internal.component.model.ModuleSource;
 
-class RepositoryChainModuleSource implements ModuleSource {
+public class RepositoryChainModuleSource implements ModuleSource {
     private final String repositoryId;
     private final ModuleSource delegate;
 
@@ -32,6 +32,8 @@ import org.gradle.util.BuildCommencedTimeProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigInteger;
+
 public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultModuleMetaDataCache.class);
 
@@ -39,11 +41,13 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
     private final CacheLockingManager cacheLockingManager;
 
     private final ModuleDescriptorStore moduleDescriptorStore;
+    private final InMemoryModuleDescriptorCache inMemoryDescriptorCache;
     private PersistentIndexedCache<RevisionKey, ModuleDescriptorCacheEntry> cache;
 
-    public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+    public DefaultModuleMetaDataCache(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager, InMemoryModuleDescriptorCache inMemoryDescriptorCache) {
         this.timeProvider = timeProvider;
         this.cacheLockingManager = cacheLockingManager;
+        this.inMemoryDescriptorCache = inMemoryDescriptorCache;
 
         moduleDescriptorStore = new ModuleDescriptorStore(new PathKeyFileStore(cacheLockingManager.createMetaDataStore()), new ModuleDescriptorSerializer());
     }
@@ -56,7 +60,7 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
     }
 
     private PersistentIndexedCache<RevisionKey, ModuleDescriptorCacheEntry> initCache() {
-        return cacheLockingManager.createCache("module-metadata", new RevisionKeySerializer(), new ModuleDescriptorCacheEntrySerializer());
+        return cacheLockingManager.createWriteBehindCache("module-metadata", new RevisionKeySerializer(), new ModuleDescriptorCacheEntrySerializer());
     }
 
     public CachedMetaData getCachedModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier componentId) {
@@ -67,7 +71,7 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         if (entry.isMissing()) {
             return new DefaultCachedMetaData(entry, null, timeProvider);
         }
-        ModuleDescriptorState descriptor = moduleDescriptorStore.getModuleDescriptor(repository, componentId);
+        ModuleDescriptorState descriptor = getModuleDescriptor(repository, componentId, entry);
         if (descriptor == null) {
             // Descriptor file has been deleted - ignore the entry
             return null;
@@ -75,6 +79,25 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         return new DefaultCachedMetaData(entry, entry.createMetaData(componentId, descriptor), timeProvider);
     }
 
+    public CachedDescriptorState getCachedDescriptorState(String repositoryId, ModuleComponentIdentifier componentId) {
+        ModuleDescriptorCacheEntry entry = getCache().get(new RevisionKey(repositoryId, componentId));
+        if (entry == null || entry.isMissing()) {
+            return null;
+        }
+        return new DefaultCachedDescriptorState(entry, timeProvider.getCurrentTime() - entry.createTimestamp);
+    }
+
+    private ModuleDescriptorState getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier componentId, ModuleDescriptorCacheEntry entry) {
+        ModuleDescriptorState descriptor = inMemoryDescriptorCache.get(repository.getId(), componentId, entry.moduleDescriptorHash);
+        if (descriptor == null) {
+            descriptor = moduleDescriptorStore.getModuleDescriptor(repository, componentId);
+            if (descriptor != null) {
+                inMemoryDescriptorCache.put(repository.getId(), componentId, entry.moduleDescriptorHash, descriptor);
+            }
+        }
+        return descriptor;
+    }
+
     public CachedMetaData cacheMissing(ModuleComponentRepository repository, ModuleComponentIdentifier id) {
         LOGGER.debug("Recording absence of module descriptor in cache: {} [changing = {}]", id, false);
         ModuleDescriptorCacheEntry entry = ModuleDescriptorCacheEntry.forMissingModule(timeProvider.getCurrentTime());
@@ -99,6 +122,28 @@ public class DefaultModuleMetaDataCache implements ModuleMetaDataCache {
         return ModuleDescriptorCacheEntry.forMetaData(metaData, timeProvider.getCurrentTime(), moduleDescriptorHash.asBigInteger());
     }
 
+    private static class DefaultCachedDescriptorState implements CachedDescriptorState {
+        private final ModuleDescriptorCacheEntry entry;
+        private final long ageMillis;
+
+        private DefaultCachedDescriptorState(ModuleDescriptorCacheEntry entry, long ageMillis) {
+            this.entry = entry;
+            this.ageMillis = ageMillis;
+        }
+
+        public long getAgeMillis() {
+            return ageMillis;
+        }
+
+        public BigInteger getDescriptorHash() {
+            return entry.moduleDescriptorHash;
+        }
+
+        public boolean isChanging() {
+            return entry.isChanging;
+        }
+    }
+
     private static class RevisionKey {
         private final String repositoryId;
         private final ModuleComponentIdentifier componentId;
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.internal.component.external.descriptor.ModuleDescriptorState;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps recently used module descriptors in memory for the lifetime of the process, so that the builds run by a daemon do not read and deserialize the same
+ * descriptors from the module meta-data store over and over again.
+ *
+ * <p>A descriptor is only reused while the persistent cache entry for the module still refers to a descriptor with the same hash. When the descriptor is refreshed
+ * from the repository, by this process or by another one, it is read from the store again. Whether the persistent cache entry is fresh enough to be used at all is
+ * still decided by the cache policy of the repository, as it is when the descriptor is read from the store.</p>
+ *
+ * <p>The number of descriptors held is bounded, and descriptors are softly referenced so they can be discarded when memory is short.</p>
+ */
+public class InMemoryModuleDescriptorCache implements Stoppable {
+    /**
+     * The maximum number of module descriptors to keep in memory. Defaults to {@value #DEFAULT_MAX_DESCRIPTORS}, use 0 to disable the cache.
+     */
+    public static final String MAX_DESCRIPTORS_PROPERTY = "org.gradle.dependency.resolution.maxCachedDescriptors";
+    static final int DEFAULT_MAX_DESCRIPTORS = 10000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryModuleDescriptorCache.class);
+
+    private final Cache<Key, CachedDescriptor> descriptors;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public InMemoryModuleDescriptorCache() {
+        this(Integer.getInteger(MAX_DESCRIPTORS_PROPERTY, DEFAULT_MAX_DESCRIPTORS));
+    }
+
+    public InMemoryModuleDescriptorCache(int maxDescriptors) {
+        this.descriptors = CacheBuilder.newBuilder().maximumSize(Math.max(0, maxDescriptors)).softValues().build();
+    }
+
+    /**
+     * Returns the descriptor of the given module in the given repository, or null when it is not held in memory or its hash is not the given one.
+     */
+    @Nullable
+    public ModuleDescriptorState get(String repositoryId, ModuleComponentIdentifier componentId, BigInteger descriptorHash) {
+        CachedDescriptor cached = descriptors.getIfPresent(new Key(repositoryId, componentId));
+        if (cached != null && cached.hash.equals(descriptorHash)) {
+            hits.incrementAndGet();
+            return cached.descriptor;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String repositoryId, ModuleComponentIdentifier componentId, BigInteger descriptorHash, ModuleDescriptorState descriptor) {
+        descriptors.put(new Key(repositoryId, componentId), new CachedDescriptor(descriptorHash, descriptor));
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("In-memory module descriptor cache closed. Descriptors held: {}, served from memory: {}, read from store: {}", descriptors.size(), hits.get(), misses.get());
+        descriptors.invalidateAll();
+    }
+
+    private static class Key {
+        private final String repositoryId;
+        private final ModuleComponentIdentifier componentId;
+
+        Key(String repositoryId, ModuleComponentIdentifier componentId) {
+            this.repositoryId = repositoryId;
+            this.componentId = componentId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return repositoryId.equals(other.repositoryId) && componentId.equals(other.componentId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(repositoryId, componentId);
+        }
+    }
+
+    private static class CachedDescriptor {
+        private final BigInteger hash;
+        private final ModuleDescriptorState descriptor;
+
+        CachedDescriptor(BigInteger hash, ModuleDescriptorState descriptor) {
+            this.hash = hash;
+            this.descriptor = descriptor;
+        }
+    }
+}
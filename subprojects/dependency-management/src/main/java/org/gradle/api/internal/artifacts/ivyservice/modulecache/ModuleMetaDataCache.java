@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ResolvedModuleVersion;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
@@ -31,6 +32,13 @@ public interface ModuleMetaDataCache {
 
     CachedMetaData getCachedModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier id);
 
+    /**
+     * Returns the state of the meta-data cached for the given component in the given repository, without loading the module descriptor.
+     * Returns null when nothing is cached for the component, or when the component is cached as missing.
+     */
+    @Nullable
+    CachedDescriptorState getCachedDescriptorState(String repositoryId, ModuleComponentIdentifier id);
+
     interface CachedMetaData {
         ResolvedModuleVersion getModuleVersion();
 
@@ -44,4 +52,12 @@ public interface ModuleMetaDataCache {
 
         ModuleSource getModuleSource();
     }
+
+    interface CachedDescriptorState {
+        long getAgeMillis();
+
+        BigInteger getDescriptorHash();
+
+        boolean isChanging();
+    }
 }
@@ -58,6 +58,27 @@ public class DefaultArtifactSet implements ArtifactSet {
         return id;
     }
 
+    public ModuleVersionIdentifier getModuleVersionIdentifier() {
+        return moduleVersionIdentifier;
+    }
+
+    public ModuleSource getModuleSource() {
+        return moduleSource;
+    }
+
+    /**
+     * Returns the meta-data of the artifacts in this set that are not excluded.
+     */
+    public Set<ComponentArtifactMetadata> getIncludedArtifacts() {
+        Set<ComponentArtifactMetadata> includedArtifacts = new LinkedHashSet<ComponentArtifactMetadata>(artifacts.size());
+        for (ComponentArtifactMetadata artifact : artifacts) {
+            if (!exclusions.excludeArtifact(moduleVersionIdentifier.getModule(), artifact.getName())) {
+                includedArtifacts.add(artifact);
+            }
+        }
+        return includedArtifacts;
+    }
+
     public Set<ResolvedArtifact> getArtifacts() {
         Set<ResolvedArtifact> resolvedArtifacts = new LinkedHashSet<ResolvedArtifact>(artifacts.size());
         for (ComponentArtifactMetadata artifact : artifacts) {
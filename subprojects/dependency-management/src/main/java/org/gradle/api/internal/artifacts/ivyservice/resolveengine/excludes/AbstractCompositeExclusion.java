@@ -19,6 +19,12 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
 import java.util.Collection;
 
 abstract class AbstractCompositeExclusion extends AbstractModuleExclusion {
+    private int hashCode;
+    private boolean hashCodeCalculated;
+
+    /**
+     * The filters of a composite are not modified once it has been created.
+     */
     abstract Collection<AbstractModuleExclusion> getFilters();
 
     @Override
@@ -48,7 +54,12 @@ abstract class AbstractCompositeExclusion extends AbstractModuleExclusion {
 
     @Override
     protected int doHashCode() {
-        return getFilters().hashCode();
+        // Composites are used as keys when interning, so avoid walking the filters each time
+        if (!hashCodeCalculated) {
+            hashCode = getFilters().hashCode();
+            hashCodeCalculated = true;
+        }
+        return hashCode;
     }
 
     /**
@@ -16,16 +16,17 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
 
-import org.gradle.api.Transformer;
+import com.google.common.collect.ImmutableList;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.internal.component.model.Exclude;
 import org.gradle.internal.component.model.IvyArtifactName;
-import org.gradle.util.CollectionUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.AbstractModuleExclusion.isWildcard;
 
@@ -45,10 +46,19 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
  *     <li>When a module is depended on via a transitive path, then the resulting exclusion is the _intersection_ of the exclusions on each leg of the path (module is excluded if excluded by _any_).</li>
  *     <li>When a module is depended on via multiple paths in the graph, then the resulting exclusion is the _union_ of the exclusions on each of those paths (module is excluded if excluded by _all_).</li>
  * </ul>
+ *
+ * <p>An instance is intended to be used for a single resolution. All specs it creates are interned, so that equal specs are the same instance and can be compared by reference, and the
+ * results of {@link #excludeAny}, {@link #union} and {@link #intersect} are memoized, as the same exclusions are combined for many of the edges of the dependency graph.
+ * This class is not thread-safe.</p>
  */
 public class ModuleExclusions {
     static final ExcludeNone EXCLUDE_NONE = new ExcludeNone();
 
+    private final Map<AbstractModuleExclusion, AbstractModuleExclusion> interned = new HashMap<AbstractModuleExclusion, AbstractModuleExclusion>();
+    private final Map<List<Exclude>, ModuleExclusion> excludeAnyCache = new HashMap<List<Exclude>, ModuleExclusion>();
+    private final Map<ExclusionPair, ModuleExclusion> intersectionCache = new HashMap<ExclusionPair, ModuleExclusion>();
+    private final Map<ExclusionPair, ModuleExclusion> unionCache = new HashMap<ExclusionPair, ModuleExclusion>();
+
     /**
      * Returns a spec that excludes nothing.
      */
@@ -59,7 +69,7 @@ public class ModuleExclusions {
     /**
      * Returns a spec that excludes those modules and artifacts that are excluded by _any_ of the given exclude rules.
      */
-    public static ModuleExclusion excludeAny(Exclude... excludes) {
+    public ModuleExclusion excludeAny(Exclude... excludes) {
         if (excludes.length == 0) {
             return EXCLUDE_NONE;
         }
@@ -69,16 +79,36 @@ public class ModuleExclusions {
     /**
      * Returns a spec that excludes those modules and artifacts that are excluded by _any_ of the given exclude rules.
      */
-    public static ModuleExclusion excludeAny(Collection<Exclude> excludes) {
+    public ModuleExclusion excludeAny(Collection<Exclude> excludes) {
         if (excludes.isEmpty()) {
             return EXCLUDE_NONE;
         }
-        return new IntersectionExclusion(CollectionUtils.collect(excludes, new Transformer<AbstractModuleExclusion, Exclude>() {
-            @Override
-            public AbstractModuleExclusion transform(Exclude exclude) {
-                return forExclude(exclude);
+        List<Exclude> key = ImmutableList.copyOf(excludes);
+        ModuleExclusion exclusion = excludeAnyCache.get(key);
+        if (exclusion == null) {
+            List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>(key.size());
+            for (Exclude exclude : key) {
+                specs.add(intern(forExclude(exclude)));
             }
-        }));
+            exclusion = intern(new IntersectionExclusion(specs));
+            excludeAnyCache.put(key, exclusion);
+        }
+        return exclusion;
+    }
+
+    /**
+     * Returns the canonical instance of the given spec.
+     */
+    private AbstractModuleExclusion intern(AbstractModuleExclusion spec) {
+        if (spec == EXCLUDE_NONE) {
+            return spec;
+        }
+        AbstractModuleExclusion existing = interned.get(spec);
+        if (existing != null) {
+            return existing;
+        }
+        interned.put(spec, spec);
+        return spec;
     }
 
     private static AbstractModuleExclusion forExclude(Exclude rule) {
@@ -112,7 +142,7 @@ public class ModuleExclusions {
     /**
      * Returns a spec that excludes those modules and artifacts that are excluded by _either_ of the given exclude rules.
      */
-    public static ModuleExclusion intersect(ModuleExclusion one, ModuleExclusion two) {
+    public ModuleExclusion intersect(ModuleExclusion one, ModuleExclusion two) {
         if (one == two) {
             return one;
         }
@@ -123,17 +153,22 @@ public class ModuleExclusions {
             return one;
         }
 
-        List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
-        ((AbstractModuleExclusion) one).unpackIntersection(specs);
-        ((AbstractModuleExclusion) two).unpackIntersection(specs);
-
-        return new IntersectionExclusion(specs);
+        ExclusionPair key = new ExclusionPair(one, two);
+        ModuleExclusion intersection = intersectionCache.get(key);
+        if (intersection == null) {
+            List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
+            ((AbstractModuleExclusion) one).unpackIntersection(specs);
+            ((AbstractModuleExclusion) two).unpackIntersection(specs);
+            intersection = intern(new IntersectionExclusion(specs));
+            intersectionCache.put(key, intersection);
+        }
+        return intersection;
     }
 
     /**
      * Returns a spec that excludes only those modules and artifacts that are excluded by both of the supplied exclude rules.
      */
-    public static ModuleExclusion union(ModuleExclusion one, ModuleExclusion two) {
+    public ModuleExclusion union(ModuleExclusion one, ModuleExclusion two) {
         if (one == two) {
             return one;
         }
@@ -141,6 +176,16 @@ public class ModuleExclusions {
             return EXCLUDE_NONE;
         }
 
+        ExclusionPair key = new ExclusionPair(one, two);
+        ModuleExclusion union = unionCache.get(key);
+        if (union == null) {
+            union = calculateUnion(one, two);
+            unionCache.put(key, union);
+        }
+        return union;
+    }
+
+    private ModuleExclusion calculateUnion(ModuleExclusion one, ModuleExclusion two) {
         List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
         ((AbstractModuleExclusion) one).unpackUnion(specs);
         ((AbstractModuleExclusion) two).unpackUnion(specs);
@@ -156,7 +201,7 @@ public class ModuleExclusions {
                 }
             }
             if (merged != null) {
-                specs.set(i, merged);
+                specs.set(i, intern(merged));
             } else {
                 i++;
             }
@@ -164,7 +209,7 @@ public class ModuleExclusions {
         if (specs.size() == 1) {
             return specs.get(0);
         }
-        return new UnionExclusion(specs);
+        return intern(new UnionExclusion(specs));
     }
 
     /**
@@ -297,4 +342,35 @@ public class ModuleExclusions {
         }
     }
 
+    /**
+     * An ordered pair of exclusions, compared by reference. As exclusions are interned, equal exclusions are usually the same instance.
+     */
+    private static class ExclusionPair {
+        private final ModuleExclusion left;
+        private final ModuleExclusion right;
+        private final int hashCode;
+
+        private ExclusionPair(ModuleExclusion left, ModuleExclusion right) {
+            this.left = left;
+            this.right = right;
+            this.hashCode = 31 * System.identityHashCode(left) + System.identityHashCode(right);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof ExclusionPair)) {
+                return false;
+            }
+            ExclusionPair other = (ExclusionPair) obj;
+            return left == other.left && right == other.right;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.cache.CacheAccess;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
+import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentIdResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Resolves module version selectors, and the meta-data of the components they select, ahead of the dependency graph traversal, so that the
+ * remote requests made for different selectors can overlap.
+ *
+ * <p>The graph is still built on the calling thread and in the same order as without prefetching. Each prefetched selector is resolved once,
+ * with the same inputs the traversal would use, and the traversal consumes that result instead of calling the resolvers itself. When the
+ * traversal reaches a selector whose prefetch has not started yet, the prefetch runs on the calling thread.</p>
+ *
+ * <p>The resolvers are not thread-safe, so the workers only call them while they own the given cache. The resolvers already release the
+ * cache while they talk to a remote repository, which is where the workers overlap. The calling thread must own the cache, and releases
+ * it while it waits for a worker.</p>
+ */
+class ComponentMetaDataPrefetcher {
+    private final DependencyToComponentIdResolver idResolver;
+    private final ComponentMetaDataResolver metaDataResolver;
+    private final Executor executor;
+    private final CacheAccess cacheAccess;
+    private final Map<ModuleVersionSelector, PrefetchedSelector> selectors = new HashMap<ModuleVersionSelector, PrefetchedSelector>();
+    private final Queue<FutureTask<?>> submitted = new ConcurrentLinkedQueue<FutureTask<?>>();
+    private volatile boolean stopped;
+
+    ComponentMetaDataPrefetcher(DependencyToComponentIdResolver idResolver, ComponentMetaDataResolver metaDataResolver, Executor executor, CacheAccess cacheAccess) {
+        this.idResolver = idResolver;
+        this.metaDataResolver = metaDataResolver;
+        this.executor = executor;
+        this.cacheAccess = cacheAccess;
+    }
+
+    /**
+     * Starts resolving the given dependency, unless a dependency with the same requested module version has already been prefetched.
+     * Only dependencies on external modules are prefetched.
+     */
+    void prefetch(DependencyMetadata dependency) {
+        if (stopped || !(dependency.getSelector() instanceof ModuleComponentSelector) || isClientModule(dependency)) {
+            return;
+        }
+        ModuleVersionSelector requested = dependency.getRequested();
+        if (selectors.containsKey(requested)) {
+            return;
+        }
+        PrefetchedSelector selector = new PrefetchedSelector(dependency);
+        selectors.put(requested, selector);
+        submit(selector.idResult);
+    }
+
+    /**
+     * Returns the prefetched resolution of the given dependency, or null when the dependency was not prefetched using the same inputs.
+     */
+    @Nullable
+    PrefetchedSelector get(DependencyMetadata dependency) {
+        PrefetchedSelector selector = selectors.get(dependency.getRequested());
+        if (selector == null || !selector.canBeUsedFor(dependency)) {
+            return null;
+        }
+        return selector;
+    }
+
+    /**
+     * Discards the prefetches that have not started yet. Prefetches that are already running are left to complete.
+     */
+    void stop() {
+        stopped = true;
+        for (FutureTask<?> task : submitted) {
+            task.cancel(false);
+        }
+        submitted.clear();
+    }
+
+    private void submit(FutureTask<?> task) {
+        if (stopped) {
+            return;
+        }
+        submitted.add(task);
+        executor.execute(task);
+    }
+
+    private <T> T await(final FutureTask<T> task, String displayName) {
+        // Runs the task on this thread, if no worker has picked it up yet
+        task.run();
+        if (!task.isDone()) {
+            cacheAccess.longRunningOperation("Wait for prefetch of " + displayName, new Runnable() {
+                public void run() {
+                    try {
+                        task.get();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    } catch (ExecutionException e) {
+                        // Rethrown below, once the cache has been reacquired
+                    }
+                }
+            });
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private static boolean isClientModule(DependencyMetadata dependency) {
+        return dependency instanceof DslOriginDependencyMetadata && ((DslOriginDependencyMetadata) dependency).getSource() instanceof ClientModule;
+    }
+
+    class PrefetchedSelector {
+        private final DependencyMetadata dependency;
+        private final FutureTask<BuildableComponentIdResolveResult> idResult;
+        // Assigned by the id resolution task before it completes
+        private volatile FutureTask<BuildableComponentResolveResult> metaDataResult;
+
+        private PrefetchedSelector(final DependencyMetadata dependency) {
+            this.dependency = dependency;
+            this.idResult = new FutureTask<BuildableComponentIdResolveResult>(new Callable<BuildableComponentIdResolveResult>() {
+                public BuildableComponentIdResolveResult call() {
+                    final BuildableComponentIdResolveResult result = new DefaultBuildableComponentIdResolveResult();
+                    cacheAccess.useCache("Resolve " + dependency, new Runnable() {
+                        public void run() {
+                            idResolver.resolve(dependency, result);
+                        }
+                    });
+                    if (result.getFailure() == null && result.getMetaData() == null && result.getId() instanceof ModuleComponentIdentifier) {
+                        metaDataResult = new FutureTask<BuildableComponentResolveResult>(new ResolveMetaData(result.getId()));
+                        submit(metaDataResult);
+                    }
+                    return result;
+                }
+            });
+        }
+
+        private boolean canBeUsedFor(DependencyMetadata other) {
+            return other == dependency
+                || (other.getSelector().equals(dependency.getSelector())
+                    && other.isChanging() == dependency.isChanging()
+                    && other.getArtifacts().equals(dependency.getArtifacts())
+                    && !isClientModule(other));
+        }
+
+        /**
+         * Waits for the selector to be resolved.
+         */
+        BuildableComponentIdResolveResult getIdResult() {
+            return await(idResult, dependency.toString());
+        }
+
+        /**
+         * Waits for the meta-data of the selected component to be resolved. Returns null when the meta-data was not prefetched.
+         * Must be called after {@link #getIdResult()}.
+         */
+        @Nullable
+        BuildableComponentResolveResult getMetaDataResult() {
+            FutureTask<BuildableComponentResolveResult> task = metaDataResult;
+            return task == null ? null : await(task, dependency.toString());
+        }
+
+        private class ResolveMetaData implements Callable<BuildableComponentResolveResult> {
+            private final ComponentIdentifier id;
+
+            private ResolveMetaData(ComponentIdentifier id) {
+                this.id = id;
+            }
+
+            public BuildableComponentResolveResult call() {
+                final BuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+                cacheAccess.useCache("Resolve " + id, new Runnable() {
+                    public void run() {
+                        metaDataResolver.resolve(id, DefaultComponentOverrideMetadata.forDependency(dependency), result);
+                    }
+                });
+                return result;
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph;
 
 import com.google.common.base.Joiner;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.artifacts.ModuleVersionIdentifier;
@@ -38,6 +39,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflict
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.PotentialConflict;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons;
+import org.gradle.cache.CacheAccess;
 import org.gradle.internal.Cast;
 import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
 import org.gradle.internal.component.model.*;
@@ -50,6 +52,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 
 public class DependencyGraphBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
@@ -58,25 +61,46 @@ public class DependencyGraphBuilder {
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final Executor prefetchExecutor;
+    private final CacheAccess cacheAccess;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
                                   ConflictHandler conflictHandler) {
+        this(componentIdResolver, componentMetaDataResolver, resolveContextToComponentResolver, dependencyToConfigurationResolver, conflictHandler, null, null);
+    }
+
+    /**
+     * @param prefetchExecutor The executor to use to resolve component meta-data ahead of the graph traversal, or null to resolve it during the traversal.
+     * @param cacheAccess The cache that guards the resolvers. Must be provided when a prefetch executor is provided, and must be owned by the thread that calls {@link #resolve}.
+     */
+    public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
+                                  ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                                  ConflictHandler conflictHandler, @Nullable Executor prefetchExecutor, @Nullable CacheAccess cacheAccess) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+        this.prefetchExecutor = prefetchExecutor;
+        this.cacheAccess = cacheAccess;
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
         DefaultBuildableComponentResolveResult rootModule = new DefaultBuildableComponentResolveResult();
         moduleResolver.resolve(resolveContext, rootModule);
 
-        ResolveState resolveState = new ResolveState(rootModule, resolveContext.getName(), idResolver, metaDataResolver, dependencyToConfigurationResolver);
+        ComponentMetaDataPrefetcher prefetcher = prefetchExecutor == null ? null : new ComponentMetaDataPrefetcher(idResolver, metaDataResolver, prefetchExecutor, cacheAccess);
+        ResolveState resolveState = new ResolveState(rootModule, resolveContext.getName(), idResolver, metaDataResolver, dependencyToConfigurationResolver, prefetcher);
         conflictHandler.registerResolver(new DirectDependencyForcingResolver(resolveState.root.moduleRevision));
 
-        traverseGraph(resolveState, conflictHandler);
+        try {
+            traverseGraph(resolveState, conflictHandler);
+        } finally {
+            if (prefetcher != null) {
+                prefetcher.stop();
+            }
+        }
 
         assembleResult(resolveState, modelVisitor);
     }
@@ -185,14 +209,18 @@ public class DependencyGraphBuilder {
      * Represents the edges in the dependency graph.
      */
     private static class DependencyEdge implements DependencyGraphEdge {
+        private static final int[] NO_TARGETS = new int[0];
+
         public final ConfigurationNode from;
         public final ModuleVersionSelectorResolveState selector;
 
         private final DependencyMetadata dependencyMetadata;
         private final ResolveState resolveState;
         private final ModuleExclusion moduleExclusion;
-        private final Set<ConfigurationNode> targetConfigurations = new LinkedHashSet<ConfigurationNode>();
+        // The ids of the target configuration nodes
+        private int[] targetConfigurations = NO_TARGETS;
         private ModuleVersionResolveState targetModuleRevision;
+        private ModuleExclusion exclusions;
 
         public DependencyEdge(ConfigurationNode from, DependencyMetadata dependencyMetadata, ModuleExclusion moduleExclusion, ResolveState resolveState) {
             this.from = from;
@@ -232,19 +260,19 @@ public class DependencyGraphBuilder {
                 return;
             }
             calculateTargetConfigurations();
-            for (ConfigurationNode targetConfiguration : targetConfigurations) {
-                targetConfiguration.addIncomingEdge(this);
+            for (int targetConfiguration : targetConfigurations) {
+                resolveState.getConfigurationNode(targetConfiguration).addIncomingEdge(this);
             }
-            if (!targetConfigurations.isEmpty()) {
+            if (targetConfigurations.length > 0) {
                 selector.getSelectedModule().removeUnattachedDependency(this);
             }
         }
 
         public void removeFromTargetConfigurations() {
-            for (ConfigurationNode targetConfiguration : targetConfigurations) {
-                targetConfiguration.removeIncomingEdge(this);
+            for (int targetConfiguration : targetConfigurations) {
+                resolveState.getConfigurationNode(targetConfiguration).removeIncomingEdge(this);
             }
-            targetConfigurations.clear();
+            targetConfigurations = NO_TARGETS;
             if (targetModuleRevision != null) {
                 selector.getSelectedModule().removeUnattachedDependency(this);
             }
@@ -256,7 +284,7 @@ public class DependencyGraphBuilder {
         }
 
         private void calculateTargetConfigurations() {
-            targetConfigurations.clear();
+            targetConfigurations = NO_TARGETS;
             ComponentResolveMetadata targetModuleVersion = targetModuleRevision.getMetaData();
             if (targetModuleVersion == null) {
                 // Broken version
@@ -264,16 +292,21 @@ public class DependencyGraphBuilder {
             }
 
             Set<ConfigurationMetadata> targetConfigurations = resolveState.dependencyToConfigurationResolver.resolveTargetConfigurations(dependencyMetadata, from.metaData, targetModuleVersion);
+            int[] targets = new int[targetConfigurations.size()];
+            int index = 0;
             for (ConfigurationMetadata targetConfiguration : targetConfigurations) {
-                ConfigurationNode targetConfigurationNode = resolveState.getConfigurationNode(targetModuleRevision, targetConfiguration.getName());
-                this.targetConfigurations.add(targetConfigurationNode);
+                targets[index++] = resolveState.getConfigurationNode(targetModuleRevision, targetConfiguration.getName()).nodeId;
             }
+            this.targetConfigurations = targets;
         }
 
         public ModuleExclusion getExclusions() {
-            Set<String> hierarchy = from.metaData.getHierarchy();
-            ModuleExclusion edgeExclusions = ModuleExclusions.excludeAny(dependencyMetadata.getExcludes(hierarchy));
-            return ModuleExclusions.intersect(edgeExclusions, moduleExclusion);
+            if (exclusions == null) {
+                Set<String> hierarchy = from.metaData.getHierarchy();
+                ModuleExclusion edgeExclusions = resolveState.moduleExclusions.excludeAny(dependencyMetadata.getExcludes(hierarchy));
+                exclusions = resolveState.moduleExclusions.intersect(edgeExclusions, moduleExclusion);
+            }
+            return exclusions;
         }
 
         public ComponentSelector getRequested() {
@@ -309,28 +342,36 @@ public class DependencyGraphBuilder {
     }
 
     /**
-     * Global resolution state.
+     * Global resolution state. Configuration nodes are identified by their index in the list of nodes, so that the queue and the edges can refer to nodes
+     * without allocating hash entries or identifiers during traversal.
+     *
+     * <p>Modules and module versions remain keyed by identifier: they are looked up from dependency and component meta-data, which only carry identifiers,
+     * and from the conflict handler, which reports modules by identifier. Giving them an index as well would not remove any of these lookups.</p>
      */
     private static class ResolveState {
         private final Map<ModuleIdentifier, ModuleResolveState> modules = new LinkedHashMap<ModuleIdentifier, ModuleResolveState>();
-        private final Map<ResolvedConfigurationIdentifier, ConfigurationNode> nodes = new LinkedHashMap<ResolvedConfigurationIdentifier, ConfigurationNode>();
+        private final List<ConfigurationNode> nodes = new ArrayList<ConfigurationNode>();
         private final Map<ModuleVersionSelector, ModuleVersionSelectorResolveState> selectors = new LinkedHashMap<ModuleVersionSelector, ModuleVersionSelectorResolveState>();
         private final RootConfigurationNode root;
         private final DependencyToComponentIdResolver idResolver;
         private final ComponentMetaDataResolver metaDataResolver;
         private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
-        private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
-        private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
+        private final ComponentMetaDataPrefetcher prefetcher;
+        private final BitSet queued = new BitSet();
+        private final Deque<ConfigurationNode> queue = new ArrayDeque<ConfigurationNode>();
+        private final ModuleExclusions moduleExclusions = new ModuleExclusions();
 
         public ResolveState(ComponentResolveResult rootResult, String rootConfigurationName, DependencyToComponentIdResolver idResolver,
-                            ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver) {
+                            ComponentMetaDataResolver metaDataResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                            @Nullable ComponentMetaDataPrefetcher prefetcher) {
             this.idResolver = idResolver;
             this.metaDataResolver = metaDataResolver;
             this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+            this.prefetcher = prefetcher;
             ModuleVersionResolveState rootVersion = getRevision(rootResult.getId());
             rootVersion.setMetaData(rootResult.getMetaData());
-            root = new RootConfigurationNode(rootVersion, new ResolvedConfigurationIdentifier(rootVersion.id, rootConfigurationName), this);
-            nodes.put(root.id, root);
+            root = new RootConfigurationNode(nodes.size(), rootVersion, new ResolvedConfigurationIdentifier(rootVersion.id, rootConfigurationName), this);
+            nodes.add(root);
             root.moduleRevision.module.select(root.moduleRevision);
         }
 
@@ -348,15 +389,18 @@ public class DependencyGraphBuilder {
         }
 
         public Collection<ConfigurationNode> getConfigurationNodes() {
-            return nodes.values();
+            return nodes;
+        }
+
+        public ConfigurationNode getConfigurationNode(int nodeId) {
+            return nodes.get(nodeId);
         }
 
         public ConfigurationNode getConfigurationNode(ModuleVersionResolveState module, String configurationName) {
-            ResolvedConfigurationIdentifier id = new ResolvedConfigurationIdentifier(module.id, configurationName);
-            ConfigurationNode configuration = nodes.get(id);
+            ConfigurationNode configuration = module.getConfiguration(configurationName);
             if (configuration == null) {
-                configuration = new ConfigurationNode(id, module, this);
-                nodes.put(id, configuration);
+                configuration = new ConfigurationNode(nodes.size(), new ResolvedConfigurationIdentifier(module.id, configurationName), module, this);
+                nodes.add(configuration);
             }
             return configuration;
         }
@@ -377,7 +421,7 @@ public class DependencyGraphBuilder {
 
         public ConfigurationNode pop() {
             ConfigurationNode next = queue.removeFirst();
-            queued.remove(next);
+            queued.clear(next.nodeId);
             return next;
         }
 
@@ -387,17 +431,30 @@ public class DependencyGraphBuilder {
         public void onMoreSelected(ConfigurationNode configuration) {
             // Add to the end of the queue, so that we traverse the graph in breadth-wise order to pick up as many conflicts as
             // possible before attempting to resolve them
-            if (queued.add(configuration)) {
+            if (!queued.get(configuration.nodeId)) {
+                queued.set(configuration.nodeId);
                 queue.addLast(configuration);
+                if (prefetcher != null) {
+                    configuration.prefetchOutgoingDependencies(prefetcher);
+                }
             }
         }
 
+        /**
+         * Returns the prefetched resolution of the given dependency, or null when it has not been prefetched.
+         */
+        @Nullable
+        public ComponentMetaDataPrefetcher.PrefetchedSelector getPrefetched(DependencyMetadata dependencyMetadata) {
+            return prefetcher == null ? null : prefetcher.get(dependencyMetadata);
+        }
+
         /**
          * Called when a change is made to a configuration node, such that its dependency graph <em>may</em> now be smaller than it previously was, and the node should be visited.
          */
         public void onFewerSelected(ConfigurationNode configuration) {
             // Add to the front of the queue, to flush out configurations that are no longer required.
-            if (queued.add(configuration)) {
+            if (!queued.get(configuration.nodeId)) {
+                queued.set(configuration.nodeId);
                 queue.addFirst(configuration);
             }
         }
@@ -502,7 +559,7 @@ public class DependencyGraphBuilder {
     public static class ModuleVersionResolveState implements ComponentResolutionState, ModuleVersionSelection {
         public final ModuleVersionIdentifier id;
         private final ComponentMetaDataResolver resolver;
-        private final Set<ConfigurationNode> configurations = new LinkedHashSet<ConfigurationNode>();
+        private final List<ConfigurationNode> configurations = new ArrayList<ConfigurationNode>(2);
         private final ModuleResolveState module;
         private ComponentResolveMetadata metaData;
         private ModuleState state = ModuleState.New;
@@ -560,8 +617,11 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-            resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetadata), result);
+            BuildableComponentResolveResult result = firstReference.prefetched == null ? null : firstReference.prefetched.getMetaDataResult();
+            if (result == null) {
+                result = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetadata), result);
+            }
             if (result.getFailure() != null) {
                 failure = result.getFailure();
                 return;
@@ -585,6 +645,20 @@ public class DependencyGraphBuilder {
             configurations.add(configurationNode);
         }
 
+        /**
+         * Returns the node for the given configuration of this module version, or null when there is none. A module version usually has only a few nodes,
+         * so these are searched rather than looked up by identifier.
+         */
+        @Nullable
+        public ConfigurationNode getConfiguration(String configurationName) {
+            for (ConfigurationNode configuration : configurations) {
+                if (configuration.id.getConfiguration().equals(configurationName)) {
+                    return configuration;
+                }
+            }
+            return null;
+        }
+
         public ComponentSelectionReason getSelectionReason() {
             return selectionReason;
         }
@@ -616,12 +690,14 @@ public class DependencyGraphBuilder {
         public final Set<DependencyEdge> incomingEdges = new LinkedHashSet<DependencyEdge>();
         public final Set<DependencyEdge> outgoingEdges = new LinkedHashSet<DependencyEdge>();
         public final ResolvedConfigurationIdentifier id;
+        public final int nodeId;
 
         private final ConfigurationMetadata metaData;
         private final ResolveState resolveState;
         private ModuleExclusion previousTraversalExclusions;
 
-        private ConfigurationNode(ResolvedConfigurationIdentifier id, ModuleVersionResolveState moduleRevision, ResolveState resolveState) {
+        private ConfigurationNode(int nodeId, ResolvedConfigurationIdentifier id, ModuleVersionResolveState moduleRevision, ResolveState resolveState) {
+            this.nodeId = nodeId;
             this.id = id;
             this.moduleRevision = moduleRevision;
             this.resolveState = resolveState;
@@ -728,6 +804,31 @@ public class DependencyGraphBuilder {
             previousTraversalExclusions = resolutionFilter;
         }
 
+        /**
+         * Starts resolving the dependencies that this configuration is likely to have when it is next visited. Dependencies that turn out to be excluded are
+         * prefetched anyway, as the exclusions are only known once the configuration is visited.
+         */
+        public void prefetchOutgoingDependencies(ComponentMetaDataPrefetcher prefetcher) {
+            if (moduleRevision.state != ModuleState.Selected || !hasTransitiveIncomingEdges()) {
+                return;
+            }
+            for (DependencyMetadata dependency : metaData.getDependencies()) {
+                prefetcher.prefetch(dependency);
+            }
+        }
+
+        private boolean hasTransitiveIncomingEdges() {
+            if (this == resolveState.root) {
+                return true;
+            }
+            for (DependencyEdge edge : incomingEdges) {
+                if (edge.isTransitive()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         private boolean isExcluded(ModuleExclusion selector, ModuleIdentifier targetModuleId) {
             if(selector.excludeModule(targetModuleId)) {
                 LOGGER.debug("{} is excluded from {}.", targetModuleId, this);
@@ -759,10 +860,10 @@ public class DependencyGraphBuilder {
                 resolutionFilter = transitiveEdges.get(0).getExclusions();
                 for (int i = 1; i < transitiveEdges.size(); i++) {
                     DependencyEdge dependencyEdge = transitiveEdges.get(i);
-                    resolutionFilter = ModuleExclusions.union(resolutionFilter, dependencyEdge.getExclusions());
+                    resolutionFilter = resolveState.moduleExclusions.union(resolutionFilter, dependencyEdge.getExclusions());
                 }
             }
-            resolutionFilter = ModuleExclusions.intersect(resolutionFilter, ModuleExclusions.excludeAny(metaData.getExcludes()));
+            resolutionFilter = resolveState.moduleExclusions.intersect(resolutionFilter, resolveState.moduleExclusions.excludeAny(metaData.getExcludes()));
             return resolutionFilter;
         }
 
@@ -803,8 +904,8 @@ public class DependencyGraphBuilder {
     }
 
     private static class RootConfigurationNode extends ConfigurationNode {
-        private RootConfigurationNode(ModuleVersionResolveState moduleRevision, ResolvedConfigurationIdentifier id, ResolveState resolveState) {
-            super(id, moduleRevision, resolveState);
+        private RootConfigurationNode(int nodeId, ModuleVersionResolveState moduleRevision, ResolvedConfigurationIdentifier id, ResolveState resolveState) {
+            super(nodeId, id, moduleRevision, resolveState);
         }
 
         @Override
@@ -828,11 +929,13 @@ public class DependencyGraphBuilder {
         ModuleResolveState targetModule;
         ModuleVersionResolveState targetModuleRevision;
         BuildableComponentIdResolveResult idResolveResult;
+        final ComponentMetaDataPrefetcher.PrefetchedSelector prefetched;
 
         private ModuleVersionSelectorResolveState(DependencyMetadata dependencyMetadata, DependencyToComponentIdResolver resolver, ResolveState resolveState) {
             this.dependencyMetadata = dependencyMetadata;
             this.resolver = resolver;
             this.resolveState = resolveState;
+            this.prefetched = resolveState.getPrefetched(dependencyMetadata);
             targetModule = resolveState.getModule(new DefaultModuleIdentifier(dependencyMetadata.getRequested().getGroup(), dependencyMetadata.getRequested().getName()));
         }
 
@@ -868,8 +971,12 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            idResolveResult = new DefaultBuildableComponentIdResolveResult();
-            resolver.resolve(dependencyMetadata, idResolveResult);
+            if (prefetched != null) {
+                idResolveResult = prefetched.getIdResult();
+            } else {
+                idResolveResult = new DefaultBuildableComponentIdResolveResult();
+                resolver.resolve(dependencyMetadata, idResolveResult);
+            }
             if (idResolveResult.getFailure() != null) {
                 failure = idResolveResult.getFailure();
                 return null;
@@ -23,16 +23,29 @@ import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
 class DefaultBinaryStore implements BinaryStore, Closeable {
     private File file;
+    private final boolean memoryMapped;
     private KryoBackedEncoder encoder;
     private int offset = -1;
 
     public DefaultBinaryStore(File file) {
+        this(file, false);
+    }
+
+    /**
+     * @param memoryMapped when true, the data is read back from a read-only memory mapping of exactly the bytes written for it,
+     * so reading it again does not open the file or copy it through a file stream.
+     */
+    public DefaultBinaryStore(File file, boolean memoryMapped) {
         this.file = file;
+        this.memoryMapped = memoryMapped;
     }
 
     public void write(WriteAction write) {
@@ -70,6 +83,10 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
             if (encoder != null) {
                 encoder.flush();
             }
+            if (memoryMapped) {
+                int length = offset == -1 ? 0 : encoder.getWritePosition() - offset;
+                return new MappedBinaryData(file, offset, length, diagnose());
+            }
             return new SimpleBinaryData(file, offset, diagnose());
         } finally {
             offset = -1;
@@ -143,4 +160,94 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
             return sourceDescription;
         }
     }
+
+    /**
+     * Maps the region of the file holding the data once, on first read. The mapping outlives {@link #close()}, which only rewinds the data,
+     * so that the data can be read again without reopening the file. The mapping is released when it is garbage collected.
+     */
+    private static class MappedBinaryData implements BinaryStore.BinaryData {
+        private final File inputFile;
+        private final int offset;
+        private final int length;
+        private final String sourceDescription;
+
+        private ByteBuffer buffer;
+        private Decoder decoder;
+
+        public MappedBinaryData(File inputFile, int offset, int length, String sourceDescription) {
+            this.inputFile = inputFile;
+            this.offset = offset;
+            this.length = length;
+            this.sourceDescription = sourceDescription;
+        }
+
+        public <T> T read(BinaryStore.ReadAction<T> readAction) {
+            try {
+                if (decoder == null) {
+                    if (buffer == null) {
+                        buffer = map();
+                    }
+                    decoder = new KryoBackedDecoder(new ByteBufferInputStream(buffer.duplicate()));
+                }
+                return readAction.read(decoder);
+            } catch (Exception e) {
+                throw new RuntimeException("Problems reading data from " + sourceDescription, e);
+            }
+        }
+
+        private MappedByteBuffer map() throws IOException {
+            RandomAccessFile randomAccess = new RandomAccessFile(inputFile, "r");
+            try {
+                return randomAccess.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, length);
+            } finally {
+                randomAccess.close();
+            }
+        }
+
+        public void close() {
+            decoder = null;
+        }
+
+        public String toString() {
+            return sourceDescription;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
 }
@@ -0,0 +1,576 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.UnresolvedDependency;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.CachingModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.RepositoryChainModuleSource;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedConfigurationBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedGraphResults;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.InternalDependencyResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.InternalDependencyResultSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelectionSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultBuilder;
+import org.gradle.api.internal.cache.BinaryStore;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetadata;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.DefaultIvyArtifactName;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
+
+/**
+ * Records the events that the resolution of a configuration sends to the result builders, so that the events can be persisted and replayed into the builders of a later build.
+ *
+ * <p>The graph events are written using the same serializers as the binary stores created by {@link ResolutionResultsStoreFactory}. The artifact sets are recorded with the artifacts
+ * that remain after applying the exclude rules, and are replayed using the given artifact resolver.</p>
+ *
+ * <p>A recording is only produced when the graph contains nothing but successfully resolved, non-changing components from cached remote repositories, selected using static versions.
+ * For each component, the recording holds the hash of the module descriptor that the component was resolved from, so that the recording can be validated against the module meta-data cache.</p>
+ */
+public class ResolutionResultsRecorder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolutionResultsRecorder.class);
+
+    private static final byte ROOT = 1;
+    private static final byte MODULE = 2;
+    private static final byte DEPENDENCY = 3;
+    private static final byte NEW_DEP = 4;
+    private static final byte FIRST_LVL = 5;
+    private static final byte PARENT_CHILD = 6;
+    private static final byte OLD_MODEL_ROOT = 7;
+    private static final byte ARTIFACTS = 8;
+    private static final byte DONE = 9;
+
+    private final String displayName;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final Map<ModuleDependency, Integer> firstLevelDependencyIndexes = new IdentityHashMap<ModuleDependency, Integer>();
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+    private final Serializers serializers = new Serializers();
+    private final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIds = Maps.newLinkedHashMap();
+    private final Map<ModuleVersionIdentifier, RepositoryState> repositoryStates = Maps.newHashMap();
+    private final Set<Long> recordedArtifactSets = Sets.newHashSet();
+    private final Map<ModuleSource, Integer> recordedModuleSources = new IdentityHashMap<ModuleSource, Integer>();
+    private ModuleVersionIdentifier root;
+    private String notRecordableReason;
+
+    /**
+     * @param firstLevelDependencies The dependencies declared by the configuration being resolved, in the same order as they will be passed to {@link #replay}.
+     */
+    public ResolutionResultsRecorder(String displayName, List<? extends ModuleDependency> firstLevelDependencies, VersionSelectorScheme versionSelectorScheme) {
+        this.displayName = displayName;
+        this.versionSelectorScheme = versionSelectorScheme;
+        for (int i = 0; i < firstLevelDependencies.size(); i++) {
+            firstLevelDependencyIndexes.put(firstLevelDependencies.get(i), i);
+        }
+    }
+
+    public ResolvedConfigurationBuilder recordOldModel(final ResolvedConfigurationBuilder delegate) {
+        return new ResolvedConfigurationBuilder() {
+            public void addFirstLevelDependency(ModuleDependency moduleDependency, final ResolvedConfigurationIdentifier dependency) {
+                delegate.addFirstLevelDependency(moduleDependency, dependency);
+                final Integer index = firstLevelDependencyIndexes.get(moduleDependency);
+                if (index == null) {
+                    notRecordable("dependency " + moduleDependency + " is not declared by the configuration");
+                    return;
+                }
+                write(new BinaryStore.WriteAction() {
+                    public void write(Encoder encoder) throws IOException {
+                        encoder.writeByte(FIRST_LVL);
+                        encoder.writeSmallInt(index);
+                        serializers.resolvedConfigurationIdentifier.write(encoder, dependency);
+                    }
+                });
+            }
+
+            public void addUnresolvedDependency(UnresolvedDependency unresolvedDependency) {
+                delegate.addUnresolvedDependency(unresolvedDependency);
+                notRecordable("dependency " + unresolvedDependency.getSelector() + " could not be resolved");
+            }
+
+            public void addChild(final ResolvedConfigurationIdentifier parent, final ResolvedConfigurationIdentifier child, final long artifactsId) {
+                delegate.addChild(parent, child, artifactsId);
+                write(new BinaryStore.WriteAction() {
+                    public void write(Encoder encoder) throws IOException {
+                        encoder.writeByte(PARENT_CHILD);
+                        serializers.resolvedConfigurationIdentifier.write(encoder, parent);
+                        serializers.resolvedConfigurationIdentifier.write(encoder, child);
+                        encoder.writeLong(artifactsId);
+                    }
+                });
+            }
+
+            public void newResolvedDependency(final ResolvedConfigurationIdentifier id) {
+                delegate.newResolvedDependency(id);
+                write(new BinaryStore.WriteAction() {
+                    public void write(Encoder encoder) throws IOException {
+                        encoder.writeByte(NEW_DEP);
+                        serializers.resolvedConfigurationIdentifier.write(encoder, id);
+                    }
+                });
+            }
+
+            public void done(final ResolvedConfigurationIdentifier root) {
+                delegate.done(root);
+                write(new BinaryStore.WriteAction() {
+                    public void write(Encoder encoder) throws IOException {
+                        encoder.writeByte(OLD_MODEL_ROOT);
+                        serializers.resolvedConfigurationIdentifier.write(encoder, root);
+                    }
+                });
+            }
+
+            public ResolvedGraphResults complete() {
+                return delegate.complete();
+            }
+        };
+    }
+
+    public ResolutionResultBuilder recordNewModel(final ResolutionResultBuilder delegate) {
+        return new ResolutionResultBuilder() {
+            public ResolutionResultBuilder start(final ModuleVersionIdentifier rootId, final ComponentIdentifier componentIdentifier) {
+                delegate.start(rootId, componentIdentifier);
+                root = rootId;
+                write(new BinaryStore.WriteAction() {
+                    public void write(Encoder encoder) throws IOException {
+                        encoder.writeByte(ROOT);
+                        serializers.moduleVersionIdentifier.write(encoder, rootId);
+                        serializers.componentIdentifier.write(encoder, componentIdentifier);
+                    }
+                });
+                return this;
+            }
+
+            public void resolvedModuleVersion(final ModuleVersionSelection moduleVersion) {
+                delegate.resolvedModuleVersion(moduleVersion);
+                if (componentIds.containsKey(moduleVersion.getId())) {
+                    return;
+                }
+                componentIds.put(moduleVersion.getId(), moduleVersion.getComponentId());
+                write(new BinaryStore.WriteAction() {
+                    public void write(Encoder encoder) throws IOException {
+                        encoder.writeByte(MODULE);
+                        serializers.moduleVersionSelection.write(encoder, moduleVersion);
+                    }
+                });
+            }
+
+            public void resolvedConfiguration(final ModuleVersionIdentifier id, final Collection<? extends InternalDependencyResult> dependencies) {
+                delegate.resolvedConfiguration(id, dependencies);
+                for (InternalDependencyResult dependency : dependencies) {
+                    checkRequested(dependency);
+                }
+                if (dependencies.isEmpty()) {
+                    return;
+                }
+                write(new BinaryStore.WriteAction() {
+                    public void write(Encoder encoder) throws IOException {
+                        encoder.writeByte(DEPENDENCY);
+                        serializers.moduleVersionIdentifier.write(encoder, id);
+                        encoder.writeSmallInt(dependencies.size());
+                        for (InternalDependencyResult dependency : dependencies) {
+                            serializers.internalDependencyResult.write(encoder, dependency);
+                        }
+                    }
+                });
+            }
+
+            public ResolutionResult complete() {
+                return delegate.complete();
+            }
+        };
+    }
+
+    public DependencyArtifactsVisitor recordArtifacts() {
+        return new DependencyArtifactsVisitor() {
+            public void visitArtifacts(final ResolvedConfigurationIdentifier parent, final ResolvedConfigurationIdentifier child, ArtifactSet artifacts) {
+                if (!(artifacts instanceof DefaultArtifactSet)) {
+                    notRecordable("artifacts of " + child + " cannot be recorded");
+                    return;
+                }
+                final DefaultArtifactSet artifactSet = (DefaultArtifactSet) artifacts;
+                final boolean firstVisit = recordedArtifactSets.add(artifactSet.getId());
+                if (firstVisit) {
+                    checkArtifactSet(artifactSet);
+                }
+                write(new BinaryStore.WriteAction() {
+                    public void write(Encoder encoder) throws IOException {
+                        encoder.writeByte(ARTIFACTS);
+                        serializers.resolvedConfigurationIdentifier.write(encoder, parent);
+                        serializers.resolvedConfigurationIdentifier.write(encoder, child);
+                        encoder.writeLong(artifactSet.getId());
+                        encoder.writeBoolean(firstVisit);
+                        if (firstVisit) {
+                            writeArtifactSet(encoder, artifactSet);
+                        }
+                    }
+                });
+            }
+
+            public void finishArtifacts() {
+            }
+        };
+    }
+
+    /**
+     * Returns the recorded events, or null when the results cannot be replayed by a later build.
+     */
+    @Nullable
+    public Recording complete() {
+        List<RecordedComponent> components = Lists.newArrayListWithCapacity(componentIds.size());
+        for (Map.Entry<ModuleVersionIdentifier, ComponentIdentifier> entry : componentIds.entrySet()) {
+            if (notRecordableReason != null) {
+                break;
+            }
+            if (entry.getKey().equals(root)) {
+                continue;
+            }
+            RepositoryState repositoryState = repositoryStates.get(entry.getKey());
+            if (!(entry.getValue() instanceof ModuleComponentIdentifier) || repositoryState == null) {
+                notRecordable("component " + entry.getValue() + " was not resolved from a module repository");
+                break;
+            }
+            components.add(new RecordedComponent(repositoryState.repositoryId, (ModuleComponentIdentifier) entry.getValue(), repositoryState.descriptorHash));
+        }
+        if (notRecordableReason != null) {
+            LOGGER.debug("Cannot record resolution results for {}: {}.", displayName, notRecordableReason);
+            return null;
+        }
+        write(new BinaryStore.WriteAction() {
+            public void write(Encoder encoder) throws IOException {
+                encoder.writeByte(DONE);
+            }
+        });
+        encoder.flush();
+        return new Recording(components, outputStream.toByteArray());
+    }
+
+    private void checkRequested(InternalDependencyResult dependency) {
+        if (dependency.getFailure() != null) {
+            notRecordable("dependency " + dependency.getRequested() + " could not be resolved");
+            return;
+        }
+        ComponentSelector requested = dependency.getRequested();
+        if (!(requested instanceof ModuleComponentSelector)) {
+            notRecordable("dependency " + requested + " does not refer to a module");
+            return;
+        }
+        String version = ((ModuleComponentSelector) requested).getVersion();
+        if (version == null || versionSelectorScheme.parseSelector(version).isDynamic()) {
+            notRecordable("dependency " + requested + " uses a dynamic version");
+        }
+    }
+
+    private void checkArtifactSet(DefaultArtifactSet artifactSet) {
+        ModuleVersionIdentifier id = artifactSet.getModuleVersionIdentifier();
+        ModuleSource moduleSource = artifactSet.getModuleSource();
+        if (!(moduleSource instanceof RepositoryChainModuleSource)
+            || !(((RepositoryChainModuleSource) moduleSource).getDelegate() instanceof CachingModuleComponentRepository.CachingModuleSource)) {
+            notRecordable("component " + id + " was not resolved from a cached remote repository");
+            return;
+        }
+        String repositoryId = ((RepositoryChainModuleSource) moduleSource).getRepositoryId();
+        CachingModuleComponentRepository.CachingModuleSource cachingModuleSource = (CachingModuleComponentRepository.CachingModuleSource) ((RepositoryChainModuleSource) moduleSource).getDelegate();
+        if (cachingModuleSource.isChangingModule()) {
+            notRecordable("component " + id + " is a changing module");
+            return;
+        }
+        for (ComponentArtifactMetadata artifact : artifactSet.getIncludedArtifacts()) {
+            if (!(artifact instanceof ModuleComponentArtifactMetadata)) {
+                notRecordable("artifact " + artifact + " does not belong to a module");
+                return;
+            }
+        }
+        repositoryStates.put(id, new RepositoryState(repositoryId, cachingModuleSource.getDescriptorHash()));
+    }
+
+    private void writeArtifactSet(Encoder encoder, DefaultArtifactSet artifactSet) throws IOException {
+        serializers.moduleVersionIdentifier.write(encoder, artifactSet.getModuleVersionIdentifier());
+        ModuleSource moduleSource = artifactSet.getModuleSource();
+        Integer moduleSourceIndex = recordedModuleSources.get(moduleSource);
+        if (moduleSourceIndex == null) {
+            encoder.writeSmallInt(recordedModuleSources.size());
+            recordedModuleSources.put(moduleSource, recordedModuleSources.size());
+            serializers.moduleSource.write(encoder, moduleSource);
+        } else {
+            encoder.writeSmallInt(moduleSourceIndex);
+        }
+        Set<ComponentArtifactMetadata> artifacts = artifactSet.getIncludedArtifacts();
+        encoder.writeSmallInt(artifacts.size());
+        for (ComponentArtifactMetadata artifact : artifacts) {
+            ModuleComponentArtifactMetadata moduleArtifact = (ModuleComponentArtifactMetadata) artifact;
+            serializers.componentIdentifier.write(encoder, moduleArtifact.getId().getComponentIdentifier());
+            IvyArtifactName name = moduleArtifact.getName();
+            encoder.writeString(name.getName());
+            encoder.writeString(name.getType());
+            encoder.writeNullableString(name.getExtension());
+            encoder.writeNullableString(name.getClassifier());
+        }
+    }
+
+    private void write(BinaryStore.WriteAction action) {
+        if (notRecordableReason != null) {
+            return;
+        }
+        try {
+            action.write(encoder);
+        } catch (IOException e) {
+            throw throwAsUncheckedException(e);
+        }
+    }
+
+    private void notRecordable(String reason) {
+        if (notRecordableReason == null) {
+            notRecordableReason = reason;
+        }
+    }
+
+    /**
+     * Replays the given recording into the given builders.
+     *
+     * @param firstLevelDependencies The dependencies declared by the configuration being resolved, in the same order as they were passed to the recorder.
+     * @param artifactResolver The resolver to use to download the artifacts of the replayed artifact sets.
+     */
+    public static void replay(Recording recording, List<? extends ModuleDependency> firstLevelDependencies, ResolvedConfigurationBuilder oldModelBuilder, ResolutionResultBuilder newModelBuilder,
+                              DependencyArtifactsVisitor artifactsVisitor, ArtifactResolver artifactResolver) {
+        Serializers serializers = new Serializers();
+        Map<ComponentSelector, ModuleVersionResolveException> noFailures = Collections.emptyMap();
+        Map<Long, ArtifactSet> artifactSets = Maps.newHashMap();
+        Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts = Maps.newHashMap();
+        List<ModuleSource> moduleSources = Lists.newArrayList();
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(recording.getEvents()));
+        int valuesRead = 0;
+        byte type = -1;
+        try {
+            while (true) {
+                type = decoder.readByte();
+                valuesRead++;
+                switch (type) {
+                    case ROOT:
+                        ModuleVersionIdentifier rootId = serializers.moduleVersionIdentifier.read(decoder);
+                        newModelBuilder.start(rootId, serializers.componentIdentifier.read(decoder));
+                        break;
+                    case MODULE:
+                        newModelBuilder.resolvedModuleVersion(serializers.moduleVersionSelection.read(decoder));
+                        break;
+                    case DEPENDENCY:
+                        ModuleVersionIdentifier from = serializers.moduleVersionIdentifier.read(decoder);
+                        int size = decoder.readSmallInt();
+                        List<InternalDependencyResult> dependencies = Lists.newArrayListWithCapacity(size);
+                        for (int i = 0; i < size; i++) {
+                            dependencies.add(serializers.internalDependencyResult.read(decoder, noFailures));
+                        }
+                        newModelBuilder.resolvedConfiguration(from, dependencies);
+                        break;
+                    case NEW_DEP:
+                        oldModelBuilder.newResolvedDependency(serializers.resolvedConfigurationIdentifier.read(decoder));
+                        break;
+                    case FIRST_LVL:
+                        ModuleDependency moduleDependency = firstLevelDependencies.get(decoder.readSmallInt());
+                        oldModelBuilder.addFirstLevelDependency(moduleDependency, serializers.resolvedConfigurationIdentifier.read(decoder));
+                        break;
+                    case PARENT_CHILD:
+                        ResolvedConfigurationIdentifier parent = serializers.resolvedConfigurationIdentifier.read(decoder);
+                        ResolvedConfigurationIdentifier child = serializers.resolvedConfigurationIdentifier.read(decoder);
+                        oldModelBuilder.addChild(parent, child, decoder.readLong());
+                        break;
+                    case OLD_MODEL_ROOT:
+                        oldModelBuilder.done(serializers.resolvedConfigurationIdentifier.read(decoder));
+                        break;
+                    case ARTIFACTS:
+                        ResolvedConfigurationIdentifier artifactsParent = serializers.resolvedConfigurationIdentifier.read(decoder);
+                        ResolvedConfigurationIdentifier artifactsChild = serializers.resolvedConfigurationIdentifier.read(decoder);
+                        long id = decoder.readLong();
+                        ArtifactSet artifactSet;
+                        if (decoder.readBoolean()) {
+                            artifactSet = readArtifactSet(decoder, serializers, id, moduleSources, artifactResolver, allResolvedArtifacts);
+                            artifactSets.put(id, artifactSet);
+                        } else {
+                            artifactSet = artifactSets.get(id);
+                        }
+                        artifactsVisitor.visitArtifacts(artifactsParent, artifactsChild, artifactSet);
+                        break;
+                    case DONE:
+                        artifactsVisitor.finishArtifacts();
+                        return;
+                    default:
+                        throw new IOException("Unknown value type read from stream: " + type);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Problems replaying the resolution results. Read " + valuesRead + " values, last was: " + type, e);
+        }
+    }
+
+    private static ArtifactSet readArtifactSet(Decoder decoder, Serializers serializers, long id, List<ModuleSource> moduleSources, ArtifactResolver artifactResolver,
+                                               Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts) throws Exception {
+        ModuleVersionIdentifier moduleVersionIdentifier = serializers.moduleVersionIdentifier.read(decoder);
+        int moduleSourceIndex = decoder.readSmallInt();
+        if (moduleSourceIndex == moduleSources.size()) {
+            moduleSources.add(serializers.moduleSource.read(decoder));
+        }
+        ModuleSource moduleSource = moduleSources.get(moduleSourceIndex);
+        int size = decoder.readSmallInt();
+        Set<ComponentArtifactMetadata> artifacts = new LinkedHashSet<ComponentArtifactMetadata>(size);
+        for (int i = 0; i < size; i++) {
+            ModuleComponentIdentifier componentIdentifier = (ModuleComponentIdentifier) serializers.componentIdentifier.read(decoder);
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String extension = decoder.readNullableString();
+            String classifier = decoder.readNullableString();
+            artifacts.add(new DefaultModuleComponentArtifactMetadata(componentIdentifier, new DefaultIvyArtifactName(name, type, extension, classifier)));
+        }
+        return new DefaultArtifactSet(moduleVersionIdentifier, moduleSource, ModuleExclusions.excludeNone(), artifacts, artifactResolver, allResolvedArtifacts, id);
+    }
+
+    private static class Serializers {
+        final ModuleVersionIdentifierSerializer moduleVersionIdentifier = new ModuleVersionIdentifierSerializer();
+        final ComponentIdentifierSerializer componentIdentifier = new ComponentIdentifierSerializer();
+        final ModuleVersionSelectionSerializer moduleVersionSelection = new ModuleVersionSelectionSerializer();
+        final InternalDependencyResultSerializer internalDependencyResult = new InternalDependencyResultSerializer();
+        final ResolvedConfigurationIdentifierSerializer resolvedConfigurationIdentifier = new ResolvedConfigurationIdentifierSerializer();
+        final DefaultSerializer<ModuleSource> moduleSource = new DefaultSerializer<ModuleSource>(ModuleSource.class.getClassLoader());
+    }
+
+    private static class RepositoryState {
+        private final String repositoryId;
+        private final BigInteger descriptorHash;
+
+        private RepositoryState(String repositoryId, BigInteger descriptorHash) {
+            this.repositoryId = repositoryId;
+            this.descriptorHash = descriptorHash;
+        }
+    }
+
+    /**
+     * A component of a recorded graph, along with the hash of the module descriptor that the component was resolved from.
+     */
+    public static class RecordedComponent {
+        private final String repositoryId;
+        private final ModuleComponentIdentifier componentId;
+        private final BigInteger descriptorHash;
+
+        public RecordedComponent(String repositoryId, ModuleComponentIdentifier componentId, BigInteger descriptorHash) {
+            this.repositoryId = repositoryId;
+            this.componentId = componentId;
+            this.descriptorHash = descriptorHash;
+        }
+
+        public String getRepositoryId() {
+            return repositoryId;
+        }
+
+        public ModuleComponentIdentifier getComponentId() {
+            return componentId;
+        }
+
+        public BigInteger getDescriptorHash() {
+            return descriptorHash;
+        }
+    }
+
+    public static class Recording {
+        private final List<RecordedComponent> components;
+        private final byte[] events;
+
+        public Recording(List<RecordedComponent> components, byte[] events) {
+            this.components = components;
+            this.events = events;
+        }
+
+        public List<RecordedComponent> getComponents() {
+            return components;
+        }
+
+        public byte[] getEvents() {
+            return events;
+        }
+    }
+
+    public static class RecordingSerializer implements Serializer<Recording> {
+        private final ComponentIdentifierSerializer componentIdentifierSerializer = new ComponentIdentifierSerializer();
+
+        public Recording read(Decoder decoder) throws Exception {
+            int size = decoder.readSmallInt();
+            List<RecordedComponent> components = Lists.newArrayListWithCapacity(size);
+            for (int i = 0; i < size; i++) {
+                String repositoryId = decoder.readString();
+                ModuleComponentIdentifier componentId = (ModuleComponentIdentifier) componentIdentifierSerializer.read(decoder);
+                BigInteger descriptorHash = new BigInteger(decoder.readBinary());
+                components.add(new RecordedComponent(repositoryId, componentId, descriptorHash));
+            }
+            return new Recording(components, decoder.readBinary());
+        }
+
+        public void write(Encoder encoder, Recording value) throws Exception {
+            encoder.writeSmallInt(value.components.size());
+            for (RecordedComponent component : value.components) {
+                encoder.writeString(component.repositoryId);
+                componentIdentifierSerializer.write(encoder, component.componentId);
+                encoder.writeBinary(component.descriptorHash.toByteArray());
+            }
+            encoder.writeBinary(value.events);
+        }
+    }
+}
@@ -35,8 +35,14 @@ public class ResolutionResultsStoreFactory implements Closeable {
     private final static Logger LOG = Logging.getLogger(ResolutionResultsStoreFactory.class);
     private static final int DEFAULT_MAX_SIZE = 2000000000; //2 gigs
 
+    /**
+     * When enabled, resolution results are read back from memory mapped regions of the binary store files.
+     */
+    public static final String MAPPED_STORES_TOGGLE = "org.gradle.dependency.resolution.mappedResultsStore";
+
     private final TemporaryFileProvider temp;
     private int maxSize;
+    private final boolean memoryMapped;
 
     private CachedStoreFactory<TransientConfigurationResults> oldModelCache;
     private CachedStoreFactory<ResolvedComponentResult> newModelCache;
@@ -44,16 +50,26 @@ public class ResolutionResultsStoreFactory implements Closeable {
     private AtomicInteger storeSetBaseId = new AtomicInteger(0);
 
     public ResolutionResultsStoreFactory(TemporaryFileProvider temp) {
-        this(temp, DEFAULT_MAX_SIZE);
+        this(temp, false);
+    }
+
+    public ResolutionResultsStoreFactory(TemporaryFileProvider temp, boolean memoryMapped) {
+        this(temp, DEFAULT_MAX_SIZE, memoryMapped);
+    }
+
+    ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize) {
+        this(temp, maxSize, false);
     }
 
     /**
      * @param temp - Provider of temporary files.
      * @param maxSize - indicates the approx. maximum size of the binary store that will trigger rolling of the file
+     * @param memoryMapped - whether the binary stores are read back through memory mappings
      */
-    ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize) {
+    ResolutionResultsStoreFactory(TemporaryFileProvider temp, int maxSize, boolean memoryMapped) {
         this.temp = temp;
         this.maxSize = maxSize;
+        this.memoryMapped = memoryMapped;
     }
 
     private final Map<String, DefaultBinaryStore> stores = new HashMap<String, DefaultBinaryStore>();
@@ -64,7 +80,7 @@ public class ResolutionResultsStoreFactory implements Closeable {
         if (store == null || isFull(store)) {
             File storeFile = temp.createTemporaryFile("gradle", ".bin");
             storeFile.deleteOnExit();
-            store = new DefaultBinaryStore(storeFile);
+            store = new DefaultBinaryStore(storeFile, memoryMapped);
             stores.put(storeKey, store);
             cleanUpLater.add(store);
         }
@@ -99,7 +99,7 @@ public class DefaultArtifactResolutionQuery implements ArtifactResolutionQuery {
         }
         List<ResolutionAwareRepository> repositories = CollectionUtils.collect(repositoryHandler, Transformers.cast(ResolutionAwareRepository.class));
         ResolutionStrategyInternal resolutionStrategy = configurationContainer.detachedConfiguration().getResolutionStrategy();
-        final ComponentResolvers componentResolvers = ivyFactory.create(resolutionStrategy, repositories, metadataHandler.getComponentMetadataProcessor());
+        final ComponentResolvers componentResolvers = ivyFactory.create("artifact resolution query", resolutionStrategy, repositories, metadataHandler.getComponentMetadataProcessor());
         final ComponentMetaDataResolver componentMetaDataResolver = componentResolvers.getComponentResolver();
         final ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(componentResolvers.getArtifactResolver());
 
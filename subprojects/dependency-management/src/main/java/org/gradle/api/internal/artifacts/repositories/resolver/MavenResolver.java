@@ -50,15 +50,23 @@ public class MavenResolver extends ExternalResourceResolver {
 
     public MavenResolver(String name, URI rootUri, RepositoryTransport transport,
                          LocallyAvailableResourceFinder<ModuleComponentArtifactMetadata> locallyAvailableResourceFinder,
-                         FileStore<ModuleComponentArtifactMetadata> artifactFileStore, MetaDataParser<DefaultMavenModuleResolveMetadata> pomParser) {
+                         FileStore<ModuleComponentArtifactMetadata> artifactFileStore, FileStore<String> resourcesFileStore,
+                         MetaDataParser<DefaultMavenModuleResolveMetadata> pomParser) {
+        this(name, rootUri, transport, locallyAvailableResourceFinder, artifactFileStore, pomParser, new MavenMetadataLoader(transport.getResourceAccessor(), resourcesFileStore));
+    }
+
+    private MavenResolver(String name, URI rootUri, RepositoryTransport transport,
+                          LocallyAvailableResourceFinder<ModuleComponentArtifactMetadata> locallyAvailableResourceFinder,
+                          FileStore<ModuleComponentArtifactMetadata> artifactFileStore, MetaDataParser<DefaultMavenModuleResolveMetadata> pomParser,
+                          MavenMetadataLoader mavenMetadataLoader) {
         super(name, transport.isLocal(),
                 transport.getRepository(),
                 transport.getResourceAccessor(),
-                new ChainedVersionLister(new MavenVersionLister(transport.getRepository()), new ResourceVersionLister(transport.getRepository())),
+                new ChainedVersionLister(new MavenVersionLister(mavenMetadataLoader), new ResourceVersionLister(transport.getRepository())),
                 locallyAvailableResourceFinder,
                 artifactFileStore);
         this.metaDataParser = pomParser;
-        this.mavenMetaDataLoader = new MavenMetadataLoader(transport.getRepository());
+        this.mavenMetaDataLoader = mavenMetadataLoader;
         this.root = rootUri;
 
         updatePatterns();
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.resource.cached;
+
+import org.gradle.api.Transformer;
+import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.resource.local.GroupedAndNamedUniqueFileStore;
+import org.gradle.internal.resource.local.PathKeyFileStore;
+
+/**
+ * Stores the content of external resources that are not artifacts of a component, keyed by the URL of the resource.
+ * Each version of the content of a resource is stored in its own directory, so a changed resource never replaces a file that is still referenced.
+ */
+public class ExternalResourceFileStore extends GroupedAndNamedUniqueFileStore<String> {
+    private static final Transformer<String, String> GROUPER = new Transformer<String, String>() {
+        public String transform(String url) {
+            return HashUtil.createHash(url, "SHA1").asHexString();
+        }
+    };
+    private static final Transformer<String, String> NAMER = new Transformer<String, String>() {
+        public String transform(String url) {
+            String name = url.substring(url.lastIndexOf('/') + 1);
+            return name.length() == 0 ? "resource" : name;
+        }
+    };
+
+    public ExternalResourceFileStore(PathKeyFileStore pathKeyFileStore, TemporaryFileProvider temporaryFileProvider) {
+        super(pathKeyFileStore, temporaryFileProvider, GROUPER, NAMER);
+    }
+}
@@ -51,4 +51,15 @@ class CacheLayoutTest extends Specification {
         cacheLayout.formattedVersion == '2.17'
         cacheLayout.getPath(new File('some/dir')) == new File('some/dir/metadata-2.17')
     }
+
+    def "use resources store layout"() {
+        when:
+        CacheLayout cacheLayout = CacheLayout.RESOURCES
+
+        then:
+        cacheLayout.key == 'resources-2.1'
+        cacheLayout.version == VersionNumber.parse("2.1.0")
+        cacheLayout.formattedVersion == '2.1'
+        cacheLayout.getPath(new File('some/dir')) == new File('some/dir/resources-2.1')
+    }
 }
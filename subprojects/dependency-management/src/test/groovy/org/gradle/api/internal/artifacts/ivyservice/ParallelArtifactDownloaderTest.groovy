@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.logging.progress.ProgressLogger
+import org.gradle.internal.logging.progress.ProgressLoggerFactory
+import org.gradle.internal.resolve.ArtifactResolveException
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ParallelArtifactDownloaderTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def cacheLockingManager = Mock(CacheLockingManager)
+    def progressLogger = Mock(ProgressLogger)
+    def progressLoggerFactory = Stub(ProgressLoggerFactory) {
+        newOperation(_ as Class) >> progressLogger
+    }
+    def downloader = new ParallelArtifactDownloader(executorFactory, 4, cacheLockingManager, progressLoggerFactory)
+
+    def cleanup() {
+        downloader.stop()
+        executorFactory.stop()
+    }
+
+    def "downloads external artifacts concurrently while the cache lock is released"() {
+        def bothStarted = new CountDownLatch(2)
+        def downloadedConcurrently = Collections.synchronizedList([])
+        def artifact1 = artifact(ModuleComponentArtifactIdentifier) {
+            bothStarted.countDown()
+            downloadedConcurrently << bothStarted.await(10, TimeUnit.SECONDS)
+        }
+        def artifact2 = artifact(ModuleComponentArtifactIdentifier) {
+            bothStarted.countDown()
+            downloadedConcurrently << bothStarted.await(10, TimeUnit.SECONDS)
+        }
+
+        when:
+        downloader.download([artifact1, artifact2], "config")
+
+        then:
+        1 * cacheLockingManager.longRunningOperation("Download artifacts for config", _ as Runnable) >> { String name, Runnable action -> action.run() }
+        1 * progressLogger.start("Download artifacts for config", "Download artifacts")
+        1 * progressLogger.progress("1/2 artifacts")
+        1 * progressLogger.progress("2/2 artifacts")
+        1 * progressLogger.completed()
+        downloadedConcurrently == [true, true]
+    }
+
+    def "ignores download failures"() {
+        def artifact1 = artifact(ModuleComponentArtifactIdentifier) { throw new ArtifactResolveException("broken") }
+        def artifact2 = artifact(ModuleComponentArtifactIdentifier) { new File("a.jar") }
+
+        when:
+        downloader.download([artifact1, artifact2], "config")
+
+        then:
+        1 * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        noExceptionThrown()
+    }
+
+    def "does not download artifacts of local components"() {
+        def external = artifact(ModuleComponentArtifactIdentifier) { throw new AssertionError() }
+        def local1 = artifact(ComponentArtifactIdentifier) { throw new AssertionError() }
+        def local2 = artifact(ComponentArtifactIdentifier) { throw new AssertionError() }
+
+        when:
+        downloader.download([external, local1, local2], "config")
+
+        then:
+        0 * cacheLockingManager._
+        0 * progressLogger._
+    }
+
+    def "does nothing when concurrent downloads are disabled"() {
+        def downloader = new ParallelArtifactDownloader(executorFactory, 1, cacheLockingManager, progressLoggerFactory)
+        def artifact1 = artifact(ModuleComponentArtifactIdentifier) { throw new AssertionError() }
+        def artifact2 = artifact(ModuleComponentArtifactIdentifier) { throw new AssertionError() }
+
+        when:
+        downloader.download([artifact1, artifact2], "config")
+
+        then:
+        0 * cacheLockingManager._
+    }
+
+    private ResolvedArtifact artifact(Class<? extends ComponentArtifactIdentifier> idType, Closure getFile) {
+        def id = Stub(idType)
+        return Stub(ResolvedArtifact) {
+            getId() >> id
+            getFile() >> getFile
+        }
+    }
+}
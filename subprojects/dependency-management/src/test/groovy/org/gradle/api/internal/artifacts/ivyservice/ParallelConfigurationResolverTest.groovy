@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.Task
+import org.gradle.api.execution.TaskExecutionGraph
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.file.FileCollectionInternal
+import org.gradle.api.internal.file.UnionFileCollection
+import org.gradle.api.tasks.TaskInputs
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.logging.progress.ProgressLogger
+import org.gradle.internal.logging.progress.ProgressLoggerFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import static org.gradle.api.internal.artifacts.configurations.ConfigurationInternal.InternalState.RESULTS_RESOLVED
+import static org.gradle.api.internal.artifacts.configurations.ConfigurationInternal.InternalState.UNRESOLVED
+
+class ParallelConfigurationResolverTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def progressLogger = Mock(ProgressLogger)
+    def progressLoggerFactory = Stub(ProgressLoggerFactory) {
+        newOperation(_ as Class) >> progressLogger
+    }
+    def resolver = new ParallelConfigurationResolver(executorFactory, 4, progressLoggerFactory)
+
+    def cleanup() {
+        resolver.stop()
+        executorFactory.stop()
+    }
+
+    def "groups unresolved configurations used by tasks by project"() {
+        def aCompile = configuration(":a:compile")
+        def aRuntime = configuration(":a:runtime")
+        def bCompile = configuration(":b:compile")
+        def resolved = configuration(":b:runtime", RESULTS_RESOLVED)
+        def tasks = [task(aCompile, bCompile), task(aRuntime, aCompile), task(resolved)]
+
+        expect:
+        resolver.findUnresolvedConfigurations(tasks) == [":a:": [aCompile, aRuntime], ":b:": [bCompile]]
+    }
+
+    def "resolves the configurations of different projects concurrently"() {
+        def bothStarted = new CountDownLatch(2)
+        def resolvedConcurrently = Collections.synchronizedList([])
+        def aCompile = configuration(":a:compile") {
+            bothStarted.countDown()
+            resolvedConcurrently << bothStarted.await(10, TimeUnit.SECONDS)
+        }
+        def bCompile = configuration(":b:compile") {
+            bothStarted.countDown()
+            resolvedConcurrently << bothStarted.await(10, TimeUnit.SECONDS)
+        }
+
+        when:
+        resolver.graphPopulated(graph(task(aCompile), task(bCompile)))
+
+        then:
+        1 * progressLogger.start("Resolve 2 configurations", "Resolve configurations")
+        1 * progressLogger.progress("1/2 projects")
+        1 * progressLogger.progress("2/2 projects")
+        1 * progressLogger.completed()
+        resolvedConcurrently == [true, true]
+    }
+
+    def "ignores resolution failures"() {
+        def aCompile = configuration(":a:compile") { throw new RuntimeException("broken") }
+        def bCompile = configuration(":b:compile")
+
+        when:
+        resolver.graphPopulated(graph(task(aCompile), task(bCompile)))
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "leaves resolution to the tasks when only the configurations of a single project are used"() {
+        def compile = Mock(TestConfiguration)
+        def runtime = Mock(TestConfiguration)
+
+        when:
+        resolver.graphPopulated(graph(task(compile, runtime)))
+
+        then:
+        _ * compile.getResolvedState() >> UNRESOLVED
+        _ * compile.getPath() >> ":a:compile"
+        _ * compile.getName() >> "compile"
+        _ * runtime.getResolvedState() >> UNRESOLVED
+        _ * runtime.getPath() >> ":a:runtime"
+        _ * runtime.getName() >> "runtime"
+        0 * compile.getResolvedConfiguration()
+        0 * runtime.getResolvedConfiguration()
+        0 * progressLogger._
+    }
+
+    def configuration(String path, ConfigurationInternal.InternalState state = UNRESOLVED, Closure resolve = {}) {
+        return Stub(TestConfiguration) {
+            getPath() >> path
+            getName() >> path.substring(path.lastIndexOf(':') + 1)
+            getResolvedState() >> state
+            getResolvedConfiguration() >> { resolve.call(); null }
+        }
+    }
+
+    def configuration(String path, Closure resolve) {
+        return configuration(path, UNRESOLVED, resolve)
+    }
+
+    def task(TestConfiguration... configurations) {
+        def inputs = Stub(TaskInputs) {
+            getFiles() >> new UnionFileCollection(configurations as List)
+        }
+        return Stub(Task) {
+            getInputs() >> inputs
+        }
+    }
+
+    def graph(Task... tasks) {
+        return Stub(TaskExecutionGraph) {
+            getAllTasks() >> (tasks as List)
+        }
+    }
+
+    interface TestConfiguration extends ConfigurationInternal, FileCollectionInternal {
+    }
+}
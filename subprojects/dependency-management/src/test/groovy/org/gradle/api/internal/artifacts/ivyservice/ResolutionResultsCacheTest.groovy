@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.Dependency
+import org.gradle.api.artifacts.DependencySet
+import org.gradle.api.artifacts.ProjectDependency
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.Module
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.configurations.ConflictResolution
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionsInternal
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository
+import spock.lang.Specification
+
+class ResolutionResultsCacheTest extends Specification {
+    def versionSelectorScheme = new DefaultVersionSelectorScheme(new DefaultVersionComparator())
+    def cache = new ResolutionResultsCache(Stub(CacheLockingManager), Stub(ModuleMetaDataCache), Stub(ResolveIvyFactory), versionSelectorScheme, false)
+    def globalRules = Stub(GlobalDependencyResolutionRules)
+    def dependencySubstitution = Stub(DependencySubstitutionsInternal)
+    def componentSelection = Stub(ComponentSelectionRulesInternal) {
+        getRules() >> []
+    }
+    def resolutionStrategy = Stub(ResolutionStrategyInternal) {
+        getForcedModules() >> ([] as Set)
+        getDependencySubstitution() >> dependencySubstitution
+        getComponentSelection() >> componentSelection
+        getConflictResolution() >> Stub(ConflictResolution)
+    }
+    def repository = repository("repo", false)
+
+    def "calculates the same key for the same inputs"() {
+        expect:
+        def key = cache.createKey(configuration(dependency("1.0")), [repository], globalRules)
+        key != null
+        cache.createKey(configuration(dependency("1.0")), [repository], globalRules) == key
+    }
+
+    def "calculates a different key when the inputs change"() {
+        given:
+        def key = cache.createKey(configuration(dependency("1.0")), [repository], globalRules)
+
+        expect:
+        cache.createKey(configuration(dependency("1.1")), [repository], globalRules) != key
+        cache.createKey(configuration(dependency("1.0"), dependency("1.0", "other")), [repository], globalRules) != key
+        cache.createKey(configuration(dependency("1.0")), [repository("other", false)], globalRules) != key
+        cache.createKey(configuration(dependency("1.0")), [repository, repository("other", false)], globalRules) != key
+    }
+
+    def "does not cache the results of configurations with dynamic version #version"() {
+        expect:
+        cache.createKey(configuration(dependency(version)), [repository], globalRules) == null
+
+        where:
+        version << ["1.+", "[1.0,2.0)", "latest.integration"]
+    }
+
+    def "does not cache the results of configurations with changing or project dependencies"() {
+        def changingDependency = dependency("1.0")
+        changingDependency.changing = true
+
+        expect:
+        cache.createKey(configuration(changingDependency), [repository], globalRules) == null
+        cache.createKey(configuration(dependency("1.0"), Stub(ProjectDependency)), [repository], globalRules) == null
+    }
+
+    def "does not cache the results of configurations that use a local repository"() {
+        expect:
+        cache.createKey(configuration(dependency("1.0")), [repository("local", true)], globalRules) == null
+    }
+
+    def "does not cache the results of configurations with resolution rules"() {
+        given:
+        dependencySubstitution.hasDependencySubstitutionRules() >> true
+
+        expect:
+        cache.createKey(configuration(dependency("1.0")), [repository], globalRules) == null
+    }
+
+    def "does not cache the results of configurations when global rules have been registered"() {
+        given:
+        globalRules.hasRules() >> true
+
+        expect:
+        cache.createKey(configuration(dependency("1.0")), [repository], globalRules) == null
+    }
+
+    def "does not cache the results of configurations when dependencies are refreshed"() {
+        given:
+        def refreshingCache = new ResolutionResultsCache(Stub(CacheLockingManager), Stub(ModuleMetaDataCache), Stub(ResolveIvyFactory), versionSelectorScheme, true)
+
+        expect:
+        refreshingCache.createKey(configuration(dependency("1.0")), [repository], globalRules) == null
+    }
+
+    def dependency(String version, String name = "module") {
+        return new DefaultExternalModuleDependency("group", name, version)
+    }
+
+    def repository(String id, boolean local) {
+        def resolver = Stub(ConfiguredModuleComponentRepository) {
+            getId() >> id
+            isLocal() >> local
+        }
+        return Stub(ResolutionAwareRepository) {
+            createResolver() >> resolver
+        }
+    }
+
+    def configuration(Dependency... dependencies) {
+        def dependencySet = Stub(DependencySet) {
+            size() >> dependencies.length
+            iterator() >> { (dependencies as List).iterator() }
+        }
+        def configuration = Stub(ConfigurationInternal)
+        def module = Stub(Module) {
+            getGroup() >> "org"
+            getName() >> "project"
+            getVersion() >> "1.0"
+            getStatus() >> "integration"
+            getProjectPath() >> ":project"
+        }
+        configuration.name >> "compile"
+        configuration.path >> ":project:compile"
+        configuration.transitive >> true
+        configuration.module >> module
+        configuration.resolutionStrategy >> resolutionStrategy
+        configuration.dependencies >> dependencySet
+        configuration.excludeRules >> ([] as Set)
+        configuration.hierarchy >> ([configuration] as Set<Configuration>)
+        return configuration
+    }
+}
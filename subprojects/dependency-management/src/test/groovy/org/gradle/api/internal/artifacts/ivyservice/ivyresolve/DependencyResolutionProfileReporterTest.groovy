@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.gradle.BuildResult
+import org.gradle.api.Project
+import org.gradle.api.invocation.Gradle
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.BuildCommencedTimeProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolutionProfile.Outcome.CACHED
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolutionProfile.RequestType.META_DATA
+
+class DependencyResolutionProfileReporterTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def profile = new DependencyResolutionProfile(true)
+    def reporter = new DependencyResolutionProfileReporter(profile, new BuildCommencedTimeProvider())
+    def buildDir = tmpDir.file("build")
+    def gradle = Stub(Gradle) {
+        getRootProject() >> Stub(Project) {
+            getBuildDir() >> buildDir
+        }
+    }
+
+    def "writes report to build directory of root project"() {
+        given:
+        profile.record("configuration ':compile'", "maven", META_DATA, "org:foo:1.0", CACHED, 0, 0)
+
+        when:
+        reporter.projectsEvaluated(gradle)
+        reporter.buildFinished(new BuildResult(gradle, null))
+
+        then:
+        def reports = buildDir.file("reports/profile").listFiles()
+        reports.length == 1
+        reports[0].name.startsWith("dependency-resolution-")
+        reports[0].text.contains("configuration ':compile'")
+    }
+
+    def "does not write report when build fails before projects are evaluated"() {
+        given:
+        profile.record("configuration 'classpath'", "maven", META_DATA, "org:foo:1.0", CACHED, 0, 0)
+        def gradle = Stub(Gradle) {
+            getRootProject() >> { throw new IllegalStateException("The root project is not yet available for build.") }
+        }
+
+        when:
+        reporter.buildFinished(new BuildResult(gradle, new RuntimeException("broken settings")))
+
+        then:
+        noExceptionThrown()
+        !buildDir.exists()
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolutionProfile.Outcome.*
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.DependencyResolutionProfile.RequestType.*
+
+class DependencyResolutionProfileTest extends Specification {
+    def profile = new DependencyResolutionProfile(true)
+
+    def "aggregates requests per consumer, repository and request type"() {
+        when:
+        profile.record("configuration ':a:compile'", "maven", META_DATA, "org:foo:1.0", CACHED, 0, 0)
+        profile.record("configuration ':a:compile'", "maven", META_DATA, "org:bar:1.0", FOUND, 0, 20)
+        profile.record("configuration ':a:compile'", "maven", ARTIFACT, "org:bar:1.0", FOUND, 100, 30)
+        profile.record("configuration ':a:compile'", "ivy", META_DATA, "org:baz:1.0", MISSING, 0, 5)
+        profile.record("configuration ':b:compile'", "maven", VERSION_LISTING, "org:foo", FAILED, 0, 10)
+
+        then:
+        report() == """Dependency resolution profile
+
+configuration ':a:compile'
+  Repository ivy
+    Meta-data: 1 requests, 0 cached (0%), 0 found, 1 missing, 0 failed, 0 bytes downloaded, 0.005 secs in remote requests
+  Repository maven
+    Meta-data: 2 requests, 1 cached (50%), 1 found, 0 missing, 0 failed, 0 bytes downloaded, 0.02 secs in remote requests
+    Artifacts: 1 requests, 0 cached (0%), 1 found, 0 missing, 0 failed, 100 bytes downloaded, 0.03 secs in remote requests
+
+configuration ':b:compile'
+  Repository maven
+    Version listings: 1 requests, 0 cached (0%), 0 found, 0 missing, 1 failed, 0 bytes downloaded, 0.01 secs in remote requests
+
+Modules with the most time spent in remote requests
+  org:bar:1.0: 0.05 secs
+  org:foo: 0.01 secs
+  org:baz:1.0: 0.005 secs
+""".replace("\n", System.getProperty("line.separator"))
+    }
+
+    def "is empty until a request is recorded"() {
+        expect:
+        profile.empty
+
+        when:
+        profile.record("configuration ':compile'", "maven", META_DATA, "org:foo:1.0", CACHED, 0, 0)
+
+        then:
+        !profile.empty
+    }
+
+    def "ignores requests when disabled"() {
+        def profile = new DependencyResolutionProfile(false)
+
+        when:
+        profile.record("configuration ':compile'", "maven", META_DATA, "org:foo:1.0", FOUND, 0, 10)
+
+        then:
+        profile.empty
+    }
+
+    private String report() {
+        def writer = new StringWriter()
+        profile.writeTo(new PrintWriter(writer))
+        return writer.toString()
+    }
+}
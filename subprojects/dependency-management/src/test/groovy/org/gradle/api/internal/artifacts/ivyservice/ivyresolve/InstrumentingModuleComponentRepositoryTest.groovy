@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.model.ComponentArtifactMetadata
+import org.gradle.internal.component.model.ComponentOverrideMetadata
+import org.gradle.internal.component.model.ModuleSource
+import org.gradle.internal.progress.BuildOperationExecutor
+import org.gradle.internal.resolve.result.DefaultBuildableArtifactResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDataResolveResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class InstrumentingModuleComponentRepositoryTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def localAccess = Mock(ModuleComponentRepositoryAccess)
+    def remoteAccess = Mock(ModuleComponentRepositoryAccess)
+    def delegate = Stub(ModuleComponentRepository) {
+        getName() >> "repo"
+        getLocalAccess() >> localAccess
+        getRemoteAccess() >> remoteAccess
+    }
+    def buildOperationExecutor = Mock(BuildOperationExecutor)
+    def profile = new DependencyResolutionProfile(true)
+    def repository = new InstrumentingModuleComponentRepository(delegate, "configuration ':compile'", buildOperationExecutor, profile)
+
+    def componentId = DefaultModuleComponentIdentifier.newId("org", "foo", "1.0")
+    def artifact = Stub(ComponentArtifactMetadata) {
+        getId() >> Stub(ComponentArtifactIdentifier) {
+            getDisplayName() >> "foo.jar (org:foo:1.0)"
+        }
+        getComponentId() >> componentId
+    }
+
+    def "runs remote meta-data request as a build operation"() {
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repository.remoteAccess.resolveComponentMetaData(componentId, Stub(ComponentOverrideMetadata), result)
+
+        then:
+        1 * buildOperationExecutor.run("Resolve meta-data of org:foo:1.0 from repository 'repo' for configuration ':compile'", _ as Runnable) >> { String name, Runnable action -> action.run() }
+        1 * remoteAccess.resolveComponentMetaData(componentId, _, result) >> { result.missing() }
+
+        and:
+        report().contains("Meta-data: 1 requests, 0 cached (0%), 0 found, 1 missing, 0 failed")
+    }
+
+    def "records local results as served from the cache"() {
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repository.localAccess.resolveComponentMetaData(componentId, Stub(ComponentOverrideMetadata), result)
+
+        then:
+        1 * localAccess.resolveComponentMetaData(componentId, _, result) >> { result.missing() }
+        0 * buildOperationExecutor._
+
+        and:
+        report().contains("Meta-data: 1 requests, 1 cached (100%)")
+    }
+
+    def "does not record local requests without a result"() {
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repository.localAccess.resolveComponentMetaData(componentId, Stub(ComponentOverrideMetadata), result)
+
+        then:
+        1 * localAccess.resolveComponentMetaData(componentId, _, result)
+
+        and:
+        profile.empty
+    }
+
+    def "records bytes of downloaded artifacts"() {
+        def result = new DefaultBuildableArtifactResolveResult()
+        def file = tmpDir.file("foo.jar") << "12345"
+
+        when:
+        repository.remoteAccess.resolveArtifact(artifact, Stub(ModuleSource), result)
+
+        then:
+        1 * buildOperationExecutor.run("Download foo.jar (org:foo:1.0) from repository 'repo' for configuration ':compile'", _ as Runnable) >> { String name, Runnable action -> action.run() }
+        1 * remoteAccess.resolveArtifact(artifact, _, result) >> { result.resolved(file) }
+
+        and:
+        report().contains("Artifacts: 1 requests, 0 cached (0%), 1 found, 0 missing, 0 failed, 5 bytes downloaded")
+    }
+
+    def "records failed remote requests"() {
+        def failure = new RuntimeException()
+
+        when:
+        repository.remoteAccess.resolveArtifact(artifact, Stub(ModuleSource), new DefaultBuildableArtifactResolveResult())
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+
+        and:
+        1 * buildOperationExecutor.run(_, _ as Runnable) >> { throw failure }
+
+        and:
+        report().contains("Artifacts: 1 requests, 0 cached (0%), 0 found, 0 missing, 1 failed")
+    }
+
+    def "runs remote requests as build operations but records nothing when profile is disabled"() {
+        def disabledProfile = new DependencyResolutionProfile(false)
+        def repository = new InstrumentingModuleComponentRepository(delegate, "configuration ':compile'", buildOperationExecutor, disabledProfile)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        expect:
+        repository.localAccess.is(localAccess)
+
+        when:
+        repository.remoteAccess.resolveComponentMetaData(componentId, Stub(ComponentOverrideMetadata), result)
+
+        then:
+        1 * buildOperationExecutor.run("Resolve meta-data of org:foo:1.0 from repository 'repo' for configuration ':compile'", _ as Runnable) >> { String name, Runnable action -> action.run() }
+        1 * remoteAccess.resolveComponentMetaData(componentId, _, result) >> { result.missing() }
+
+        and:
+        disabledProfile.empty
+    }
+
+    private String report() {
+        def writer = new StringWriter()
+        profile.writeTo(new PrintWriter(writer))
+        return writer.toString()
+    }
+}
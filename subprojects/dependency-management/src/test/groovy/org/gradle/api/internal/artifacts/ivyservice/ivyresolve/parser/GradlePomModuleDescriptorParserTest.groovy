@@ -197,6 +197,63 @@ class GradlePomModuleDescriptorParserTest extends AbstractGradlePomModuleDescrip
         hasDefaultDependencyArtifact(dep)
     }
 
+    def "reads parent pom again when it changes"() {
+        given:
+        def parent = tmpDir.file("parent.xml") << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>parent</artifactId>
+    <version>version-one</version>
+    <properties>
+        <dep.version>1.2</dep.version>
+    </properties>
+</project>
+"""
+
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <artifactId>artifact-one</artifactId>
+
+    <parent>
+        <groupId>group-one</groupId>
+        <artifactId>parent</artifactId>
+        <version>version-one</version>
+    </parent>
+
+    <dependencies>
+        <dependency>
+            <groupId>group-two</groupId>
+            <artifactId>artifact-two</artifactId>
+            <version>\${dep.version}</version>
+        </dependency>
+    </dependencies>
+</project>
+"""
+        and:
+        parseContext.getMetaDataArtifact(_, MAVEN_POM) >> { new DefaultLocallyAvailableExternalResource(parent.toURI(), new DefaultLocallyAvailableResource(parent)) }
+
+        when:
+        parsePom()
+
+        then:
+        single(descriptor.dependencies).requested == moduleId('group-two', 'artifact-two', '1.2')
+
+        when:
+        parsePom()
+
+        then:
+        single(descriptor.dependencies).requested == moduleId('group-two', 'artifact-two', '1.2')
+
+        when:
+        parent.text = parent.text.replace("<dep.version>1.2</dep.version>", "<dep.version>1.2.1</dep.version>")
+        parsePom()
+
+        then:
+        single(descriptor.dependencies).requested == moduleId('group-two', 'artifact-two', '1.2.1')
+    }
+
     def "throws exception if parent pom dependency management section does not provide default values for dependency"() {
         given:
         def parent = tmpDir.file("parent.xml") << """
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.internal.component.external.descriptor.ModuleDescriptorState
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import spock.lang.Specification
+
+class InMemoryModuleDescriptorCacheTest extends Specification {
+    def cache = new InMemoryModuleDescriptorCache(10)
+    def componentId = DefaultModuleComponentIdentifier.newId("org", "foo", "1.0")
+    def descriptor = new ModuleDescriptorState(componentId, "release", false)
+
+    def "supplies descriptor with the same hash"() {
+        when:
+        cache.put("repo", componentId, BigInteger.ONE, descriptor)
+
+        then:
+        cache.get("repo", componentId, BigInteger.ONE).is(descriptor)
+        cache.get("repo", DefaultModuleComponentIdentifier.newId("org", "foo", "1.0"), BigInteger.ONE).is(descriptor)
+    }
+
+    def "does not supply descriptor with a different hash"() {
+        when:
+        cache.put("repo", componentId, BigInteger.ONE, descriptor)
+
+        then:
+        cache.get("repo", componentId, BigInteger.TEN) == null
+    }
+
+    def "does not supply descriptor from another repository or of another module"() {
+        when:
+        cache.put("repo", componentId, BigInteger.ONE, descriptor)
+
+        then:
+        cache.get("other", componentId, BigInteger.ONE) == null
+        cache.get("repo", DefaultModuleComponentIdentifier.newId("org", "foo", "2.0"), BigInteger.ONE) == null
+    }
+
+    def "replaces descriptor when the hash changes"() {
+        def changed = new ModuleDescriptorState(componentId, "release", false)
+
+        when:
+        cache.put("repo", componentId, BigInteger.ONE, descriptor)
+        cache.put("repo", componentId, BigInteger.TEN, changed)
+
+        then:
+        cache.get("repo", componentId, BigInteger.ONE) == null
+        cache.get("repo", componentId, BigInteger.TEN).is(changed)
+    }
+
+    def "holds nothing when disabled"() {
+        def disabled = new InMemoryModuleDescriptorCache(0)
+
+        when:
+        disabled.put("repo", componentId, BigInteger.ONE, descriptor)
+
+        then:
+        disabled.get("repo", componentId, BigInteger.ONE) == null
+    }
+
+    def "discards descriptors when stopped"() {
+        when:
+        cache.put("repo", componentId, BigInteger.ONE, descriptor)
+        cache.stop()
+
+        then:
+        cache.get("repo", componentId, BigInteger.ONE) == null
+    }
+}
@@ -43,6 +43,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.Resolut
 import org.gradle.api.internal.artifacts.publish.DefaultPublishArtifact
 import org.gradle.api.internal.tasks.DefaultTaskDependency
 import org.gradle.api.specs.Spec
+import org.gradle.cache.CacheAccess
 import org.gradle.internal.component.external.descriptor.DefaultExclude
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
@@ -61,6 +62,9 @@ import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult
 import org.gradle.internal.resolve.result.BuildableComponentResolveResult
 import spock.lang.Specification
 
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
 
@@ -76,6 +80,10 @@ class DependencyGraphBuilderTest extends Specification {
     def moduleResolver = Mock(ResolveContextToComponentResolver)
     def dependencyToConfigurationResolver = new DefaultDependencyToConfigurationResolver()
     def moduleReplacements = Mock(ModuleReplacementsData)
+    def cacheAccess = Stub(CacheAccess) {
+        useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
     DependencyGraphBuilder builder
 
     def setup() {
@@ -89,6 +97,10 @@ class DependencyGraphBuilderTest extends Specification {
         builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements))
     }
 
+    private void prefetchUsing(Executor executor) {
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), executor, cacheAccess)
+    }
+
     private DefaultLenientConfiguration resolve() {
         def transientConfigurationResultsBuilder = new TransientConfigurationResultsBuilder(new DummyBinaryStore(), new DummyStore())
         def modelBuilder = new DefaultResolvedConfigurationBuilder(transientConfigurationResultsBuilder)
@@ -129,6 +141,82 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(a, b, c)
     }
 
+    def "resolves each module selector once when meta-data is prefetched"() {
+        given:
+        def executor = Executors.newFixedThreadPool(4)
+        prefetchUsing(executor)
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+        traverses b, d
+        doesNotResolve b, c
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        modules(result) == ids(a, b, c, d)
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "resolves prefetched selectors on the calling thread when no worker has started them"() {
+        given:
+        prefetchUsing({ Runnable task -> } as Executor)
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+        doesNotResolve b, c
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        modules(result) == ids(a, b, c)
+    }
+
+    def "does not include evicted module whose meta-data was prefetched"() {
+        given:
+        def executor = Executors.newFixedThreadPool(4)
+        prefetchUsing(executor)
+        def selected = revision('a', '1.2')
+        def evicted = revision('a', '1.1')
+        def b = revision('b')
+        traverses root, selected
+        traverses selected, b
+        def evictedDependency = dependsOn(root, evicted.id)
+        selectorResolvesTo(evictedDependency, evicted.componentId, evicted.id)
+        (0..1) * metaDataResolver.resolve(evicted.componentId, _, _) >> { ComponentIdentifier id, ComponentOverrideMetadata requestMetaData, BuildableComponentResolveResult result ->
+            result.resolved(evicted)
+        }
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select(!null) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            return candidates.find { it.version == '1.2' }
+        }
+
+        and:
+        modules(result) == ids(selected, b)
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
     def "correctly notifies the resolution result builder"() {
         given:
         def a = revision("a")
@@ -287,6 +375,31 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(selected, b, d, e)
     }
 
+    def "attaches each incoming edge to the node for its target configuration"() {
+        given:
+        def a = project("a", "1.0", ["api"])
+        def b = revision("b")
+        def c = revision("c")
+        traverses root, a, configuration: "api"
+        traverses root, b
+        doesNotResolve b, a
+        traverses a, c
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * projectModelBuilder.projectConfigurationResolved({ it.projectPath == ':a'}, { it == 'api' })
+        1 * projectModelBuilder.projectConfigurationResolved({ it.projectPath == ':a'}, { it == 'default' })
+
+        and:
+        def firstLevel = result.getFirstLevelModuleDependencies({ true } as Spec)
+        firstLevel.collect { "${it.moduleName}:${it.configuration}" } as Set == ["a:api", "b:default"] as Set
+        firstLevel.find { it.moduleName == 'b' }.children.collect { "${it.moduleName}:${it.configuration}" } == ["a:default"]
+        resolvedDependency(result, c).parents.collect { "${it.moduleName}:${it.configuration}" } as Set == ["a:api", "a:default"] as Set
+    }
+
     def "does not include evicted module when path through evicted module is queued for traversal when conflict detected"() {
         given:
         def selected = revision('a', '1.2')
@@ -375,6 +488,40 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(selected, b, c)
     }
 
+    def "moves incoming edges of evicted module to selected module and traverses selected module once conflict resolved"() {
+        given:
+        def selected = revision('a', '1.2')
+        def evicted = revision('a', '1.1')
+        def b = revision('b')
+        def c = revision('c')
+        def d = revision('d')
+        def x = revision('x')
+        traverses root, x
+        traverses x, evicted
+        doesNotResolve evicted, d
+        traverses root, b
+        traverses b, selected
+        traverses selected, c
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        1 * conflictResolver.select(!null) >> {
+            Collection<ComponentResolutionState> candidates = it[0]
+            assert candidates*.version == ['1.1', '1.2']
+            return candidates.find { it.version == '1.2' }
+        }
+        0 * conflictResolver._
+
+        and:
+        modules(result) == ids(x, selected, c, b)
+        def node = resolvedDependency(result, selected)
+        node.parents*.module*.id as Set == ids(x, b)
+        node.children*.module*.id as Set == ids(c)
+    }
+
     def "restarts conflict resolution when later conflict on same module discovered"() {
         given:
         def selectedA = revision('a', '1.2')
@@ -1018,6 +1165,7 @@ class DependencyGraphBuilderTest extends Specification {
         ModuleVersionIdentifier dependencyId = args.revision ? newId(to.group, to.name, args.revision) : to
         boolean transitive = args.transitive == null || args.transitive
         boolean force = args.force
+        String configuration = args.configuration ?: "default"
         ModuleVersionSelector selector = newSelector(dependencyId.group, dependencyId.name, dependencyId.version)
         ComponentSelector componentSelector = DefaultModuleComponentSelector.newSelector(selector)
         def excludeRules = []
@@ -1025,7 +1173,7 @@ class DependencyGraphBuilderTest extends Specification {
             ComponentResolveMetadata excluded = args.exclude
             excludeRules << new DefaultExclude(excluded.id.group, excluded.id.name)
         }
-        def dependencyMetaData = new LocalComponentDependencyMetadata(componentSelector, selector, "default", "default", [] as Set<IvyArtifactName>,
+        def dependencyMetaData = new LocalComponentDependencyMetadata(componentSelector, selector, "default", configuration, [] as Set<IvyArtifactName>,
                                                                       excludeRules, force, false, transitive)
         dependencyMetaData = new DslOriginDependencyMetadataWrapper(dependencyMetaData, Stub(ModuleDependency))
         from.getDependencies().add(dependencyMetaData)
@@ -1054,6 +1202,19 @@ class DependencyGraphBuilderTest extends Specification {
         return result
     }
 
+    def resolvedDependency(LenientConfiguration config, ComponentResolveMetadata module) {
+        List<ResolvedDependency> queue = []
+        queue.addAll(config.getFirstLevelModuleDependencies({ true } as Spec))
+        while (!queue.empty) {
+            def node = queue.remove(0)
+            if (node.module.id == module.id) {
+                return node
+            }
+            queue.addAll(node.children)
+        }
+        return null
+    }
+
     def artifacts(LenientConfiguration config) {
         return config.resolvedArtifacts.collect { it.moduleVersion.id } as Set
     }
@@ -22,9 +22,9 @@ import org.gradle.internal.component.model.Exclude
 import spock.lang.Specification
 import spock.lang.Unroll
 
-import static ModuleExclusions.excludeAny
-
 class DefaultModuleExclusionTest extends Specification {
+    def moduleExclusions = new ModuleExclusions()
+
     def "accepts all modules default"() {
         def spec = excludeAny()
 
@@ -48,7 +48,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "does not accept module that matches single module exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         spec.excludeModule(moduleId('org', 'module'))
@@ -68,7 +68,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "accepts module that doesn't match single module exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         !spec.excludeModule(moduleId('org', 'module'))
@@ -86,8 +86,8 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "module exclude rule selects the same modules as itself (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
-        def same = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
+        def same = excludeAny(rule)
         def all = excludeAny()
         def otherRule = excludeAny(excludeRule('*', 'other'))
         def artifactRule = excludeAny(excludeRule('*', 'other', 'thing', '*', '*'))
@@ -111,7 +111,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "accepts module for every artifact exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         !spec.excludeModule(moduleId('org', 'module'))
@@ -127,7 +127,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "accepts artifact for every module exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         !spec.excludeArtifact(moduleId('org', 'module'), artifactName('name', 'jar', 'jar'))
@@ -148,7 +148,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "does not accept artifact that matches single artifact exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         spec.excludeArtifact(moduleId('org', 'module'), artifactName('mylib', 'jar', 'jar'))
@@ -170,7 +170,7 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "accepts artifact that doesn't match single artifact exclude rule (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
 
         then:
         !spec.excludeArtifact(moduleId('org', 'module'), artifactName('mylib', 'jar', 'jar'))
@@ -210,8 +210,8 @@ class DefaultModuleExclusionTest extends Specification {
     @Unroll
     def "artifact exclude rule accepts the same modules as other rules that accept all modules (#rule)"() {
         when:
-        def spec = ModuleExclusions.excludeAny(rule)
-        def sameRule = ModuleExclusions.excludeAny(rule)
+        def spec = excludeAny(rule)
+        def sameRule = excludeAny(rule)
         def otherRule = excludeAny(excludeRule('*', '*', 'thing', '*', '*'))
         def all = ModuleExclusions.excludeNone()
         def moduleRule = excludeAny(excludeRule('*', 'module'))
@@ -689,12 +689,38 @@ class DefaultModuleExclusionTest extends Specification {
         union(intersection, simpleExclude)
     }
 
-    static ModuleExclusion union(ModuleExclusion spec, ModuleExclusion otherRule) {
-        ModuleExclusions.union(spec, otherRule)
+    def "interns equal specs"() {
+        def rule1 = excludeRule("org", "module")
+        def rule2 = excludeRule("org", "module2")
+        def rule3 = regexpExcludeRule("org", "module3")
+
+        expect:
+        excludeAny(rule1, rule2).is(excludeAny(rule2, rule1))
+        excludeAny(rule1, rule2).is(excludeAny(excludeRule("org", "module"), excludeRule("org", "module2")))
+        intersect(excludeAny(rule1), excludeAny(rule2, rule3)).is(excludeAny(rule1, rule2, rule3))
+        union(excludeAny(rule1), excludeAny(rule3)).is(union(excludeAny(excludeRule("org", "module")), excludeAny(rule3)))
+        !excludeAny(rule1).is(new ModuleExclusions().excludeAny(rule1))
+    }
+
+    def "memoizes unions and intersections"() {
+        def spec = excludeAny(excludeRule("org", "module"), regexpExcludeRule("org", "module2"))
+        def spec2 = excludeAny(excludeRule("org", "module3"))
+
+        expect:
+        union(spec, spec2).is(union(spec, spec2))
+        intersect(spec, spec2).is(intersect(spec, spec2))
+    }
+
+    ModuleExclusion excludeAny(Exclude... rules) {
+        moduleExclusions.excludeAny(rules)
+    }
+
+    ModuleExclusion union(ModuleExclusion spec, ModuleExclusion otherRule) {
+        moduleExclusions.union(spec, otherRule)
     }
 
-    static ModuleExclusion intersect(ModuleExclusion spec, ModuleExclusion otherRule) {
-        ModuleExclusions.intersect(spec, otherRule)
+    ModuleExclusion intersect(ModuleExclusion spec, ModuleExclusion otherRule) {
+        moduleExclusions.intersect(spec, otherRule)
     }
 
     static specForRule(def spec, Exclude rule) {
@@ -70,6 +70,54 @@ class DefaultBinaryStoreTest extends Specification {
 
     }
 
+    def "memory mapped data can be re-read"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"), true)
+
+        when:
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data = store.done()
+
+        then:
+        data.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data.close()
+
+        then:
+        data.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        data.close()
+
+        cleanup:
+        store.close()
+    }
+
+    def "memory mapped data contains only the bytes written for it"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"), true)
+
+        when:
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data1 = store.done()
+        store.write({ it.writeString("y") } as BinaryStore.WriteAction)
+        def data2 = store.done()
+
+        and:
+        data1.read({ it.readString() } as BinaryStore.ReadAction)
+        data1.read({ it.readString() } as BinaryStore.ReadAction)
+
+        then:
+        def e = thrown(RuntimeException)
+        e.message.startsWith("Problems reading data from")
+
+        and:
+        data2.read({ it.readString() } as BinaryStore.ReadAction) == "y"
+
+        cleanup:
+        data1.close()
+        data2.close()
+        store.close()
+    }
+
     class SomeException extends RuntimeException {}
 
     def "write action exception is propagated to the client"() {
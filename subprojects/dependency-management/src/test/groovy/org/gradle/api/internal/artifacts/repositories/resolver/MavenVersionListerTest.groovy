@@ -25,27 +25,29 @@ import org.gradle.api.resources.ResourceException
 import org.gradle.internal.UncheckedException
 import org.gradle.internal.component.model.DefaultIvyArtifactName
 import org.gradle.internal.resolve.result.DefaultResourceAwareResolveResult
-import org.gradle.internal.resource.ExternalResource
-import org.gradle.internal.resource.transport.ExternalResourceRepository
+import org.gradle.internal.resource.local.FileStore
+import org.gradle.internal.resource.local.LocallyAvailableExternalResource
+import org.gradle.internal.resource.local.LocallyAvailableResource
+import org.gradle.internal.resource.transfer.CacheAwareExternalResourceAccessor
 import org.xml.sax.SAXParseException
 import spock.lang.Specification
 
 class MavenVersionListerTest extends Specification {
-    def repo = Mock(ExternalResourceRepository)
     def moduleRevisionId = IvyUtil.createModuleRevisionId("org.acme", "testproject", "1.0")
     def module = new DefaultModuleIdentifier("org.acme", "testproject")
     def result = new DefaultResourceAwareResolveResult()
     def moduleVersion = new DefaultModuleVersionIdentifier(module, "1.0")
     def artifact = new DefaultIvyArtifactName("testproject", "jar", "jar")
 
-    def repository = Mock(ExternalResourceRepository)
+    def accessor = Mock(CacheAwareExternalResourceAccessor)
+    def fileStore = Mock(FileStore)
     def pattern = pattern("testRepo/" + MavenPattern.M2_PATTERN)
     def metaDataResource = new URI('testRepo/org/acme/testproject/maven-metadata.xml')
 
-    final MavenVersionLister lister = new MavenVersionLister(repository)
+    final MavenVersionLister lister = new MavenVersionLister(new MavenMetadataLoader(accessor, fileStore))
 
     def "visit parses maven-metadata.xml"() {
-        ExternalResource resource = Mock()
+        LocallyAvailableExternalResource resource = Mock()
 
         when:
         def versions = []
@@ -57,7 +59,7 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [metaDataResource.toString()]
 
         and:
-        1 * repository.getResource(metaDataResource) >> resource
+        1 * accessor.getResource(metaDataResource, _, null) >> resource
         1 * resource.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("""
 <metadata>
     <versioning>
@@ -69,13 +71,13 @@ class MavenVersionListerTest extends Specification {
 </metadata>""".bytes))
         }
         1 * resource.close()
-        0 * repository._
+        0 * accessor._
         0 * resource._
     }
 
     def "visit builds union of versions"() {
-        ExternalResource resource1 = Mock()
-        ExternalResource resource2 = Mock()
+        LocallyAvailableExternalResource resource1 = Mock()
+        LocallyAvailableExternalResource resource2 = Mock()
         def pattern1 = pattern("prefix1/" + MavenPattern.M2_PATTERN)
         def pattern2 = pattern("prefix2/" + MavenPattern.M2_PATTERN)
         def location1 = new URI('prefix1/org/acme/testproject/maven-metadata.xml')
@@ -92,7 +94,7 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [location1.toString(), location2.toString()]
 
         and:
-        1 * repository.getResource(location1) >> resource1
+        1 * accessor.getResource(location1, _, null) >> resource1
         1 * resource1.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("""
 <metadata>
     <versioning>
@@ -103,7 +105,7 @@ class MavenVersionListerTest extends Specification {
     </versioning>
 </metadata>""".bytes))
         }
-        1 * repository.getResource(location2) >> resource2
+        1 * accessor.getResource(location2, _, null) >> resource2
         1 * resource2.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("""
 <metadata>
     <versioning>
@@ -117,7 +119,7 @@ class MavenVersionListerTest extends Specification {
     }
 
     def "visit ignores duplicate patterns"() {
-        ExternalResource resource = Mock()
+        LocallyAvailableExternalResource resource = Mock()
 
         when:
         def versions = []
@@ -130,7 +132,7 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [metaDataResource.toString()]
 
         and:
-        1 * repository.getResource(metaDataResource) >> resource
+        1 * accessor.getResource(metaDataResource, _, null) >> resource
         1 * resource.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("""
 <metadata>
     <versioning>
@@ -142,7 +144,7 @@ class MavenVersionListerTest extends Specification {
 </metadata>""".bytes))
         }
         1 * resource.close()
-        0 * repository._
+        0 * accessor._
         0 * resource._
     }
 
@@ -159,12 +161,12 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [metaDataResource.toString()]
 
         and:
-        1 * repository.getResource(metaDataResource) >> null
-        0 * repository._
+        1 * accessor.getResource(metaDataResource, _, null) >> null
+        0 * accessor._
     }
 
     def "visit throws ResourceException when maven-metadata cannot be parsed"() {
-        ExternalResource resource = Mock()
+        LocallyAvailableExternalResource resource = Mock()
 
         when:
         def versionList = lister.newVisitor(module, [], result)
@@ -181,9 +183,9 @@ class MavenVersionListerTest extends Specification {
 
         and:
         1 * resource.close()
-        1 * repository.getResource(metaDataResource) >> resource;
+        1 * accessor.getResource(metaDataResource, _, null) >> resource;
         1 * resource.withContent(_) >> { Action action -> action.execute(new ByteArrayInputStream("yo".bytes)) }
-        0 * repository._
+        0 * accessor._
     }
 
     def "visit throws ResourceException when maven-metadata cannot be loaded"() {
@@ -202,8 +204,28 @@ class MavenVersionListerTest extends Specification {
         result.attempted == [metaDataResource.toString()]
 
         and:
-        1 * repository.getResource(metaDataResource) >> { throw failure }
-        0 * repository._
+        1 * accessor.getResource(metaDataResource, _, null) >> { throw failure }
+        0 * accessor._
+    }
+
+    def "downloaded maven-metadata is moved into the resources store"() {
+        def downloaded = new File("downloaded")
+        def cached = Stub(LocallyAvailableResource)
+        def resource = Stub(LocallyAvailableExternalResource)
+        def stored = null
+
+        when:
+        lister.newVisitor(module, [], result).visit(pattern, artifact)
+
+        then:
+        1 * accessor.getResource(metaDataResource, _, null) >> { URI uri, CacheAwareExternalResourceAccessor.ResourceFileStore store, candidates ->
+            stored = store.moveIntoCache(downloaded)
+            resource
+        }
+        1 * fileStore.move(metaDataResource.toString(), downloaded) >> cached
+
+        and:
+        stored == cached
     }
 
     def pattern(String pattern) {
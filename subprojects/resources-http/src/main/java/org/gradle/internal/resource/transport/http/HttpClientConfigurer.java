@@ -20,18 +20,31 @@ import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
 import org.apache.http.auth.*;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.AuthSchemes;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.ResponseContentEncoding;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.auth.*;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.SystemDefaultCredentialsProvider;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpCoreContext;
@@ -54,19 +67,46 @@ import java.io.IOException;
 import java.net.ProxySelector;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Locale;
 
 public class HttpClientConfigurer {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientConfigurer.class);
 
+    /**
+     * The maximum number of pooled connections to a single host. Defaults to {@value #DEFAULT_MAX_CONNECTIONS_PER_ROUTE}.
+     */
+    public static final String MAX_CONNECTIONS_PER_ROUTE_PROPERTY = "org.gradle.internal.http.maxConnectionsPerRoute";
+    /**
+     * The maximum number of pooled connections over all hosts. Defaults to {@value #DEFAULT_MAX_CONNECTIONS}.
+     */
+    public static final String MAX_CONNECTIONS_PROPERTY = "org.gradle.internal.http.maxConnections";
+    /**
+     * How long, in milliseconds, an idle connection is kept alive when the server does not say otherwise. Defaults to {@value #DEFAULT_KEEP_ALIVE_MILLIS}.
+     */
+    public static final String KEEP_ALIVE_PROPERTY = "org.gradle.internal.http.keepAliveMillis";
+
+    static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 8;
+    static final int DEFAULT_MAX_CONNECTIONS = 64;
+    static final int DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
     private final HttpSettings httpSettings;
+    private final HttpConnectionStatistics connectionStatistics;
 
     public HttpClientConfigurer(HttpSettings httpSettings) {
+        this(httpSettings, new HttpConnectionStatistics());
+    }
+
+    public HttpClientConfigurer(HttpSettings httpSettings, HttpConnectionStatistics connectionStatistics) {
         this.httpSettings = httpSettings;
+        this.connectionStatistics = connectionStatistics;
     }
 
     public void configure(HttpClientBuilder builder) {
         SystemDefaultCredentialsProvider credentialsProvider = new SystemDefaultCredentialsProvider();
-        configureSslSocketConnectionFactory(builder, httpSettings.getSslContextFactory());
+        SSLConnectionSocketFactory sslSocketFactory = configureSslSocketConnectionFactory(builder, httpSettings.getSslContextFactory());
+        configureConnectionManager(builder, sslSocketFactory);
+        configureContentCompression(builder);
         configureAuthSchemeRegistry(builder);
         configureCredentials(builder, credentialsProvider, httpSettings.getAuthenticationSettings());
         configureProxy(builder, credentialsProvider, httpSettings);
@@ -74,8 +114,39 @@ public class HttpClientConfigurer {
         builder.setDefaultCredentialsProvider(credentialsProvider);
     }
 
-    private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory) {
-        builder.setSSLSocketFactory(new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), new DefaultHostnameVerifier(null)));
+    private SSLConnectionSocketFactory configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory) {
+        SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), new DefaultHostnameVerifier(null));
+        builder.setSSLSocketFactory(sslSocketFactory);
+        return sslSocketFactory;
+    }
+
+    /**
+     * Keeps connections open between requests, so that fetching many small resources from the same repository does not pay for a TCP connection and TLS handshake each time.
+     * The builder ignores its SSL socket factory once a connection manager is set, so the factory is registered with the connection manager as well.
+     */
+    private void configureConnectionManager(HttpClientBuilder builder, SSLConnectionSocketFactory sslSocketFactory) {
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslSocketFactory)
+            .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry, new CountingConnectionFactory(ManagedHttpClientConnectionFactory.INSTANCE, connectionStatistics));
+        int maxConnectionsPerRoute = Math.max(1, Integer.getInteger(MAX_CONNECTIONS_PER_ROUTE_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setMaxTotal(Math.max(maxConnectionsPerRoute, Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS)));
+        // Servers commonly drop idle connections, so check connections that have been idle for a while before reusing them
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+        builder.setConnectionManager(connectionManager);
+        builder.setKeepAliveStrategy(new DefaultKeepAliveStrategy(Integer.getInteger(KEEP_ALIVE_PROPERTY, DEFAULT_KEEP_ALIVE_MILLIS)));
+        builder.addInterceptorLast(new CountingRequestInterceptor(connectionStatistics));
+    }
+
+    /**
+     * Only meta-data is requested compressed: descriptors and directory listings are text that compresses well, whereas artifacts are usually archives already.
+     */
+    private void configureContentCompression(HttpClientBuilder builder) {
+        builder.disableContentCompression();
+        builder.addInterceptorLast(new AcceptCompressedMetaData());
+        builder.addInterceptorLast(new ResponseContentEncoding());
     }
 
     private void configureAuthSchemeRegistry(HttpClientBuilder builder) {
@@ -167,6 +238,67 @@ public class HttpClientConfigurer {
         }
     }
 
+    static class AcceptCompressedMetaData implements HttpRequestInterceptor {
+        public void process(HttpRequest request, HttpContext context) {
+            if (request.getRequestLine().getMethod().equals(HttpGet.METHOD_NAME)
+                && !request.containsHeader("Accept-Encoding")
+                && isMetaData(request.getRequestLine().getUri())) {
+                request.addHeader("Accept-Encoding", "gzip,deflate");
+            }
+        }
+
+        static boolean isMetaData(String uri) {
+            String path = uri;
+            int queryStart = path.indexOf('?');
+            if (queryStart >= 0) {
+                path = path.substring(0, queryStart);
+            }
+            path = path.toLowerCase(Locale.US);
+            return path.endsWith(".pom") || path.endsWith(".xml") || path.endsWith("/");
+        }
+    }
+
+    private static class CountingRequestInterceptor implements HttpRequestInterceptor {
+        private final HttpConnectionStatistics statistics;
+
+        CountingRequestInterceptor(HttpConnectionStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        public void process(HttpRequest request, HttpContext context) {
+            statistics.requestSent();
+        }
+    }
+
+    private static class CountingConnectionFactory implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+        private final HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> delegate;
+        private final HttpConnectionStatistics statistics;
+
+        CountingConnectionFactory(HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> delegate, HttpConnectionStatistics statistics) {
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+            statistics.connectionOpened();
+            return delegate.create(route, config);
+        }
+    }
+
+    private static class DefaultKeepAliveStrategy extends DefaultConnectionKeepAliveStrategy {
+        private final long defaultKeepAliveMillis;
+
+        DefaultKeepAliveStrategy(long defaultKeepAliveMillis) {
+            this.defaultKeepAliveMillis = defaultKeepAliveMillis;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long keepAlive = super.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? keepAlive : defaultKeepAliveMillis;
+        }
+    }
+
     static class PreemptiveAuth implements HttpRequestInterceptor {
         private final AuthScheme authScheme;
         private final boolean alwaysSendAuth;
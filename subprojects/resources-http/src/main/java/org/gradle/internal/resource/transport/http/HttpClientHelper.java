@@ -24,6 +24,7 @@ import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
@@ -39,7 +40,14 @@ public class HttpClientHelper implements Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientHelper.class);
     private CloseableHttpClient client;
-    private final BasicHttpContext httpContext = new BasicHttpContext();
+    // Requests can be made from several threads at once, and a context must not be shared between concurrent requests
+    private final ThreadLocal<HttpContext> httpContext = new ThreadLocal<HttpContext>() {
+        @Override
+        protected HttpContext initialValue() {
+            return new BasicHttpContext();
+        }
+    };
+    private final HttpConnectionStatistics connectionStatistics = new HttpConnectionStatistics();
     private final HttpSettings settings;
 
     public HttpClientHelper(HttpSettings settings) {
@@ -97,9 +105,10 @@ public class HttpClientHelper implements Closeable {
 
     public HttpResponse performHttpRequest(HttpRequestBase request) throws IOException {
         // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
-        httpContext.removeAttribute(HttpClientContext.REDIRECT_LOCATIONS);
+        HttpContext context = httpContext.get();
+        context.removeAttribute(HttpClientContext.REDIRECT_LOCATIONS);
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
-        return getClient().execute(request, httpContext);
+        return getClient().execute(request, context);
     }
 
     private HttpResponse processResponse(String source, String method, HttpResponse response) {
@@ -120,15 +129,23 @@ public class HttpClientHelper implements Closeable {
         if (client == null) {
             HttpClientBuilder builder = HttpClientBuilder.create();
             builder.setRedirectStrategy(new AlwaysRedirectRedirectStrategy());
-            new HttpClientConfigurer(settings).configure(builder);
+            new HttpClientConfigurer(settings, connectionStatistics).configure(builder);
             this.client = builder.build();
         }
         return client;
     }
 
+    /**
+     * Returns the statistics about the connections used by this client so far.
+     */
+    public HttpConnectionStatistics getConnectionStatistics() {
+        return connectionStatistics;
+    }
+
     @Override
     public synchronized void close() throws IOException {
         if (client != null) {
+            LOGGER.debug("HTTP connection statistics: {}", connectionStatistics);
             client.close();
         }
     }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the requests sent by an HTTP client and the connections it opened to send them, which shows how well connections are being reused.
+ */
+public class HttpConnectionStatistics {
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+
+    void requestSent() {
+        requests.incrementAndGet();
+    }
+
+    void connectionOpened() {
+        connections.incrementAndGet();
+    }
+
+    /**
+     * The number of requests sent, including those sent to follow redirects or to authenticate.
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * The number of connections opened.
+     */
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * The number of requests that were sent over a connection opened for an earlier request.
+     */
+    public long getReusedConnectionCount() {
+        return Math.max(0, getRequestCount() - getConnectionCount());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d requests, %d connections opened, %d connections reused", getRequestCount(), getConnectionCount(), getReusedConnectionCount());
+    }
+}
@@ -36,7 +36,13 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceAccessor.class);
     private final HttpClientHelper http;
 
-    private final List<HttpResponseResource> openResources = new ArrayList<HttpResponseResource>();
+    // Resources are tracked per thread, so that a thread opening a resource does not close the resources another thread is still reading
+    private final ThreadLocal<List<HttpResponseResource>> openResources = new ThreadLocal<List<HttpResponseResource>>() {
+        @Override
+        protected List<HttpResponseResource> initialValue() {
+            return new ArrayList<HttpResponseResource>();
+        }
+    };
 
     public HttpResourceAccessor(HttpClientHelper http) {
         this.http = http;
@@ -87,11 +93,12 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
     }
 
     private HttpResponseResource recordOpenGetResource(HttpResponseResource httpResource) {
-        openResources.add(httpResource);
+        openResources.get().add(httpResource);
         return httpResource;
     }
 
     private void abortOpenResources() {
+        List<HttpResponseResource> openResources = this.openResources.get();
         for (Closeable openResource : openResources) {
             LOGGER.warn("Forcing close on abandoned resource: {}", openResource);
             try {
@@ -108,7 +115,7 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
             @Override
             public void close() throws IOException {
                 super.close();
-                HttpResourceAccessor.this.openResources.remove(this);
+                HttpResourceAccessor.this.openResources.get().remove(this);
             }
         };
     }
@@ -21,9 +21,12 @@ import org.apache.http.ssl.SSLContexts
 import org.gradle.api.artifacts.repositories.PasswordCredentials
 import org.gradle.internal.authentication.AllSchemesAuthentication
 import org.gradle.internal.resource.UriTextResource
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
 import spock.lang.Specification
 
 public class HttpClientConfigurerTest extends Specification {
+    @Rule SetSystemProperties sysProp = new SetSystemProperties()
     HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
     PasswordCredentials credentials = Mock()
     AllSchemesAuthentication authentication = Mock() {
@@ -110,4 +113,31 @@ public class HttpClientConfigurerTest extends Specification {
         then:
         httpClientBuilder.userAgent == UriTextResource.userAgentString
     }
+
+    def "configures http client with a connection pool"() {
+        httpSettings.authenticationSettings >> []
+        httpSettings.sslContextFactory >> sslContextFactory
+        System.setProperty(HttpClientConfigurer.MAX_CONNECTIONS_PER_ROUTE_PROPERTY, "3")
+
+        when:
+        configurer.configure(httpClientBuilder)
+
+        then:
+        httpClientBuilder.connManager.defaultMaxPerRoute == 3
+        httpClientBuilder.connManager.maxTotal == HttpClientConfigurer.DEFAULT_MAX_CONNECTIONS
+    }
+
+    def "requests compressed content for meta-data"() {
+        expect:
+        HttpClientConfigurer.AcceptCompressedMetaData.isMetaData(uri) == metaData
+
+        where:
+        uri                                                | metaData
+        "/repo/group/module/1.0/module-1.0.pom"            | true
+        "/repo/group/module/1.0/ivy-1.0.xml"               | true
+        "/repo/group/module/maven-metadata.xml?foo=bar"    | true
+        "http://host/repo/group/module/"                   | true
+        "/repo/group/module/1.0/module-1.0.jar"            | false
+        "/repo/group/module/1.0/module-1.0.pom.sha1"       | false
+    }
 }
@@ -16,16 +16,28 @@
 
 package org.gradle.internal.resource.transport.http
 
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
 import org.apache.http.HttpResponse
 import org.apache.http.client.methods.HttpGet
 import org.apache.http.client.methods.HttpRequestBase
 import org.apache.http.ssl.SSLContexts
+import org.apache.http.util.EntityUtils
 import org.gradle.util.SetSystemProperties
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.zip.GZIPOutputStream
+
 class HttpClientHelperTest extends Specification {
     @Rule SetSystemProperties sysProp = new SetSystemProperties()
+    HttpServer server
+    Map<String, String> acceptEncodings = [:]
+
+    def cleanup() {
+        server?.stop(0)
+    }
 
     def "throws HttpRequestException if an IO error occurs during a request"() {
         def client = new HttpClientHelper(httpSettings) {
@@ -43,6 +55,73 @@ class HttpClientHelperTest extends Specification {
         e.cause.message == "ouch"
     }
 
+    def "reuses connections for requests to the same host"() {
+        given:
+        startServer()
+        def client = new HttpClientHelper(httpSettings)
+
+        when:
+        3.times {
+            EntityUtils.consume(client.performGet(uri("/repo/lib.jar")).entity)
+        }
+
+        then:
+        client.connectionStatistics.requestCount == 3
+        client.connectionStatistics.connectionCount == 1
+        client.connectionStatistics.reusedConnectionCount == 2
+
+        cleanup:
+        client?.close()
+    }
+
+    def "requests compressed content for meta-data only"() {
+        given:
+        startServer()
+        def client = new HttpClientHelper(httpSettings)
+
+        when:
+        def pom = EntityUtils.toString(client.performGet(uri("/repo/lib.pom")).entity)
+        def jar = EntityUtils.toString(client.performGet(uri("/repo/lib.jar")).entity)
+
+        then:
+        pom == "content of /repo/lib.pom"
+        jar == "content of /repo/lib.jar"
+        acceptEncodings["/repo/lib.pom"].contains("gzip")
+        acceptEncodings["/repo/lib.jar"] == null
+
+        cleanup:
+        client?.close()
+    }
+
+    private void startServer() {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0)
+        server.createContext("/", new HttpHandler() {
+            @Override
+            void handle(HttpExchange exchange) {
+                def path = exchange.requestURI.path
+                def acceptEncoding = exchange.requestHeaders.getFirst("Accept-Encoding")
+                acceptEncodings[path] = acceptEncoding
+                byte[] content = "content of ${path}".toString().bytes
+                if (acceptEncoding?.contains("gzip")) {
+                    def bytes = new ByteArrayOutputStream()
+                    def gzip = new GZIPOutputStream(bytes)
+                    gzip.write(content)
+                    gzip.close()
+                    content = bytes.toByteArray()
+                    exchange.responseHeaders.add("Content-Encoding", "gzip")
+                }
+                exchange.sendResponseHeaders(200, content.length)
+                exchange.responseBody.write(content)
+                exchange.close()
+            }
+        })
+        server.start()
+    }
+
+    private String uri(String path) {
+        return "http://localhost:${server.address.port}${path}"
+    }
+
     private HttpSettings getHttpSettings() {
         return Stub(HttpSettings) {
             getProxySettings() >> Mock(HttpProxySettings)